@@ -0,0 +1,120 @@
+package water;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Weaver-generated serializers, with and without packed primitive runs
+ * (the "Unpacked" benchmarks run in a JVM with
+ * -Dsys.ai.h2o.weaver.packed.disable), over a few typical Iced shapes:
+ * all-primitive task state, a reduce-style state of histograms, and
+ * model-style arrays of small longs.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IcerBench {
+
+  // Like the scalar state of a typical MRTask or Job
+  public static class Scalars extends Iced<Scalars> {
+    boolean _reproducible; byte _mode; short _depth; int _nclass, _ncols, _seedIdx;
+    long _seed, _nobs, _start; float _rate; double _sum, _ssq, _min, _max, _mean;
+    private int _priv; private double _privd;
+    Scalars() { }
+    Scalars( Random r ) {
+      _reproducible = r.nextBoolean(); _mode = (byte)r.nextInt(); _depth = (short)r.nextInt(); _nclass = r.nextInt();
+      _ncols = r.nextInt(); _seedIdx = r.nextInt(); _seed = r.nextLong(); _nobs = r.nextLong(); _start = r.nextLong();
+      _rate = r.nextFloat(); _sum = r.nextDouble(); _ssq = r.nextDouble(); _min = r.nextDouble();
+      _max = r.nextDouble(); _mean = r.nextDouble(); _priv = r.nextInt(); _privd = r.nextDouble();
+    }
+  }
+
+  // Like the reduced state of a histogramming MRTask
+  public static class Histos extends Iced<Histos> {
+    int _nbins; double _min, _maxEx;
+    double[] _sums, _ssqs; long[] _counts; boolean[] _seen;
+    Histos() { }
+    Histos( Random r, int nbins ) {
+      _nbins = nbins; _min = r.nextDouble(); _maxEx = _min + 1;
+      _sums = new double[nbins]; _ssqs = new double[nbins]; _counts = new long[nbins]; _seen = new boolean[nbins];
+      for( int i = 0; i < nbins; i++ ) {
+        _sums[i] = r.nextDouble(); _ssqs[i] = r.nextDouble(); _counts[i] = r.nextInt(1000); _seen[i] = r.nextBoolean();
+      }
+    }
+  }
+
+  @Param({"20", "1000"})
+  private int nbins;
+
+  private Scalars[] scalars;
+  private Histos histos;
+  private byte[] scalarBytes, histoBytes;
+
+  @Setup
+  public void setup() {
+    stall_till_cloudsize(1);
+    Random r = new Random(42);
+    scalars = new Scalars[100];
+    for( int i = 0; i < scalars.length; i++ ) scalars[i] = new Scalars(r);
+    histos = new Histos(r, nbins);
+    scalarBytes = writeScalars();
+    histoBytes = writeHistos();
+  }
+
+  private byte[] writeScalars() {
+    AutoBuffer ab = new AutoBuffer();
+    for( Scalars s : scalars ) ab.put(s);
+    return ab.buf();
+  }
+  private byte[] writeHistos() { return new AutoBuffer().put(histos).buf(); }
+  private int readScalars() {
+    AutoBuffer ab = new AutoBuffer(scalarBytes);
+    int x = 0;
+    for( int i = 0; i < scalars.length; i++ ) x += ab.<Scalars>get()._nclass;
+    return x;
+  }
+  private int readHistos() { return new AutoBuffer(histoBytes).<Histos>get()._nbins; }
+
+  @Benchmark public byte[] writeScalarsPacked() { return writeScalars(); }
+  @Benchmark public int readScalarsPacked() { return readScalars(); }
+  @Benchmark public byte[] writeHistosPacked() { return writeHistos(); }
+  @Benchmark public int readHistosPacked() { return readHistos(); }
+
+  @Benchmark @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsys.ai.h2o.weaver.packed.disable=true"})
+  public byte[] writeScalarsUnpacked() { return writeScalars(); }
+  @Benchmark @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsys.ai.h2o.weaver.packed.disable=true"})
+  public int readScalarsUnpacked() { return readScalars(); }
+  @Benchmark @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsys.ai.h2o.weaver.packed.disable=true"})
+  public byte[] writeHistosUnpacked() { return writeHistos(); }
+  @Benchmark @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dsys.ai.h2o.weaver.packed.disable=true"})
+  public int readHistosUnpacked() { return readHistos(); }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(IcerBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
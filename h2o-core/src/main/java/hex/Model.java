@@ -233,6 +233,12 @@ public abstract class Model<M extends Model<M,P,O>, P extends Model.Parameters,
      */
     public double _max_runtime_secs = 0;
 
+    /**
+     * Relative share of the cores for the training Job under fair sharing;
+     * 0 for the Job default.  Only affects scheduling, so not checksummed.
+     */
+    public transient float _share_weight = 0;
+
     /**
      * Early stopping based on convergence of stopping_metric.
      * Stop if simple moving average of the stopping_metric does not improve by stopping_tolerance for
@@ -230,6 +230,8 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     if (error_count() > 0)
       throw H2OModelBuilderIllegalArgumentException.makeFromBuilder(this);
     _start_time = System.currentTimeMillis();
+    _job.setMemoryEstimate(estimateMemoryFootPrint());
+    if( _parms._share_weight > 0 ) _job.setShareWeight(_parms._share_weight);
     if( !nFoldCV() )
       return _job.start(trainModelImpl(), _parms.progressUnits(), _parms._max_runtime_secs);
 
@@ -798,6 +800,16 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
    */
   protected void checkMemoryFootPrint_impl() {}
 
+  /**
+   * Projected memory use of the training run, used by Job admission control
+   * (see MemoryManager.JOB_MEM_BUDGET).  The default assumes the run holds about
+   * one extra copy of the training frame (adapted frames, weights, working columns);
+   * algorithms with large models or per-row state can override it.
+   */
+  protected long estimateMemoryFootPrint() {
+    return _train == null ? 0 : _train.byteSize();
+  }
+
   transient double [] _distribution;
   transient protected double [] _priorClassDist;
 
@@ -1122,6 +1134,8 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
         }
       }
     }
+    if (_parms._share_weight < 0)
+      error("_share_weight", "Share weight must be greater than 0 (or 0 for the default).");
     if (_parms._max_runtime_secs < 0) {
       error("_max_runtime_secs", "Max runtime (in seconds) must be greater than 0 (or 0 for unlimited).");
     }
@@ -1190,6 +1204,8 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
   protected Frame rebalance(final Frame original_fr, boolean local, final String name) {
     if (original_fr == null) return null;
     int chunks = desiredChunks(original_fr, local);
+    if (RebalancePlanner.ENABLED && !local && chunks > 1)
+      return rebalance(original_fr, RebalancePlanner.plan(original_fr), name);
     if (original_fr.anyVec().nChunks() >= chunks) {
       if (chunks>1)
         Log.info(name.substring(name.length()-5)+ " dataset already contains " + original_fr.anyVec().nChunks() +
@@ -1205,6 +1221,20 @@ abstract public class ModelBuilder<M extends Model<M,P,O>, P extends Model.Param
     return rebalanced_fr;
   }
 
+  // Rebalance as planned from the frame's actual layout, and record why
+  private Frame rebalance(final Frame original_fr, RebalancePlanner.Plan plan, final String name) {
+    String msg = "Rebalance " + name.substring(name.length()-5) + " dataset: " + plan;
+    Log.info(msg);
+    _job.update(0, msg);
+    if (plan._espc == null) return original_fr;
+    Key newKey = Key.makeUserHidden(name + ".chunks" + plan.nChunks());
+    RebalanceDataSet rb = new RebalanceDataSet(original_fr, newKey, plan._espc);
+    H2O.submitTask(rb).join();
+    Frame rebalanced_fr = DKV.get(newKey).get();
+    Scope.track(rebalanced_fr);
+    return rebalanced_fr;
+  }
+
   /**
    * Find desired number of chunks. If fewer, dataset will be rebalanced.
    * @return Lower bound on number of chunks after rebalancing.
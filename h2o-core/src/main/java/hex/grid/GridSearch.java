@@ -129,6 +129,10 @@ public final class GridSearch<MP extends Model.Parameters> extends Keyed<GridSea
     }
     it.reset();
 
+    // Models are built one after another within the grid Job; admit it for one
+    Frame train = _hyperSpaceWalker.getParams().train();
+    _job.setMemoryEstimate(train == null ? 0 : train.byteSize());
+
     // Install this as job functions
     return _job.start(new H2O.H2OCountedCompleter() {
       @Override public void compute2() {
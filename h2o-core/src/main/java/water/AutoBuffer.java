@@ -10,6 +10,7 @@ import java.util.Random;
 
 import water.network.SocketChannelUtils;
 import water.util.Log;
+import water.util.PrettyPrint;
 import water.util.StringUtils;
 import water.util.TwoDimTable;
 
@@ -177,6 +178,7 @@ public final class AutoBuffer {
    *  that e.g. NACK and ACKACK messages have priority over most anything else.
    *  This helps in UDP floods to shut down flooding senders. */
   private byte _msg_priority; 
+  private int _lane;            // Big-message socket pool, see H2ONode.lane
   AutoBuffer( H2ONode h2o, byte priority ) {
     // If UDP goes via UDP, we write into a DBB up front - because we plan on
     // sending it out via a Datagram socket send call.  If UDP goes via batched
@@ -184,7 +186,7 @@ public final class AutoBuffer {
     // into a large outgoing buffer.
     _bb = H2O.ARGS.useUDP // Actually use UDP?
       ? BBP_SML.make()    // Make DirectByteBuffers to start with
-      : ByteBuffer.wrap(new byte[16]).order(ByteOrder.nativeOrder());
+      : BufferPool.wrap(BufferPool.MIN_SIZE); // Returned by the send thread
     _chan = null;               // Channel made lazily only if we write alot
     _h2o = h2o;
     _read = false;              // Writing by default
@@ -193,8 +195,14 @@ public final class AutoBuffer {
     _time_start_ms = System.currentTimeMillis();
     _persist = Value.TCP;
     _msg_priority = priority;
+    _lane = H2ONode.lane(priority);
   }
 
+  /** Send a big message over the socket lane of a task of the given
+   *  priority, rather than that of the message priority; e.g. for an ACK
+   *  carrying a large task result. */
+  AutoBuffer tcpLane( byte task_priority ) { _lane = H2ONode.lane(task_priority); return this; }
+
   /** Spill-to/from-disk request. */
   public AutoBuffer( FileChannel fc, boolean read, byte persist ) {
     _bb = BBP_BIG.make();       // Get a big / TPC-sized ByteBuffer
@@ -354,11 +362,12 @@ public final class AutoBuffer {
           int sz = _bbs.size();
           if( sz > 0 ) { bb = _bbs.remove(sz-1); _cached++; _numer++; }
         }
-        if( bb != null ) return stats(bb);
+        if( bb != null ) { BufferPool.leased(bb); return stats(bb); }
         // Cache empty; go get one from C/Native memory
         try {
           bb = ByteBuffer.allocateDirect(_size).order(ByteOrder.nativeOrder());
           synchronized(this) { _made++; _denom++; _goal = Math.max(_goal,_made-_freed); _lastGoal=System.nanoTime(); } // Goal was too low, raise it
+          BufferPool.leased(bb);
           return stats(bb);
         } catch( OutOfMemoryError oome ) {
           // java.lang.OutOfMemoryError: Direct buffer memory
@@ -372,6 +381,7 @@ public final class AutoBuffer {
       // Heuristic: keep the ratio of BB's made to cache-hits at a fixed level.
       // Free to GC if ratio is high, free to internal cache if low.
       long ratio = _numer/(_denom+1);
+      BufferPool.released(bb);
       synchronized(_bbs) { 
         if( ratio < 100 || _bbs.size() < _goal ) { // low hit/miss ratio or below goal
           bb.clear();           // Clear-before-add
@@ -392,6 +402,9 @@ public final class AutoBuffer {
         }
       }
     }
+    @Override public String toString() {
+      return PrettyPrint.bytes(_size)+" made="+_made+", cache hits="+_cached+", freed="+_freed+", cached="+_bbs.size();
+    }
     static int FREE( ByteBuffer bb ) {
       if(bb.isDirect())
         (bb.capacity()==BBP_BIG._size ? BBP_BIG : BBP_SML).free(bb);
@@ -470,7 +483,7 @@ public final class AutoBuffer {
           _chan = null;         // No channel now, since i/o error
           throw ioe;            // Rethrow after close
         } finally {
-          if( !_read ) _h2o.freeTCPSocket((ByteChannel) _chan); // Recycle writable TCP channel
+          if( !_read ) _h2o.freeTCPSocket((ByteChannel) _chan, _lane); // Recycle writable TCP channel
           restorePriority();        // And if we raised priority, lower it back
         }
 
@@ -497,7 +510,7 @@ public final class AutoBuffer {
     assert _firstPage && _bb.limit() >= 1+2+4; // At least something written
     assert _chan == null;
 //    assert _bb.position()==0;
-    _chan = _h2o.getTCPSocket();
+    _chan = _h2o.getTCPSocket(_lane);
     raisePriority();
   }
 
@@ -514,7 +527,7 @@ public final class AutoBuffer {
     if( chan != null ) {                  // Channel assumed sick from prior IOException
       try { chan.close(); } catch( IOException ignore ) {} // Silently close
       _chan = null;                       // No channel now!
-      if( !_read && SocketChannelUtils.isSocketChannel(chan)) _h2o.freeTCPSocket((ByteChannel) chan); // Recycle writable TCP channel
+      if( !_read && SocketChannelUtils.isSocketChannel(chan)) _h2o.freeTCPSocket((ByteChannel) chan, _lane); // Recycle writable TCP channel
     }
     restorePriority();          // And if we raised priority, lower it back
     bbFree();
@@ -578,6 +591,7 @@ public final class AutoBuffer {
     _bb.flip();                 // Flip for sending
     if( _h2o==H2O.SELF ) {      // SELF-send is the multi-cast signal
       water.init.NetworkInit.multicast(_bb, _msg_priority);
+      if( !H2O.ARGS.useUDP ) BufferPool.give(_bb); // Nodes were sent copies
     } else {                    // Else single-cast send
       if(H2O.ARGS.useUDP)       // Send via UDP directly
         water.init.NetworkInit.CLOUD_DGRAM.send(_bb, _h2o._key);
@@ -592,6 +606,7 @@ public final class AutoBuffer {
     assert _read;
     _read = false;
     _msg_priority = priority;
+    _lane = H2ONode.lane(priority);
     _bb.clear();
     _firstPage = true;
     return this;
@@ -609,6 +624,15 @@ public final class AutoBuffer {
   /** Ensure the buffer has space for sz more bytes */
   private ByteBuffer getSp( int sz ) { return sz > _bb.remaining() ? getImpl(sz) : _bb; }
 
+  /** For generated serializers: the underlying buffer, holding at least sz
+   *  (at most 256) more bytes, to read a run of primitive fields with
+   *  relative gets.  See {@link Weaver}. */
+  public ByteBuffer getPacked( int sz ) { return getSp(sz); }
+  /** For generated serializers: the underlying buffer, with room for at
+   *  least sz (at most 256) more bytes, to write a run of primitive fields
+   *  with relative puts.  See {@link Weaver}. */
+  public ByteBuffer putPacked( int sz ) { return putSp(sz); }
+
   /** Ensure buffer has at least sz bytes in it.
    * - Also, set position just past this limit for future reading. */
   private ByteBuffer getSz(int sz) {
@@ -728,13 +752,23 @@ public final class AutoBuffer {
       // Be careful not to overflow because of integer math!
       int newLen = (int) Math.min(1L << (water.util.MathUtils.log2(needed)+1), MAX_ARRAY_SIZE);
       int oldpos = _bb.position();
-      _bb = ByteBuffer.wrap(MemoryManager.arrayCopyOfRange(ary,0,newLen),oldpos,newLen-oldpos)
+      if( _h2o != null ) {      // Message to a node: grow within the pool
+        ByteBuffer bb = BufferPool.wrap(newLen);
+        System.arraycopy(ary,0,bb.array(),0,oldpos);
+        bb.position(oldpos);
+        BufferPool.give(_bb);
+        _bb = bb;
+      } else
+        _bb = ByteBuffer.wrap(MemoryManager.arrayCopyOfRange(ary,0,newLen),oldpos,newLen-oldpos)
           .order(ByteOrder.nativeOrder());
     } else if (_bb.capacity() != BBP_BIG._size) { //avoid expanding existing BBP items
       int oldPos = _bb.position();
+      ByteBuffer old = _bb;
       _bb.flip();
       _bb = BBP_BIG.make().put(_bb);
       _bb.position(oldPos);
+      if( old.isDirect() ) BBPool.FREE(old); // A small UDP buffer
+      else if( _h2o != null ) BufferPool.give(old);
     }
     return _bb;
   }
@@ -1058,7 +1092,10 @@ public final class AutoBuffer {
     int len = getInt();
     if (len == -1) return null;
     boolean[] r = new boolean[len];
-    for (int i=0;i<len;++i) r[i] = getZ();
+    for( int i=0; i<len; ) {    // Runs of whatever is buffered
+      ByteBuffer bb = getSp(1);
+      for( int e=Math.min(len,i+bb.remaining()); i<e; i++ ) r[i] = bb.get()!=0;
+    }
     return r;
   }
 
@@ -1134,9 +1171,9 @@ public final class AutoBuffer {
     int z = y==0 ? 0 : getInt();// Trailing zeros
     long[] buf = MemoryManager.malloc8(x+y+z);
     switch( get1U() ) {      // 1,2,4 or 8 for how the middle section is passed
-    case 1: for( int i=x; i<x+y; i++ ) buf[i] =       get1U(); return buf;
-    case 2: for( int i=x; i<x+y; i++ ) buf[i] = (short)get2(); return buf;
-    case 4: for( int i=x; i<x+y; i++ ) buf[i] =        get4(); return buf;
+    case 1: for( int i=x; i<x+y; ) { ByteBuffer bb = getSp(1); for( int e=Math.min(x+y,i+bb.remaining()  ); i<e; i++ ) buf[i] = bb.get()&0xFF; } return buf;
+    case 2: for( int i=x; i<x+y; ) { ByteBuffer bb = getSp(2); for( int e=Math.min(x+y,i+bb.remaining()/2); i<e; i++ ) buf[i] = bb.getShort(); } return buf;
+    case 4: for( int i=x; i<x+y; ) { ByteBuffer bb = getSp(4); for( int e=Math.min(x+y,i+bb.remaining()/4); i<e; i++ ) buf[i] = bb.getInt();   } return buf;
     case 8: break;
     default: throw H2O.fail();
     }
@@ -1282,7 +1319,11 @@ public final class AutoBuffer {
   public AutoBuffer putAZ( boolean[] ary ) {
     if( ary == null ) return putInt(-1);
     putInt(ary.length);
-    for (boolean anAry : ary) putZ(anAry);
+    if( ary.length > _bb.remaining() ) expandByteBuffer(ary.length);
+    for( int i=0; i<ary.length; ) { // Runs of whatever fits before a partial send
+      ByteBuffer bb = putSp(1);
+      for( int e=Math.min(ary.length,i+bb.remaining()); i<e; i++ ) bb.put((byte)(ary[i] ? 1 : 0));
+    }
     return this;
   }
 
@@ -1293,6 +1334,58 @@ public final class AutoBuffer {
     return putA1(ary,ary.length);
   }
   public AutoBuffer putA1( byte[] ary, int length ) { return putA1(ary,0,length); }
+
+  // Byte arrays at least this big, headed for another node, may be written
+  // straight to the TCP channel instead of being copied through _bb; 0 or
+  // less turns this off.
+  static final int ZERO_COPY_MIN = Integer.getInteger(SYSTEM_PROP_PREFIX + "tcp.zerocopy.min", BBP_BIG._size);
+
+  /** True if a byte array of this length can be written with {@link
+   *  #putA1Direct} or {@link #putA1Persisted}: this is a write to
+   *  another node, and big enough to go by TCP anyway. */
+  boolean zeroCopy( int len ) { return ZERO_COPY_MIN > 0 && len >= ZERO_COPY_MIN && len >= MTU && _h2o != null && !_read; }
+
+  /** Write the remaining bytes of src as a byte array, in the same format as
+   *  {@link #putA1(byte[])}, but straight to the TCP channel: the bytes
+   *  buffered so far are sent first.  Best from a direct or mapped buffer,
+   *  which the OS then sends without any copy on the Java heap.  Only for
+   *  writes where {@link #zeroCopy} holds. */
+  AutoBuffer putA1Direct( ByteBuffer src ) {
+    assert zeroCopy(src.remaining());
+    int len = src.remaining();
+    putInt(len);
+    sendPartial();              // Flush, opening the TCP channel if needed
+    long ns = System.nanoTime();
+    try {
+      while( src.hasRemaining() ) ((WritableByteChannel)_chan).write(src);
+    } catch( IOException e ) {
+      throw new AutoBufferException(e);
+    }
+    _time_io_ns += (System.nanoTime()-ns);
+    _size += len;
+    return this;
+  }
+
+  /** Write the bytes of a persisted Value as a byte array, in the same format
+   *  as {@link #putA1(byte[])}, straight from its backend to the TCP channel
+   *  (e.g. with {@link FileChannel#transferTo}) if the backend can; else from
+   *  a heap copy.  Only for writes where {@link #zeroCopy} holds. */
+  AutoBuffer putA1Persisted( Value v, int backend ) {
+    assert zeroCopy(v._max);
+    putInt(v._max);
+    sendPartial();              // Flush, opening the TCP channel if needed
+    long ns = System.nanoTime();
+    boolean done;
+    try {
+      done = H2O.getPM().transferTo(backend, v, (WritableByteChannel)_chan);
+    } catch( IOException e ) {
+      throw new AutoBufferException(e);
+    }
+    if( !done ) return putA1(v.memOrLoad(), v._max);
+    _time_io_ns += (System.nanoTime()-ns);
+    _size += v._max;
+    return this;
+  }
   public AutoBuffer putA1( byte[] ary, int sofar, int length ) {
     if (length - sofar > _bb.remaining()) expandByteBuffer(length-sofar);
     while( sofar < length ) {
@@ -1354,16 +1447,24 @@ public final class AutoBuffer {
     // Size trim the NZ section: pass as bytes or shorts if possible.
     long min=Long.MAX_VALUE, max=Long.MIN_VALUE;
     for( int i=x; i<y; i++ ) { if( ary[i]<min ) min=ary[i]; if( ary[i]>max ) max=ary[i]; }
+    // Narrow sections are written in runs of whatever fits before a partial
+    // send, rather than one bounds check per element.
     if( 0 <= min && max < 256 ) { // Ship as unsigned bytes
-      put1(1);  for( int i=x; i<y; i++ ) put1((int)ary[i]);
+      put1(1);
+      if( nzlen > _bb.remaining() ) expandByteBuffer(nzlen);
+      for( int i=x; i<y; ) { ByteBuffer bb = putSp(1); for( int e=Math.min(y,i+bb.remaining()  ); i<e; i++ ) bb.put((byte)ary[i]); }
       return this;
     }
     if( Short.MIN_VALUE <= min && max < Short.MAX_VALUE ) { // Ship as shorts
-      put1(2);  for( int i=x; i<y; i++ ) put2((short)ary[i]);
+      put1(2);
+      if( nzlen*2 > _bb.remaining() ) expandByteBuffer(nzlen*2);
+      for( int i=x; i<y; ) { ByteBuffer bb = putSp(2); for( int e=Math.min(y,i+bb.remaining()/2); i<e; i++ ) bb.putShort((short)ary[i]); }
       return this;
     }
     if( Integer.MIN_VALUE <= min && max < Integer.MAX_VALUE ) { // Ship as ints
-      put1(4);  for( int i=x; i<y; i++ ) put4((int)ary[i]);
+      put1(4);
+      if( nzlen*4 > _bb.remaining() ) expandByteBuffer(nzlen*4);
+      for( int i=x; i<y; ) { ByteBuffer bb = putSp(4); for( int e=Math.min(y,i+bb.remaining()/4); i<e; i++ ) bb.putInt((int)ary[i]); }
       return this;
     }
 
@@ -0,0 +1,183 @@
+package water;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Size-class pool of the small heap byte arrays behind messages sent to
+ *  other nodes.  Every RPC, ACK and ACKACK used to allocate a fresh array
+ *  (and grow it by doubling); at high RPC rates that is a steady stream of
+ *  young-gen garbage.
+ *  <p>
+ *  Size classes are the powers of 2 from {@link #MIN_SIZE} to {@link
+ *  #MAX_SIZE}, which covers every message sent in one piece; larger ones go
+ *  by TCP from the direct {@link AutoBuffer} pools.  Each class keeps at most
+ *  {@code -Dsys.ai.h2o.bufferpool.max} (256) free arrays; beyond that,
+ *  returned arrays are left to the GC.  An array is owned by the AutoBuffer
+ *  writing into it, then by the node's send thread, which returns it once
+ *  the message is copied into the outgoing batch.  Arrays which are not
+ *  returned (or not from the pool) are simply garbage, never a correctness
+ *  problem.
+ *  <p>
+ *  With {@code -Dsys.ai.h2o.bufferpool.debug}, every pooled array and every
+ *  direct AutoBuffer buffer is tracked from lease to release, and one that is
+ *  garbage collected without being released is reported, with the stack of
+ *  where it was leased.  Pool statistics are logged every minute at debug
+ *  level.
+ */
+public final class BufferPool {
+  static final boolean ENABLED = !Boolean.getBoolean(SYSTEM_PROP_PREFIX + "bufferpool.disable");
+  static final boolean DEBUG = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "bufferpool.debug");
+  static final int MIN_LOG = 4, MAX_LOG = 11;
+  static final int MIN_SIZE = 1<<MIN_LOG, MAX_SIZE = 1<<MAX_LOG;
+  private static final int PER_CLASS = Integer.getInteger(SYSTEM_PROP_PREFIX + "bufferpool.max", 256);
+
+  @SuppressWarnings("unchecked")
+  private static final ArrayBlockingQueue<byte[]>[] FREE = new ArrayBlockingQueue[MAX_LOG-MIN_LOG+1];
+  private static final AtomicLong[] TAKES = new AtomicLong[FREE.length], HITS = new AtomicLong[FREE.length];
+  private static final AtomicLong RETURNS = new AtomicLong(), DROPS = new AtomicLong(), LEAKS = new AtomicLong();
+  static {
+    for( int i=0; i<FREE.length; i++ ) {
+      FREE[i] = new ArrayBlockingQueue<>(Math.max(1,PER_CLASS));
+      TAKES[i] = new AtomicLong();
+      HITS[i] = new AtomicLong();
+    }
+  }
+
+  private BufferPool() {}
+
+  // Size class for an array of at least len bytes; -1 if too big to pool
+  private static int sizeClass( int len ) {
+    if( len > MAX_SIZE ) return -1;
+    int log = len <= MIN_SIZE ? MIN_LOG : 32-Integer.numberOfLeadingZeros(len-1);
+    return log-MIN_LOG;
+  }
+
+  /** A heap byte array of at least len bytes; exactly a size class if
+   *  len is small enough to pool */
+  static byte[] take( int len ) {
+    int c = sizeClass(len);
+    if( c == -1 || !ENABLED ) return MemoryManager.malloc1(len);
+    TAKES[c].incrementAndGet();
+    byte[] ary = FREE[c].poll();
+    if( ary != null ) HITS[c].incrementAndGet();
+    else ary = MemoryManager.malloc1(1<<(c+MIN_LOG));
+    leased(ary);
+    return ary;
+  }
+
+  /** A native-order heap ByteBuffer over a pooled array of at least len
+   *  bytes, with position 0 and limit at the array end */
+  static ByteBuffer wrap( int len ) { return ByteBuffer.wrap(take(len)).order(ByteOrder.nativeOrder()); }
+
+  /** A pooled copy of the remaining bytes of bb, flipped for reading */
+  public static ByteBuffer copy( ByteBuffer bb ) {
+    ByteBuffer c = wrap(bb.remaining());
+    c.put(bb.duplicate()).flip();
+    return c;
+  }
+
+  /** Return an array to the pool.  The caller must hold the only reference.
+   *  Arrays which are not a size class (e.g. not from the pool) are dropped. */
+  static void give( byte[] ary ) {
+    if( !ENABLED ) return;
+    int c = sizeClass(ary.length);
+    if( c == -1 || ary.length != 1<<(c+MIN_LOG) ) return;
+    released(ary);
+    if( FREE[c].offer(ary) ) RETURNS.incrementAndGet();
+    else DROPS.incrementAndGet(); // Class is full; let the GC have it
+  }
+  /** Return the array behind a heap ByteBuffer; see {@link #give(byte[])} */
+  static void give( ByteBuffer bb ) {
+    if( bb.hasArray() && !bb.isReadOnly() && bb.arrayOffset() == 0 ) give(bb.array());
+  }
+
+  // ---
+  // Leak detection, debug mode only.  A Lease weakly references a buffer
+  // from its lease to its release; if the buffer is collected first, the GC
+  // enqueues the Lease and it is reported.  Leases are found again by the
+  // identity hash of their buffer (ByteBuffer.hashCode depends on content).
+  private static final class Lease extends WeakReference<Object> {
+    final int _hash;
+    final Throwable _where;
+    Lease( Object buf, int hash ) {
+      super(buf,GONE);
+      _hash = hash;
+      _where = new Throwable("Leased by " + Thread.currentThread().getName() + " at " + System.currentTimeMillis());
+    }
+  }
+  private static final ReferenceQueue<Object> GONE = new ReferenceQueue<>();
+  private static final HashMap<Integer,ArrayList<Lease>> LEASES = new HashMap<>();
+
+  static void leased( Object buf ) {
+    if( !DEBUG ) return;
+    int h = System.identityHashCode(buf);
+    synchronized(LEASES) {
+      ArrayList<Lease> ls = LEASES.get(h);
+      if( ls == null ) LEASES.put(h, ls = new ArrayList<>(1));
+      ls.add(new Lease(buf,h));
+    }
+  }
+
+  static void released( Object buf ) {
+    if( !DEBUG ) return;
+    int h = System.identityHashCode(buf);
+    synchronized(LEASES) {
+      ArrayList<Lease> ls = LEASES.get(h);
+      if( ls != null )
+        for( int i=0; i<ls.size(); i++ )
+          if( ls.get(i).get() == buf ) {
+            ls.remove(i).clear(); // Cleared: never enqueued
+            if( ls.isEmpty() ) LEASES.remove(h);
+            return;
+          }
+    }
+  }
+
+  // Report buffers collected without being released
+  private static void reap() {
+    Lease l;
+    while( (l = (Lease)GONE.poll()) != null ) {
+      synchronized(LEASES) {
+        ArrayList<Lease> ls = LEASES.get(l._hash);
+        if( ls == null || !ls.remove(l) ) continue;
+        if( ls.isEmpty() ) LEASES.remove(l._hash);
+      }
+      LEAKS.incrementAndGet();
+      Log.warn("Buffer garbage collected without being released to its pool", l._where);
+    }
+  }
+
+  /** Buffers collected without being released; always 0 unless in debug mode */
+  static long leaks() { reap(); return LEAKS.get(); }
+
+  static String summary() {
+    StringBuilder sb = new StringBuilder("Heap buffer pool:");
+    for( int c=0; c<FREE.length; c++ ) {
+      long t = TAKES[c].get();
+      if( t == 0 ) continue;
+      sb.append(' ').append(PrettyPrint.bytes(1L<<(c+MIN_LOG))).append("=").append(t)
+        .append("/").append(100*HITS[c].get()/t).append("%hit/").append(FREE[c].size()).append("free");
+    }
+    sb.append(", returned=").append(RETURNS.get()).append(", dropped=").append(DROPS.get());
+    sb.append("; direct: ").append(AutoBuffer.BBP_SML).append(", ").append(AutoBuffer.BBP_BIG);
+    if( DEBUG ) sb.append("; leaks=").append(leaks());
+    return sb.toString();
+  }
+
+  // Called once a second by the HeartBeatThread
+  static void heartbeat( int beat ) {
+    if( DEBUG ) reap();
+    if( beat % 60 == 0 && Log.isLoggingFor("DEBUG") ) Log.debug(summary());
+  }
+}
@@ -0,0 +1,119 @@
+package water;
+
+import water.nbhm.NonBlockingHashMap;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Cooperative preemption of a cancelled Job's MRTask map work.
+ *  <p>
+ *  Stopping a Job only sets a flag, which the Job's driver polls between
+ *  passes; an MRTask pass already forked runs all of its map calls first,
+ *  which for a big Frame can be minutes of every core in the cloud.  With
+ *  {@code -Dsys.ai.h2o.job.cancel.preempt}, {@link Job#stop} tells every
+ *  node first, and map calls of the Job's MRTasks not yet started are then
+ *  dropped where they are queued: the MRTask completes with a {@link
+ *  Job.JobCancelledException}.  Map calls already running are left to
+ *  finish.  The Job's final message reports the map calls dropped, and the
+ *  map time this saved, estimated from the mean time of those that ran.
+ *  <p>
+ *  Notice is given in two rounds: first every node learns of the cancel,
+ *  and MRTasks started after that no longer belong to the Job (its driver
+ *  may need them to clean up); then every node starts dropping.  Jobs which
+ *  stop gracefully, keeping the model built so far, see their last pass
+ *  fail instead - hence opt-in.
+ */
+public final class CancelledJobs {
+  public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "job.cancel.preempt");
+  private static final long KEEP_MS = TimeUnit.MINUTES.toMillis(10); // Forget cancels after this long
+
+  private CancelledJobs() {}
+
+  private static final class Record {
+    final long _ms = System.currentTimeMillis();
+    volatile boolean _armed;    // Drop map calls now
+    final AtomicLong _dropped = new AtomicLong(), _nanos = new AtomicLong();
+  }
+  private static final NonBlockingHashMap<Key,Record> JOBS = new NonBlockingHashMap<>();
+
+  /** Has this node been told the Job is cancelled? */
+  static boolean noticed( Key<Job> job ) { return !JOBS.isEmpty() && JOBS.get(job) != null; }
+  /** Should map calls of this Job be dropped? */
+  static boolean armed( Key<Job> job ) {
+    if( JOBS.isEmpty() ) return false;
+    Record r = JOBS.get(job);
+    return r != null && r._armed;
+  }
+
+  /** Count map calls dropped, with their time estimated from mapStats:
+   *  map calls done and nanos taken, or null */
+  static void dropped( Key<Job> job, int n, AtomicLongArray mapStats ) {
+    Record r = JOBS.get(job);
+    if( r == null || n == 0 ) return;
+    r._dropped.addAndGet(n);
+    long done = mapStats == null ? 0 : mapStats.get(0);
+    if( done > 0 ) r._nanos.addAndGet(n * (mapStats.get(1) / done));
+  }
+
+  private static void register( Key<Job> job, boolean arm ) {
+    Record r = JOBS.get(job);
+    if( r == null ) {
+      Record old = JOBS.putIfAbsent(job, r = new Record());
+      if( old != null ) r = old;
+    }
+    if( arm ) r._armed = true;
+  }
+
+  /** Tell every node the Job is cancelled, and start dropping its map
+   *  calls.  Blocks until all nodes know. */
+  static void cancel( Key<Job> job ) {
+    register(job, false);       // This node may be a client
+    new Notice(job, false).doAllNodes();
+    register(job, true);
+    new Notice(job, true).doAllNodes();
+  }
+
+  private static class Notice extends MRTask<Notice> {
+    final Key<Job> _job;
+    final boolean _arm;
+    Notice( Key<Job> job, boolean arm ) { super(H2O.MIN_HI_PRIORITY); _job = job; _arm = arm; }
+    @Override public void setupLocal() {
+      if( !_arm ) prune();
+      register(_job, _arm);
+    }
+  }
+
+  private static void prune() {
+    long now = System.currentTimeMillis();
+    for( Iterator<Record> it = JOBS.values().iterator(); it.hasNext(); )
+      if( now - it.next()._ms > KEEP_MS ) it.remove();
+  }
+
+  /** Map calls dropped for the Job, and the map time reclaimed, over all
+   *  nodes; null if none were dropped */
+  static String report( Key<Job> job ) {
+    Tally t = new Tally(job).doAllNodes();
+    if( t._dropped == 0 ) return null;
+    String msg = "Cancelled; dropped " + t._dropped + " map calls" +
+      (t._nanos > 0 ? ", ~" + PrettyPrint.msecs(TimeUnit.NANOSECONDS.toMillis(t._nanos), true) + " of map time reclaimed." : ".");
+    Log.info(job + ": " + msg);
+    return msg;
+  }
+
+  private static class Tally extends MRTask<Tally> {
+    final Key<Job> _job;
+    long _dropped, _nanos;
+    Tally( Key<Job> job ) { super(H2O.MIN_HI_PRIORITY); _job = job; }
+    @Override public void setupLocal() {
+      Record r = JOBS.get(_job);
+      if( r != null ) { _dropped = r._dropped.get(); _nanos = r._nanos.get(); }
+    }
+    @Override public void reduce( Tally t ) { _dropped += t._dropped; _nanos += t._nanos; }
+  }
+}
@@ -4,9 +4,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
 import water.fvec.Chunk;
+import water.persist.SwapCodec;
 import water.util.Log;
 import water.util.PrettyPrint;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /** Store Cleaner: User-Mode Swap-To-Disk */
 
 class Cleaner extends Thread {
@@ -43,6 +46,15 @@ class Cleaner extends Thread {
   // Desired cache level. Set by the MemoryManager asynchronously.
   static volatile long DESIRED;
 
+  // Order in which Values are spilled and freed
+  private static final EvictionPolicy POLICY = EvictionPolicy.CURRENT;
+
+  // Lazy (not forced) sweeps walk one segment of this many K/V slots per
+  // pass, resuming where the prior pass stopped; forced sweeps walk the whole
+  // store.  The histogram is kept per segment too, see Histo.
+  static final int SWEEP_SLOTS = Math.max(1,Integer.getInteger(SYSTEM_PROP_PREFIX + "cleaner.sweep.slots", 1<<16));
+  private int _sweepSeg;        // Next K/V segment for a lazy sweep
+
   Cleaner() {
     super("MemCleaner");
     setDaemon(true);
@@ -112,15 +124,22 @@ class Cleaner extends Thread {
       else                           System.err.println(s);
       long cleaned = 0;         // Disk i/o bytes
       long freed = 0;           // memory freed bytes
+      long offheaped = 0;       // bytes moved to the off-heap tier
       long io_ns = 0;           // i/o ns writing
 
       // For faster K/V store walking get the NBHM raw backing array,
       // and walk it directly.
       Object[] kvs = H2O.STORE.raw_array();
+      final int nslots = (kvs.length-2)>>1;
+      final boolean full = force || DESIRED == -1 || nslots <= SWEEP_SLOTS;
+      final int seg = full ? 0 : _sweepSeg % Histo.nsegs(nslots);
+      final int start = seg*SWEEP_SLOTS;
+      final int nwalk = full ? nslots : Math.min(SWEEP_SLOTS,nslots-start);
 
-      // Start the walk at slot 2, because slots 0,1 hold meta-data
-      for( int i=2; i<kvs.length; i += 2 ) {
+      for( int j=0; j<nwalk; j++ ) {
+        // Start the walk at slot 2, because slots 0,1 hold meta-data.
         // In the raw backing array, Keys and Values alternate in slots
+        int i = 2+((start+j)<<1);
         Object ok = kvs[i], ov = kvs[i+1];
         if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
         if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
@@ -132,7 +151,7 @@ class Cleaner extends Thread {
         boolean isChunk = p instanceof Chunk && !((Chunk)p).isVolatile();
         // Ignore things younger than the required age.  In particular, do
         // not spill-to-disk all dirty things we find.
-        long touched = val._lastAccessedTime;
+        long touched = POLICY.evictionTime(val);
         if( touched > clean_to_age ) { // Too recently touched?
           // But can toss out a byte-array if already deserialized & on disk
           // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
@@ -140,7 +159,7 @@ class Cleaner extends Thread {
             val.freeMem();      // Toss serialized form, since can rebuild from POJO
             freed += val._max;
           }
-          dirty_store(touched); // But may write it out later
+          dirty_store(val._lastAccessedTime); // But may write it out later
           continue;             // Too young
         }
         // Spiller turned off?
@@ -152,7 +171,10 @@ class Cleaner extends Thread {
 
         // Should I write this value out to disk?
         // Should I further force it from memory?
-        if( isChunk && !val.isPersisted() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
+        // Prefer the off-heap tier, if configured and not full: no disk i/o.
+        if( isChunk && !val.isPersisted() && !val.isOffHeap() && ((Key)ok).home() && val.storeOffHeap() )
+          offheaped += val._max;
+        if( isChunk && !val.isPersisted() && !val.isOffHeap() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
           long now_ns = System.nanoTime();
           try { val.storePersist(); } // Write to disk
           catch( FileNotFoundException fnfe ) { continue; } // Can happen due to racing key delete/remove
@@ -169,7 +191,7 @@ class Cleaner extends Thread {
           io_ns += System.nanoTime() - now_ns; // Accumulate i/o time
         }
         // And, under pressure, free all
-        if( isChunk && force && (val.isPersisted() || !((Key)ok).home()) ) {
+        if( isChunk && force && (val.isPersisted() || val.isOffHeap() || !((Key)ok).home()) ) {
           val.freeMem ();  if( m != null ) freed += val._max;  m = null;
           val.freePOJO();  if( p != null ) freed += val._max;  p = null;
           if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
@@ -186,12 +208,21 @@ class Cleaner extends Thread {
         force = (h._cached >= DESIRED || !MemoryManager.CAN_ALLOC); // Forced to clean
       }
 
+      if( !full ) {             // Rest of the store is swept on later passes
+        _sweepSeg = seg+1;
+        dirty_store(now);
+      }
+
       String s1 = "Cleaner pass took: "+PrettyPrint.msecs(System.currentTimeMillis()-now,true)+
                   ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10);
-      h = Histo.current(true); // Force a new histogram
+      // Force a new histogram; after a lazy pass only the swept slots changed
+      h = full ? Histo.current(true) : Histo.sweep(kvs,seg);
       MemoryManager.set_goals("postclean",false);
       // No logging if under memory pressure: can deadlock the cleaner thread
-      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
+      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", offheap="+PrettyPrint.bytes(offheaped)+
+                  " (total "+PrettyPrint.bytes(MemoryManager.offHeapUsed())+"), freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M"+
+                  (SwapCodec.ENABLED ? ", "+SwapCodec.summary() : "")+
+                  (ReadAhead.ENABLED ? ", "+ReadAhead.summary() : "");
       if( MemoryManager.canAlloc() ) Log.debug(s1,s2);
       else                           System.err.println(s1+"\n"+s2);
       // For testing thread
@@ -204,10 +235,19 @@ class Cleaner extends Thread {
   }
 
 
-  // Histogram class
+  // Histogram class.  On a store of more than SWEEP_SLOTS slots the
+  // histogram is the sum of one histogram per segment of SWEEP_SLOTS slots,
+  // so that a lazy Cleaner pass (or a stale read) only re-walks the segment
+  // it touched, not the whole store.  Forced, all segments are re-walked.
   static class Histo {
     // Current best histogram
     static private volatile Histo H;
+    // Per-segment histograms, and the K/V array they were computed over
+    static private Histo[] SEGS;
+    static private Object[] SEGS_KVS;
+    static private int _nextSeg; // Next segment to refresh when stale
+
+    static int nsegs( int nslots ) { return (nslots+SWEEP_SLOTS-1)/SWEEP_SLOTS; }
 
     // Return the current best histogram, recomputing in-place if it is getting
     // stale.  Synchronized so the same histogram can be called into here and
@@ -219,7 +259,41 @@ class Cleaner extends Thread {
       if( h != null && h._clean && _dirty==Long.MAX_VALUE )
         return h; // No change to the K/V store, so no point
       // Use last oldest value for computing the next histogram in-place
-      return (H = new Histo(h==null ? 0 : h._oldest)); // Record current best histogram & return it
+      long eldest = h==null ? 0 : h._oldest;
+      Object[] kvs = H2O.STORE.raw_array();
+      int nslots = (kvs.length-2)>>1;
+      if( nslots <= SWEEP_SLOTS ) {
+        SEGS = null;
+        return (H = new Histo(eldest,kvs,0,nslots)); // Record current best histogram & return it
+      }
+      if( force || kvs != SEGS_KVS )
+        return rebuild(eldest,kvs);
+      return refresh(eldest,_nextSeg++ % SEGS.length);
+    }
+
+    // Refresh the histogram after a lazy Cleaner pass over segment seg of kvs
+    synchronized static Histo sweep( Object[] kvs, int seg ) {
+      final Histo h = H;
+      long eldest = h==null ? 0 : h._oldest;
+      if( kvs != SEGS_KVS ) // Store resized, or was small: walk it all
+        return rebuild(eldest,H2O.STORE.raw_array());
+      return refresh(eldest,seg);
+    }
+
+    private static Histo rebuild( long eldest, Object[] kvs ) {
+      int nslots = (kvs.length-2)>>1;
+      Histo[] segs = new Histo[nsegs(nslots)];
+      for( int s=0; s<segs.length; s++ )
+        segs[s] = new Histo(eldest,kvs,s*SWEEP_SLOTS,Math.min(nslots,(s+1)*SWEEP_SLOTS));
+      SEGS = segs;
+      SEGS_KVS = kvs;
+      return (H = new Histo(eldest,segs,true));
+    }
+
+    private static Histo refresh( long eldest, int seg ) {
+      int nslots = (SEGS_KVS.length-2)>>1;
+      Histo s = SEGS[seg] = new Histo(eldest,SEGS_KVS,seg*SWEEP_SLOTS,Math.min(nslots,(seg+1)*SWEEP_SLOTS));
+      return (H = new Histo(eldest,SEGS,s._clean));
     }
 
     // Latest best-effort cached amount, without forcing a histogram to be
@@ -238,22 +312,21 @@ class Cleaner extends Thread {
     Value _vold;  // For assertions: record the oldest Value
     boolean _clean; // Was "clean" K/V when built?
 
-    // Compute a histogram
-    Histo( long eldest ) {
+    // Compute a histogram over K/V slots [from,to) of kvs
+    Histo( long eldest, Object[] kvs, int from, int to ) {
       Arrays.fill(_hs, 0);
       _when = System.currentTimeMillis();
       _eldest = eldest; // Eldest seen in some prior pass
       _hStep = Math.max(1,(_when-eldest)/_hs.length);
       boolean clean = _dirty==Long.MAX_VALUE;
       // Compute the hard way
-      Object[] kvs = H2O.STORE.raw_array();
       long cached = 0; // Total K/V cached in ram
       long total = 0;  // Total K/V in local node
       long swapped=0;  // Total K/V persisted
       long oldest = Long.MAX_VALUE; // K/V with the longest time since being touched
       Value vold = null;
       // Start the walk at slot 2, because slots 0,1 hold meta-data
-      for( int i=2; i<kvs.length; i += 2 ) {
+      for( int i=2+(from<<1); i<2+(to<<1); i += 2 ) {
         // In the raw backing array, Keys and Values alternate in slots
         Object ok = kvs[i], ov = kvs[i+1];
         if( !(ok instanceof Key  ) ) continue; // Ignore tombstones and Primes and null's
@@ -271,15 +344,12 @@ class Cleaner extends Thread {
         if( len == 0 ) continue;
         cached += len; // Accumulate total amount of cached keys
 
-        if( val._lastAccessedTime < oldest ) { // Found an older Value?
+        long touched = POLICY.evictionTime(val);
+        if( touched < oldest ) { // Found an older Value?
           vold = val; // Record oldest Value seen
-          oldest = val._lastAccessedTime;
+          oldest = touched;
         }
-        // Compute histogram bucket
-        int idx = (int)((val._lastAccessedTime - eldest)/_hStep);
-        if( idx < 0 ) idx = 0;
-        else if( idx >= _hs.length ) idx = _hs.length-1;
-        _hs[idx] += len;      // Bump histogram bucket
+        _hs[bucket(touched)] += len; // Bump histogram bucket
       }
       _cached = cached; // Total cached; NOTE: larger than sum of histogram buckets
       _total = total;   // Total used data
@@ -289,6 +359,30 @@ class Cleaner extends Thread {
       _clean = clean && _dirty==Long.MAX_VALUE; // Looks like a clean K/V the whole time?
     }
 
+    // Sum of segment histograms, each re-bucketed by its buckets' midpoints
+    Histo( long eldest, Histo[] segs, boolean clean ) {
+      _when = System.currentTimeMillis();
+      _eldest = eldest;
+      _hStep = Math.max(1,(_when-eldest)/_hs.length);
+      _oldest = Long.MAX_VALUE;
+      for( Histo s : segs ) {
+        for( int b=0; b<s._hs.length; b++ )
+          if( s._hs[b] != 0 )
+            _hs[bucket(s._eldest+b*s._hStep+(s._hStep>>1))] += s._hs[b];
+        _cached += s._cached;
+        _total  += s._total;
+        _swapped+= s._swapped;
+        if( s._oldest < _oldest ) { _oldest = s._oldest; _vold = s._vold; }
+      }
+      _clean = clean && _dirty==Long.MAX_VALUE;
+    }
+
+    // Compute histogram bucket
+    private int bucket( long touched ) {
+      long idx = (touched - _eldest)/_hStep;
+      return idx < 0 ? 0 : (idx >= _hs.length ? _hs.length-1 : (int)idx);
+    }
+
     // Compute the time (in msec) for which we need to throw out things
     // to throw out enough things to hit the desired cached memory level.
     long clean_to( long desired ) {
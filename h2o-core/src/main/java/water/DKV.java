@@ -1,5 +1,8 @@
 package water;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+
 /** A Distributed Key/Value Store.
  *  <p>
  *  Functions to Get and Put Values into the K/V store by Key.
@@ -87,6 +90,40 @@ public abstract class DKV {
     }
   }
 
+  /** Make the mappings <em>keys[i] -&gt; vals[i]</em>, where a null Value
+   *  removes the mapping.  Remote Puts are grouped by home node and sent as
+   *  a single message per node, rather than a round-trip per Key; useful when
+   *  making or removing many small Keys at once.  The Futures completes as
+   *  each home node finishes its part of the batch.  */
+  static public void put( Key[] keys, Value[] vals, Futures fs, boolean dontCache ) {
+    assert keys.length == vals.length;
+    TaskPutKeys.Batch batch = new TaskPutKeys.Batch(dontCache);
+    for( int i=0; i<keys.length; i++ ) {
+      Key key = keys[i];
+      Value val = vals[i];
+      assert val==null || val._key == key:"non-matching keys " + key + " != " + val._key;
+      // A 2nd Put to the same Key waits for the 1st to complete: send the 1st
+      if( batch.contains(key) ) batch.send(fs);
+      while( true ) {
+        Value old = Value.STORE_get(key); // Raw-get: do not lazy-manifest if overwriting
+        Value res = DputIfMatch(key,val,old,fs,dontCache,batch);
+        if( res == old ) break;
+        if( val != null && val._key != key ) key = val._key;
+      }
+    }
+    batch.send(fs);
+  }
+  /** Batched Put of many Keyed objects, caching.  */
+  static public void put( Keyed[] keyeds, Futures fs ) {
+    Key[] keys = new Key[keyeds.length];
+    Value[] vals = new Value[keyeds.length];
+    for( int i=0; i<keyeds.length; i++ )
+      vals[i] = new Value(keys[i] = keyeds[i]._key, keyeds[i]);
+    put(keys,vals,fs,false);
+  }
+  /** Batched remove of many Keys; see {@link #put(Key[],Value[],Futures,boolean)}.  */
+  static public void remove( Key[] keys, Futures fs ) { put(keys,new Value[keys.length],fs,false); }
+
   /** Remove any mapping for <em>key</em>.  Blocking.  */
   static public Value remove( Key key ) { return put(key,null); }
   /** Remove any mapping for <em>key</em>.  */
@@ -110,6 +147,10 @@ public abstract class DKV {
    *  Value.equals(old) then the update succeeded, else it failed.
    */
   static public Value DputIfMatch( Key key, Value val, Value old, Futures fs, boolean dontCache ) {
+    return DputIfMatch(key,val,old,fs,dontCache,null);
+  }
+  // As above; remote Puts are added to the batch (if any) instead of being sent
+  static private Value DputIfMatch( Key key, Value val, Value old, Futures fs, boolean dontCache, TaskPutKeys.Batch batch ) {
     // For debugging where keys are created from
 //    try { System.err.flush(); System.err.println(key); Thread.dumpStack(); System.err.flush(); } catch (Throwable t) {}
 
@@ -123,6 +164,7 @@ public abstract class DKV {
     Value res = H2O.putIfMatch(key,val,old);
     if( res != old )            // Failed?
       return res;               // Return fail value
+    if( !key.home() ) ReplicaCache.replaced(key,old);
 
     // Check for trivial success: no need to invalidate remotes if the new
     // value equals the old.
@@ -148,7 +190,8 @@ public abstract class DKV {
       else val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
     } else {                    // On non-HOME?
       // Start a write, but do not block for it
-      TaskPutKey.put(key.home_node(),key,val,fs, dontCache);
+      if( batch != null ) batch.add(key.home_node(),key,val);
+      else TaskPutKey.put(key.home_node(),key,val,fs, dontCache);
     }
     return old;
   }
@@ -186,14 +229,56 @@ public abstract class DKV {
    *  Non-blocking. */
   static public void prefetch( String key_name ) {        get(Key.make(key_name),false); }
 
+  /** Return the {@link Value}s mapped to many Keys, with nulls for missing
+   *  mappings.  Keys not cached locally are fetched with one message per home
+   *  node, rather than a round-trip per Key.  Blocks till all are available,
+   *  always caches.  */
+  static public Value[] get( Key[] keys ) {
+    Value[] vals = new Value[keys.length];
+    HashMap<H2ONode,ArrayList<Integer>> remote = new HashMap<>();
+    H2O cloud = H2O.CLOUD;
+    for( int i=0; i<keys.length; i++ ) {
+      Key key = keys[i];
+      Value val = Value.STORE_get(key);
+      if( val != null && (val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() || val.isOffHeap()) ) {
+        vals[i] = val;          // Hit in local cache
+        if( !key.home() ) ReplicaCache.hit(key);
+        continue;
+      }
+      H2ONode home = cloud._memary[key.home(cloud)];
+      if( home == H2O.SELF ) continue; // Home has nothing: no mapping
+      TaskPutKey tpk = home.pendingPutKey(key);
+      if( tpk != null ) { Value pv = tpk.pendingValue(key); vals[i] = pv == null || pv.isNull() ? null : pv; continue; }
+      ReplicaCache.miss(key);
+      ArrayList<Integer> idxs = remote.get(home);
+      if( idxs == null ) remote.put(home, idxs = new ArrayList<>());
+      idxs.add(i);
+    }
+    HashMap<RPC<TaskGetKeys>,ArrayList<Integer>> rpcs = new HashMap<>();
+    for( H2ONode home : remote.keySet() ) {
+      ArrayList<Integer> idxs = remote.get(home);
+      Key[] ks = new Key[idxs.size()];
+      for( int j=0; j<ks.length; j++ ) ks[j] = keys[idxs.get(j)];
+      rpcs.put(new RPC<>(home,new TaskGetKeys(ks)).call(), idxs);
+    }
+    for( RPC<TaskGetKeys> rpc : rpcs.keySet() ) {
+      Value[] got = rpc.get()._vals;
+      ArrayList<Integer> idxs = rpcs.get(rpc);
+      for( int j=0; j<got.length; j++ ) vals[idxs.get(j)] = got[j];
+    }
+    return vals;
+  }
+
   static private Value get( Key key, boolean blocking ) {
     // Read the Cloud once per put-attempt, to keep a consistent snapshot.
     H2O cloud = H2O.CLOUD;
     Value val = Value.STORE_get(key);
     // Hit in local cache?
     if( val != null ) {
-      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() )
+      if( val.rawMem() != null || val.rawPOJO() != null || val.isPersisted() || val.isOffHeap() ) {
+        if( !key.home() ) ReplicaCache.hit(key);
         return val;
+      }
       assert !key.home(); // Master must have *something*; we got nothing & need to fetch
     }
 
@@ -213,9 +298,10 @@ public abstract class DKV {
     // send to the remote, so the local get has missed above, but a remote
     // get still might 'win' because the remote 'remove' is still in-progress.
     TaskPutKey tpk = home.pendingPutKey(key);
-    if( tpk != null ) return tpk._xval == null || tpk._xval.isNull() ? null : tpk._xval;
+    if( tpk != null ) { Value pv = tpk.pendingValue(key); return pv == null || pv.isNull() ? null : pv; }
 
     // Get data "the hard way"
+    ReplicaCache.miss(key);
     RPC<TaskGetKey> tgk = TaskGetKey.start(home,key);
     return blocking ? TaskGetKey.get(tgk) : null;
   }
@@ -0,0 +1,59 @@
+package water;
+
+import water.util.Log;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Decides the order in which the {@link Cleaner} spills and frees Values.
+ *  <p>
+ *  A policy maps a Value to a timestamp-like eviction time; the Cleaner
+ *  builds its age histogram over these times and throws out Values with the
+ *  smallest times first.  Called for every cached Value on every sweep, so it
+ *  must be cheap and must not block.  Policies can use the access tracking
+ *  kept on every Value: {@link Value#lastAccessedTime} and {@link
+ *  Value#prevAccessedTime}.
+ *  <p>
+ *  Selected with {@code -Dsys.ai.h2o.cleaner.eviction}: {@code lru} (the
+ *  default), {@code lru2}, or the name of a class extending this one with a
+ *  public no-arg constructor.
+ */
+public abstract class EvictionPolicy {
+  /** The policy in use by the Cleaner */
+  public static final EvictionPolicy CURRENT = make(System.getProperty(SYSTEM_PROP_PREFIX + "cleaner.eviction", "lru"));
+
+  /** @return The eviction time of the Value; smaller is evicted sooner */
+  public abstract long evictionTime( Value val );
+
+  static EvictionPolicy make( String name ) {
+    switch( name ) {
+    case "lru":  return new LRU();
+    case "lru2": return new LRU2();
+    default:
+      try {
+        return (EvictionPolicy)Class.forName(name).newInstance();
+      } catch( ReflectiveOperationException | ClassCastException e ) {
+        Log.warn("Unknown eviction policy '" + name + "', using LRU: " + e);
+        return new LRU();
+      }
+    }
+  }
+
+  /** Evict the least recently touched Values first */
+  public static class LRU extends EvictionPolicy {
+    @Override public long evictionTime( Value val ) { return val.lastAccessedTime(); }
+  }
+
+  /** LRU-K with K=2: evict by the time of the second most recent access, so
+   *  data that is re-read every iteration (a training frame) outlives data
+   *  that was read once (a one-off scoring frame), even if the latter was
+   *  touched more recently.  Values seen only once have no second access;
+   *  they rank as if last touched {@link #ONCE_PENALTY_MS} earlier than they
+   *  were, which keeps LRU order amongst them. */
+  public static class LRU2 extends EvictionPolicy {
+    static final long ONCE_PENALTY_MS = Long.getLong(SYSTEM_PROP_PREFIX + "cleaner.eviction.lru2.penalty", 60*1000);
+    @Override public long evictionTime( Value val ) {
+      long prev = val.prevAccessedTime();
+      return prev != 0 ? prev : val.lastAccessedTime() - ONCE_PENALTY_MS;
+    }
+  }
+}
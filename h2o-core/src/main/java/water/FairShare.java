@@ -0,0 +1,176 @@
+package water;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Weighted fair sharing of the cores between concurrent Jobs, at the
+ *  granularity of one MRTask map call (one Chunk, or one Key).
+ *  <p>
+ *  Without it the F/J pools run map work first-come first-served, so one big
+ *  Job (a GBM grid) can keep every core busy for a long time while a small
+ *  interactive query waits behind all of its Chunks.  With {@code
+ *  -Dsys.ai.h2o.fairshare}, each node runs at most {@code fairshare.slots}
+ *  (default: the number of F/J threads) map calls at once; further ones are
+ *  parked, and as each running map call finishes the next is taken from the
+ *  flow with the least weighted service so far (start-time fair queuing).
+ *  A newly arriving flow starts level with the flow in service, so it is
+ *  served within one map call per slot, however much work is queued ahead.
+ *  <p>
+ *  A flow is all the MRTasks run for one Job: the Job's driver task runs
+ *  with the Job's {@link Flow}, and MRTasks it starts carry it to every node.
+ *  Jobs started from inside a Job's driver (e.g. a grid's models) share the
+ *  outer Job's flow.  Each MRTask started outside any Job (e.g. by a Rapids
+ *  expression) is a flow of its own, of weight {@code
+ *  fairshare.interactive.weight}.  Weights are relative; a Job's is set with
+ *  {@link Job#setShareWeight} (for models, the {@code share_weight}
+ *  builder parameter), default {@code fairshare.job.weight}.
+ *  <p>
+ *  A flow also carries the Job it works for, so that map calls not yet
+ *  started can be dropped when the Job is cancelled; see {@link
+ *  CancelledJobs}.
+ *  <p>
+ *  Parked map calls do not hold a thread.  Only MRTasks below {@link
+ *  H2O#MIN_HI_PRIORITY} are shared, and MRTasks started from inside a map
+ *  call run unshared: the outer map call holds a slot while it waits for
+ *  them.
+ */
+public final class FairShare {
+  public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "fairshare");
+  static final float JOB_WEIGHT = Float.parseFloat(System.getProperty(SYSTEM_PROP_PREFIX + "fairshare.job.weight", "1"));
+  static final float INTERACTIVE_WEIGHT = Float.parseFloat(System.getProperty(SYSTEM_PROP_PREFIX + "fairshare.interactive.weight", "1"));
+  private static final int SLOTS = Integer.getInteger(SYSTEM_PROP_PREFIX + "fairshare.slots", 0);
+
+  private FairShare() {}
+
+  /** A stream of map work sharing the cores with a given weight, and the
+   *  Job it is done for, if any.  An exempt flow is not shared; it still
+   *  belongs to its Job, e.g. for cancellation. */
+  public static final class Flow extends Iced<Flow> {
+    final long _id;
+    final float _weight;
+    final Key<Job> _job;
+    final boolean _exempt;
+    private transient Flow _exemptFlow;
+    Flow( float weight ) { this(ThreadLocalRandom.current().nextLong(), weight, null, false); }
+    private Flow( long id, float weight, Key<Job> job, boolean exempt ) {
+      if( !(weight > 0) ) throw new IllegalArgumentException("Fair-share weight must be positive, not " + weight);
+      _id = id;
+      _weight = weight;
+      _job = job;
+      _exempt = exempt;
+    }
+    /** The same flow, for another Job */
+    Flow forJob( Key<Job> job ) { return new Flow(_id, _weight, job, _exempt); }
+    /** The same flow, not shared */
+    Flow exempt() {
+      if( _exempt ) return this;
+      Flow f = _exemptFlow;
+      return f != null ? f : (_exemptFlow = new Flow(_id, _weight, _job, true));
+    }
+    @Override public String toString() { return "Flow#" + Long.toHexString(_id) + "(" + _weight + (_job == null ? "" : ", " + _job) + (_exempt ? ", exempt" : "") + ")"; }
+  }
+
+  // Map calls of no Job in progress: MRTasks they start are not shared
+  private static final Flow EXEMPT = new Flow(1).exempt();
+  // The flow of the work this thread is doing, if any
+  private static final ThreadLocal<Flow> CURRENT = new ThreadLocal<>();
+
+  /** Make this thread's flow f; returns the previous one, for {@link #exit} */
+  static Flow enter( Flow f ) { Flow old = CURRENT.get(); CURRENT.set(f); return old; }
+  static void exit( Flow old ) { CURRENT.set(old); }
+  /** Enter the exempt version of a map call's flow, for the duration of the call */
+  static Flow enterMap( Flow f ) { return enter(f == null ? EXEMPT : f.exempt()); }
+
+  /** The flow for a Job started by this thread: the flow of the Job this
+   *  thread works for, if any, else a new one */
+  static Flow jobFlow( float weight, Key<Job> job ) {
+    Flow f = CURRENT.get();
+    return f != null && !f._exempt ? f.forJob(job) : new Flow(weight).forJob(job);
+  }
+
+  /** The flow for an MRTask started by this thread, or null if neither
+   *  shared nor done for a Job.  MRTasks started after their Job was
+   *  cancelled no longer belong to it, so the Job can still clean up. */
+  static Flow taskFlow( byte priority ) {
+    if( priority >= H2O.MIN_HI_PRIORITY ) return null;
+    Flow f = CURRENT.get();
+    if( f == null ) return ENABLED ? new Flow(INTERACTIVE_WEIGHT) : null;
+    if( f._job != null && CancelledJobs.noticed(f._job) ) f = f.forJob(null);
+    if( f._job == null && (f._exempt || !ENABLED) ) return null;
+    return f;
+  }
+
+  // ---
+  // Start-time fair queuing.  A flow's tag is its virtual time: the start
+  // tag of its next map call.  Each admitted map call advances its flow's
+  // tag by 1/weight, and the global virtual time to its start tag.
+  private static final class Queue {
+    final float _weight;
+    double _tag;
+    final ArrayDeque<MRTask> _parked = new ArrayDeque<>();
+    Queue( float weight, double tag ) { _weight = weight; _tag = tag; }
+  }
+  private static final HashMap<Long,Queue> QUEUES = new HashMap<>();
+  private static double _vtime;
+  private static int _running, _nparked, _ndone;
+
+  // Admit a map call of the queue: charge it and advance virtual time
+  private static void charge( Queue q ) {
+    if( q._tag < _vtime ) q._tag = _vtime; // Idle flows get no credit
+    _vtime = q._tag;
+    q._tag += 1.0 / q._weight;
+    _running++;
+  }
+
+  /** Admit a map call of mrt now, or park it until a slot frees up; f must
+   *  not be exempt.
+   *  @return true if parked; it will be submitted again when admitted */
+  static boolean park( MRTask mrt, Flow f ) {
+    synchronized( QUEUES ) {
+      Queue q = QUEUES.get(f._id);
+      if( q == null ) QUEUES.put(f._id, q = new Queue(f._weight, _vtime));
+      mrt._fsAdmitted = true;   // Now, or when it comes back from the queue
+      if( _running < slots() ) { charge(q); return false; }
+      q._parked.add(mrt);
+      _nparked++;
+      return true;
+    }
+  }
+
+  /** A map call admitted by {@link #park} is done: admit the next */
+  static void done() {
+    MRTask next = next();
+    if( next != null ) H2O.submitTask(next);
+  }
+
+  // Free a slot, and give it to the parked map call with the least start tag
+  static MRTask next() {
+    synchronized( QUEUES ) {
+      _running--;
+      if( (++_ndone & 1023) == 0 ) prune();
+      if( _nparked == 0 ) return null;
+      Queue best = null;
+      for( Queue q : QUEUES.values() )
+        if( !q._parked.isEmpty() && (best == null || q._tag < best._tag) )
+          best = q;
+      _nparked--;
+      charge(best);
+      return best._parked.poll();
+    }
+  }
+
+  static int slots() { return SLOTS > 0 ? SLOTS : H2O.ARGS.nthreads; }
+
+  // Forget idle flows which are not ahead of virtual time: they would be
+  // brought level with it anyway
+  private static void prune() {
+    for( Iterator<Queue> it = QUEUES.values().iterator(); it.hasNext(); ) {
+      Queue q = it.next();
+      if( q._parked.isEmpty() && q._tag <= _vtime ) it.remove();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package water;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/** Several independent MRTasks over the same Frame, run as a single pass.
+ *  <p>
+ *  Algorithm drivers often run MRTasks back to back over one Frame (rollups,
+ *  then a sum of weights, then a histogram), each loading every Chunk again;
+ *  for a Frame that does not fit in cache, or was swapped out, that is a
+ *  trip to memory or disk per task.  Fused, each Chunk is loaded once and
+ *  handed to every task's map in turn:
+ *  <pre>{@code
+ *    SumTask sum = new SumTask();
+ *    HistoTask histo = new HistoTask(bins);
+ *    new FusedMRTask().add(sum, 0).add(histo).doAll(fr);
+ *    // sum and histo hold their results, as if each had run doAll
+ *  }</pre>
+ *  Each task sees the Frame, or the columns it was added with, as its
+ *  {@code _fr}; its {@code setupLocal}, {@code map}, {@code reduce}, {@code
+ *  closeLocal} and {@code postGlobal} are all called as by its own doAll,
+ *  and its reduces are kept separate from the other tasks'.  The tasks must
+ *  not depend on each other's results, nor make new output Vecs; they may
+ *  write their input Chunks.
+ */
+public class FusedMRTask extends MRTask<FusedMRTask> {
+  private MRTask[] _tasks = new MRTask[0]; // The tasks, as set up on this node
+  private int[][] _cols = new int[0][];   // Columns each task maps, null for all
+  private MRTask[] _outs;                 // Each task's reduced results
+  private transient MRTask[] _user;       // The caller's tasks, given the results
+
+  /** Add a task mapping the given columns of the Frame, or all of them.
+   *  @throws IllegalArgumentException if the task overrides a map taking NewChunks */
+  public FusedMRTask add( MRTask task, int... cols ) {
+    if( makesOutputs(task.getClass()) )
+      throw new IllegalArgumentException("Fused tasks cannot make output Vecs: " + task.getClass().getSimpleName());
+    _tasks = Arrays.copyOf(_tasks, _tasks.length + 1);
+    _tasks[_tasks.length - 1] = task;
+    _cols = Arrays.copyOf(_cols, _cols.length + 1);
+    _cols[_cols.length - 1] = cols.length == 0 ? null : cols;
+    _user = _tasks;
+    return this;
+  }
+
+  // Does the task override a map taking NewChunks?
+  private static boolean makesOutputs( Class<?> clz ) {
+    for( ; clz != MRTask.class; clz = clz.getSuperclass() )
+      for( Method m : clz.getDeclaredMethods() )
+        if( m.getName().equals("map") )
+          for( Class<?> p : m.getParameterTypes() )
+            if( p == NewChunk.class || p == NewChunk[].class ) return true;
+    return false;
+  }
+
+  @Override protected void setupLocal() {
+    for( int i = 0; i < _tasks.length; i++ ) {
+      MRTask t = _tasks[i];
+      t._fr = _cols[i] == null ? _fr : select(_fr, _cols[i]);
+      t._fs = _fs;
+      t.setupLocal();
+    }
+  }
+
+  private static Frame select( Frame fr, int[] cols ) {
+    String[] names = new String[cols.length];
+    Vec[] vecs = new Vec[cols.length];
+    for( int i = 0; i < cols.length; i++ ) { names[i] = fr.name(cols[i]); vecs[i] = fr.vec(cols[i]); }
+    return new Frame(names, vecs);
+  }
+
+  @Override public void map( Chunk[] cs ) {
+    _outs = new MRTask[_tasks.length];
+    for( int i = 0; i < _tasks.length; i++ ) {
+      MRTask t = (MRTask)_tasks[i].clone();
+      if( _cols[i] == null ) t.callMaps(cs, null);
+      else {
+        Chunk[] sub = new Chunk[_cols[i].length];
+        for( int j = 0; j < sub.length; j++ ) sub[j] = cs[_cols[i][j]];
+        t.callMaps(sub, null);
+      }
+      _outs[i] = t;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public void reduce( FusedMRTask f ) {
+    if( _outs == null ) { _outs = f._outs; return; }
+    if( f._outs == null ) return;
+    for( int i = 0; i < _outs.length; i++ )
+      if( _outs[i] == null ) _outs[i] = f._outs[i];
+      else if( f._outs[i] != null ) _outs[i].reduce4(f._outs[i]);
+  }
+
+  @Override protected void closeLocal() {
+    for( MRTask t : _tasks ) t.closeLocal();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override protected void postGlobal() {
+    for( int i = 0; i < _user.length; i++ ) {
+      if( _outs != null && _outs[i] != null ) _user[i].copyOver(_outs[i]);
+      _user[i].postGlobal();
+    }
+  }
+}
@@ -1198,6 +1198,8 @@ final public class H2O {
     public T reloadFromBytes(byte [] ary){ return read(new AutoBuffer(ary));}
 
     private /*final*/ byte _priority;
+    // Fair-share flow of the Job this task drives, if any; see FairShare
+    transient FairShare.Flow _flow;
     // Without a completer, we expect this task will be blocked on - so the
     // blocking thread is not available in the current thread pool, so the
     // launched task needs to run at a higher priority.
@@ -1259,8 +1261,13 @@ final public class H2O {
         if( pp == MIN_PRIORITY && set_t_prior ) t.setPriority(Thread.NORM_PRIORITY-1);
       }
       // Now run the task as planned
-      if( this instanceof DTask ) icer().compute1(this);
-      else compute2();
+      FairShare.Flow outer = _flow == null ? null : FairShare.enter(_flow);
+      try {
+        if( this instanceof DTask ) icer().compute1(this);
+        else compute2();
+      } finally {
+        if( _flow != null ) FairShare.exit(outer);
+      }
     }
 
     public void compute1() { compute2(); }
@@ -1757,6 +1764,7 @@ final public class H2O {
     // If the K/V mapping is changing, let the store cleaner just overwrite.
     // If the K/V mapping is new, let the store cleaner just create
     if( old != null && val == null ) old.removePersist(); // Remove the old guy
+    if( old != null && old != val ) old.releaseOffHeap(); // Off-heap space is per-Value, not per-Key
     if( val != null ) {
       Cleaner.dirty_store(); // Start storing the new guy
       if( old==null ) Scope.track_internal(key); // New Key - start tracking
@@ -1767,7 +1775,7 @@ final public class H2O {
   // Get the value from the store
   public static void raw_remove(Key key) {
     Value v = STORE.remove(key);
-    if( v != null ) v.removePersist();
+    if( v != null ) { v.removePersist(); v.releaseOffHeap(); }
   }
   public static void raw_clear() { STORE.clear(); }
   public static boolean containsKey( Key key ) { return STORE.get(key) != null; }
@@ -2034,6 +2042,7 @@ final public class H2O {
     // Clouds. This will typically trigger a round of Paxos voting so we can
     // join an existing Cloud.
     new HeartBeatThread().start();
+    water.init.NetworkProbe.startIfEnabled(); // Continuous link checks, if asked for
 
     long time11 = System.currentTimeMillis();
     if (GA != null)
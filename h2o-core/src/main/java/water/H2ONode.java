@@ -3,6 +3,7 @@ package water;
 import water.RPC.RPCCall;
 import water.nbhm.NonBlockingHashMap;
 import water.nbhm.NonBlockingHashMapLong;
+import water.network.CompressedChannel;
 import water.network.SocketChannelFactory;
 import water.util.ArrayUtils;
 import water.util.Log;
@@ -18,8 +19,11 @@ import java.nio.channels.DatagramChannel;
 import java.nio.channels.SocketChannel;
 import java.util.*;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
  * A <code>Node</code> in an <code>H2O</code> Cloud.
  * Basically a worker-bee with CPUs, Memory and Disk.
@@ -37,6 +41,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   transient boolean _announcedLostContact;  // True if heartbeat published a no-contact msg
   transient public long _last_heard_from; // Time in msec since we last heard from this Node
   transient public volatile HeartBeat _heartbeat;  // My health info.  Changes 1/sec.
+  transient volatile long _gossip_changed_ms; // When gossip last brought a change of Paxos state
   transient public int _tcp_readers;               // Count of started TCP reader threads
 
   public boolean _removed_from_cloud;
@@ -45,6 +50,10 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
       _sendThread._stopRequested = true;
       _sendThread = null;
     }
+    if(_ctrlSendThread != null) {
+      _ctrlSendThread._stopRequested = true;
+      _ctrlSendThread = null;
+    }
     _removed_from_cloud = true;
   }
   // A JVM is uniquely named by machine IP address and port#
@@ -156,7 +165,11 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
         IDX = Arrays.copyOf(IDX,IDX.length<<1);
       IDX[idx] = h2o;
     }
-    h2o._sendThread = h2o.new UDP_TCP_SendThread(); // Launch the UDP send thread
+    if( LANES ) {
+      h2o._ctrlSendThread = h2o.new UDP_TCP_SendThread("UDP-TCP-SEND-CTRL-");
+      h2o._ctrlSendThread.start();
+    }
+    h2o._sendThread = h2o.new UDP_TCP_SendThread("UDP-TCP-SEND-"); // Launch the UDP send thread
     h2o._sendThread.start();
     return h2o;
   }
@@ -244,17 +257,49 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   public int index() { return H2O.CLOUD.nidx(this); }
 
   // ---------------
+  // Connection lanes.  With -Dsys.ai.h2o.tcp.lanes, big messages to a node go
+  // over separate socket pools per traffic class, so a shuffle's bulk Key
+  // transfers cannot take every socket while ACKs, invalidates and task
+  // fan-out wait behind them; and small high-priority messages (heartbeats,
+  // ACKs, NACKs, Key gets and puts) get their own batched connection and send
+  // thread, apart from the low-priority task messages.  Without it, one pool
+  // of -Dsys.ai.h2o.tcp.socks sockets and one small-message connection serve
+  // everything, as before.
+  static final boolean LANES = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "tcp.lanes");
+  static final int LANE_TASK = 0, LANE_CONTROL = 1, LANE_BULK = 2;
+  // Max concurrent big-message sockets per node, per lane
+  static final int[] LANE_SOCKS = laneSocks(LANES, System.getProperties());
+  static int[] laneSocks( boolean lanes, Properties props ) {
+    return lanes
+      ? new int[]{ laneSocks(props, "tcp.lanes.task", 2), laneSocks(props, "tcp.lanes.control", 1), laneSocks(props, "tcp.lanes.bulk", 2) }
+      : new int[]{ laneSocks(props, "tcp.socks", 2) };
+  }
+  private static int laneSocks( Properties props, String prop, int dflt ) {
+    String n = props.getProperty(SYSTEM_PROP_PREFIX + prop);
+    try { return n == null ? dflt : Math.max(1, Integer.parseInt(n.trim())); }
+    catch( NumberFormatException nfe ) { return dflt; }
+  }
+
+  /** Lane of the big-message socket pools for a task of the given priority:
+   *  Key gets and puts are bulk data; the other high priorities (ACKs with
+   *  no task, invalidates, atomics, GUI) are control; the rest are tasks. */
+  static int lane( byte priority ) { return lane(priority, LANES); }
+  static int lane( byte priority, boolean lanes ) {
+    if( !lanes ) return LANE_TASK;
+    if( priority == H2O.GET_KEY_PRIORITY || priority == H2O.PUT_KEY_PRIORITY ) return LANE_BULK;
+    return priority >= H2O.MIN_HI_PRIORITY ? LANE_CONTROL : LANE_TASK;
+  }
+
   // A queue of available TCP sockets
   // re-usable TCP socket opened to this node, or null.
   // This is essentially a BlockingQueue/Stack that allows null.
-  private transient ByteChannel _socks[] = new ByteChannel[2];
-  private transient int _socksAvail=_socks.length;
-  // Count of concurrent TCP requests both incoming and outgoing
-  static final AtomicInteger TCPS = new AtomicInteger(0);
+  static final class SocketPool {
+    private final ByteChannel _socks[];
+    private int _socksAvail;
+    SocketPool( int n ) { _socks = new ByteChannel[n]; _socksAvail = n; }
 
-  ByteChannel getTCPSocket() throws IOException {
-    // Under lock, claim an existing open socket if possible
-    synchronized(this) {
+    // Claim a socket: an open one, or null to open a fresh one
+    synchronized ByteChannel claim() {
       // Limit myself to the number of open sockets from node-to-node
       while( _socksAvail == 0 )
         try { wait(1000); } catch( InterruptedException ignored ) { }
@@ -266,15 +311,41 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
         assert TCPS.get() > 0;
         TCPS.decrementAndGet();
       }
+      return null;
     }
+
+    synchronized void free( ByteChannel sock ) {
+      assert 0 <= _socksAvail && _socksAvail < _socks.length;
+      assert TCPS.get() > 0;
+      if( sock != null && !sock.isOpen() ) sock = null;
+      _socks[_socksAvail++] = sock;
+      if( sock == null ) TCPS.decrementAndGet();
+      notify();
+    }
+  }
+  private transient final SocketPool[] _pools = makePools(LANE_SOCKS);
+  static SocketPool[] makePools( int[] socks ) {
+    SocketPool[] pools = new SocketPool[socks.length];
+    for( int i=0; i<pools.length; i++ ) pools[i] = new SocketPool(socks[i]);
+    return pools;
+  }
+  // Count of concurrent TCP requests both incoming and outgoing
+  static final AtomicInteger TCPS = new AtomicInteger(0);
+
+  ByteChannel getTCPSocket( int lane ) throws IOException {
+    // Under lock, claim an existing open socket if possible
+    ByteChannel sock = _pools[lane].claim();
+    if( sock != null ) return sock;
     // Must make a fresh socket
     SocketChannel sock2 = SocketChannel.open();
     sock2.socket().setReuseAddress(true);
     sock2.socket().setSendBufferSize(AutoBuffer.BBP_BIG._size);
     boolean res = sock2.connect( _key );
     assert res && !sock2.isConnectionPending() && sock2.isBlocking() && sock2.isConnected() && sock2.isOpen();
+    // Compress big messages if we want to and the other side can
+    boolean compress = CompressedChannel.ENABLED && _heartbeat._wire_compress;
     ByteBuffer bb = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
-    bb.put((byte)2);
+    bb.put(compress ? TCPReceiverThread.TCP_BIG_COMPRESSED : TCPReceiverThread.TCP_BIG);
     bb.putChar((char)H2O.H2O_PORT);
     bb.put((byte)0xef);
     bb.flip();
@@ -283,16 +354,9 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
       wrappedSocket.write(bb);
     }
     TCPS.incrementAndGet();     // Cluster-wide counting
-    return wrappedSocket;
-  }
-  synchronized void freeTCPSocket( ByteChannel sock ) {
-    assert 0 <= _socksAvail && _socksAvail < _socks.length;
-    assert TCPS.get() > 0;
-    if( sock != null && !sock.isOpen() ) sock = null;
-    _socks[_socksAvail++] = sock;
-    if( sock == null ) TCPS.decrementAndGet();
-    notify();
+    return compress ? new CompressedChannel(wrappedSocket) : wrappedSocket;
   }
+  void freeTCPSocket( ByteChannel sock, int lane ) { _pools[lane].free(sock); }
 
   // ---------------
   // Send UDP via batched TCP.  Note: has to happen out-of-band with the
@@ -302,7 +366,11 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   // messages which are presented in their entirety (not streamed) thus never
   // need another (nested) TCP channel.
   private transient UDP_TCP_SendThread _sendThread = null; // set notnull if properly interned, and done before first sendMessage
-  public void sendMessage( ByteBuffer bb, byte msg_priority ) { _sendThread.sendMessage(bb,msg_priority); }
+  private transient UDP_TCP_SendThread _ctrlSendThread = null; // High priority messages, with tcp.lanes only
+  public void sendMessage( ByteBuffer bb, byte msg_priority ) {
+    UDP_TCP_SendThread ctrl = _ctrlSendThread;
+    (ctrl != null && msg_priority >= H2O.MIN_HI_PRIORITY ? ctrl : _sendThread).sendMessage(bb,msg_priority);
+  }
 
   /**
    * Returns a new connection of type {@code tcpType}, the type can be either
@@ -341,38 +409,60 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
 
   // Private thread serving (actually ships the bytes over) small msg Q.
   // Buffers the small messages together and sends the bytes over via TCP channel.
+  // Messages are batched into one write with whatever else is queued when the
+  // send thread wakes up.  With -Dsys.ai.h2o.tcp.small.linger (microseconds),
+  // the thread also waits up to that long after the first message of a batch
+  // for more to arrive, trading a little latency for fewer, fuller writes
+  // when many small tasks, invalidates and ACKs go to the same node.  A batch
+  // holding a high-priority message (ACK, NACK, heartbeat...) is never held
+  // back: without tcp.lanes these share the send thread with the task traffic.
+  static final long LINGER_NS = TimeUnit.MICROSECONDS.toNanos(Long.getLong(SYSTEM_PROP_PREFIX + "tcp.small.linger", 0));
+
+  // Secret back-channel priority of a queued small message: the position
+  // field (capped at bb.limit); this is to avoid making Yet Another Object
+  // per send.  Priority can exceed position.  "interesting" priorities are
+  // everything above H2O.MIN_HI_PRIORITY and things just above 0; priorities
+  // in the middl'n range from 9 to MIN_HI are really rare.  Need to compress
+  // priorities a little for this hack to work: high priorities take 10 and
+  // up, everything else below 10.
+  static void queuePriority( ByteBuffer bb, byte msg_priority ) {
+    if( msg_priority >= H2O.MIN_HI_PRIORITY ) msg_priority = (byte)((msg_priority-H2O.MIN_HI_PRIORITY)+10);
+    else if( msg_priority >= 9 ) msg_priority = 9;
+    if( msg_priority > bb.limit() ) msg_priority = (byte)bb.limit();
+    bb.position(msg_priority);
+  }
+  // High priority, or too short to tell (capped) and so taken as high
+  static boolean isHiPriority( ByteBuffer bb ) {
+    return bb.position() >= 10 || bb.position() == bb.limit();
+  }
+  // Wait for more messages to join a batch?  Not with a high-priority
+  // message in it, nor once the batch is half full.
+  static boolean linger( long lingerNs, boolean hi, ByteBuffer batch ) {
+    return lingerNs > 0 && !hi && batch.position() < (batch.capacity()>>1);
+  }
+
   class UDP_TCP_SendThread extends Thread {
 
     volatile boolean _stopRequested;
     private ByteChannel _chan;  // Lazily made on demand; closed & reopened on error
     private final ByteBuffer _bb; // Reusable output large buffer
   
-    public UDP_TCP_SendThread(){
-      super("UDP-TCP-SEND-" + H2ONode.this);
+    public UDP_TCP_SendThread( String name ){
+      super(name + H2ONode.this);
       _bb = AutoBuffer.BBP_BIG.make();
     }
   
     /** Send small message to this node.  Passes the message on to a private msg
      *  q, prioritized by the message priority.  MSG queue is served by sender
      *  thread, message are continuously extracted, buffered together and sent
-     *  over TCP channel.
+     *  over TCP channel.  The sender thread owns bb from here on, and returns
+     *  its array to the {@link BufferPool} once sent.
      *  @param bb Message to send
      *  @param msg_priority priority (e.g. NACK and ACKACK beat most other priorities
      */
     public void sendMessage(ByteBuffer bb, byte msg_priority) {
       assert bb.position()==0 && bb.limit() > 0;
-      // Secret back-channel priority: the position field (capped at bb.limit);
-      // this is to avoid making Yet Another Object per send.
-  
-      // Priority can exceed position.  "interesting" priorities are everything
-      // above H2O.MIN_HI_PRIORITY and things just above 0; priorities in the
-      // middl'n range from 10 to MIN_HI are really rare.  Need to compress
-      // priorities a little for this hack to work.
-      if( msg_priority >= H2O.MIN_HI_PRIORITY ) msg_priority = (byte)((msg_priority-H2O.MIN_HI_PRIORITY)+10);
-      else if( msg_priority >= 10 ) msg_priority = 10;
-      if( msg_priority > bb.limit() ) msg_priority = (byte)bb.limit();
-      bb.position(msg_priority);
-  
+      queuePriority(bb, msg_priority);
       _msgQ.put(bb); 
     }
   
@@ -387,7 +477,10 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
         while (!_stopRequested) {            // Forever loop
           try {
             ByteBuffer bb = _msgQ.take(); // take never returns null but blocks instead
+            long deadline = System.nanoTime() + LINGER_NS;
+            boolean hi = false;           // Batch holds a high-priority message?
             while( bb != null ) {         // while have an BB to process
+              hi |= isHiPriority(bb);
               assert !bb.isDirect() : "Direct BBs already got recycled";
               assert bb.limit()+1+2 <= _bb.capacity() : "Small message larger than the output buffer";
               if( _bb.remaining() < bb.limit()+1+2 )
@@ -395,7 +488,14 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
               _bb.putChar((char)bb.limit());
               _bb.put(bb.array(),0,bb.limit()); // Jam this BB into the existing batch BB, all in one go (it all fits)
               _bb.put((byte)0xef);// Sentinel byte
+              BufferPool.give(bb);  // Copied; the message buffer is ours to recycle
               bb = _msgQ.poll();  // Go get more, same batch
+              // Nothing more queued: linger a little for more messages to
+              // coalesce into this write, while the batch has room
+              if( bb == null && linger(LINGER_NS, hi, _bb) ) {
+                long wait = deadline - System.nanoTime();
+                if( wait > 0 ) bb = _msgQ.poll(wait, TimeUnit.NANOSECONDS);
+              }
             }
             sendBuffer();         // Send final trailing BBs
           } catch (IllegalMonitorStateException imse) { /* ignore */
@@ -463,9 +563,15 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   // the tasks() queue, each needing to scan the tasks queue for pending
   // PutKeys to the same Key.  Legal to always 
   private final NonBlockingHashMapLong<TaskPutKey> _tasksPutKey = new NonBlockingHashMapLong<>();
+  // Puts queued in a DKV batch, not yet sent; see TaskPutKeys.Batch
+  private final NonBlockingHashMap<Key,TaskPutKey> _queuedPutKey = new NonBlockingHashMap<>();
+  void queuePutKey( Key k, TaskPutKey tpk ) { _queuedPutKey.put(k,tpk); }
+  void unqueuePutKey( Key k, TaskPutKey tpk ) { _queuedPutKey.remove(k,tpk); }
   TaskPutKey pendingPutKey( Key k ) {
+    TaskPutKey queued = _queuedPutKey.get(k);
+    if( queued != null ) return queued;
     for( TaskPutKey tpk : _tasksPutKey.values() )
-      if( k.equals(tpk._key) )
+      if( tpk.puts(k) )
         return tpk;
     return null;
   }
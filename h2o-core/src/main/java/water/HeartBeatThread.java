@@ -2,6 +2,7 @@ package water;
 
 import java.lang.management.ManagementFactory;
 import javax.management.*;
+import water.network.CompressedChannel;
 import water.util.LinuxProcFileReader;
 import water.util.Log;
 import water.init.*;
@@ -60,6 +61,7 @@ public class HeartBeatThread extends Thread {
       H2O cloud = H2O.CLOUD;
       HeartBeat hb = H2O.SELF._heartbeat;
       hb._hb_version = HB_VERSION++;
+      BufferPool.heartbeat(hb._hb_version);
       hb._jvm_boot_msec= TimeLine.JVM_BOOT_MSEC;
 
 
@@ -75,7 +77,16 @@ public class HeartBeatThread extends Thread {
       hb.set_pojo_mem(pojo_mem);
       hb.set_free_mem(free_mem);
       hb.set_swap_mem(Cleaner.Histo.swapped());
+      hb.set_offheap_mem(MemoryManager.offHeapUsed());
       hb._keys = H2O.STORE.size();
+      hb._replica_hits = ReplicaCache.hits();
+      hb._replica_misses = ReplicaCache.misses();
+      hb._replica_invalidations = ReplicaCache.invalidations();
+      hb._replica_evictions = ReplicaCache.evictions();
+      hb.set_replica_mem(ReplicaCache.bytes());
+      hb._wire_compress = CompressedChannel.ENABLED;
+      hb._wire_raw_bytes = CompressedChannel.rawBytesOut();
+      hb._wire_sent_bytes = CompressedChannel.wireBytesOut();
 
       try {
         hb._system_load_average = ((Double)mbs.getAttribute(os, "SystemLoadAverage")).floatValue();
@@ -129,7 +140,8 @@ public class HeartBeatThread extends Thread {
 
       // Announce what Cloud we think we are in.
       // Publish our health as well.
-      UDPHeartbeat.build_and_multicast(cloud, hb);
+      if( UDPGossip.active() ) UDPGossip.gossip(hb);
+      else UDPHeartbeat.build_and_multicast(cloud, hb);
 
       // If we have no internet connection, then the multicast goes
       // nowhere and we never receive a heartbeat from ourselves!
@@ -138,9 +150,10 @@ public class HeartBeatThread extends Thread {
       H2O.SELF._last_heard_from = now;
 
       // Look for napping Nodes & propose removing from Cloud
+      int suspect = UDPGossip.active() ? UDPGossip.SUSPECT : SUSPECT;
       for( H2ONode h2o : cloud._memary ) {
         long delta = now - h2o._last_heard_from;
-        if( delta > SUSPECT ) {// We suspect this Node has taken a dirt nap
+        if( delta > suspect ) {// We suspect this Node has taken a dirt nap
           if( !h2o._announcedLostContact ) {
             Paxos.print("hart: announce suspect node",cloud._memary,h2o.toString());
             h2o._announcedLostContact = true;
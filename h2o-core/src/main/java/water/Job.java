@@ -1,12 +1,17 @@
 package water;
 
 import jsr166y.CountedCompleter;
+import jsr166y.ForkJoinWorkerThread;
 import water.H2O.H2OCountedCompleter;
 import water.api.schemas3.KeyV3;
+import water.exceptions.H2OIllegalArgumentException;
 import water.util.ArrayUtils;
 import water.util.Log;
+import water.util.PrettyPrint;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Iterator;
 
 /** Jobs are used to do minimal tracking of long-lifetime user actions,
  *  including progress-bar updates and the ability to review in progress or
@@ -118,11 +123,15 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
   private volatile boolean _stop_requested; // monotonic change from false to true
   public boolean stop_requested() { update_from_remote(); return _stop_requested; }
   public void stop() { 
-    if( !_stop_requested )      // fast path cutout
+    if( !_stop_requested ) {    // fast path cutout
+      // Every node knows before anyone sees the stop; see CancelledJobs
+      if( CancelledJobs.ENABLED && isRunning() ) CancelledJobs.cancel(_key);
       new JAtomic() {
         @Override boolean abort(Job job) { return job._stop_requested; }
         @Override void update(Job job) { job._stop_requested = true; }
       }.apply(this);
+      unqueue(_key);
+    }
   }
 
   /** Any exception thrown by this Job, or null if none.  Note that while
@@ -141,6 +150,28 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
   private long _worked;         // Work accomplished; between 0 and _work
   private String _msg;          // Progress string
 
+  /** Projected memory use, for admission control; see {@link MemoryManager#JOB_MEM_BUDGET} */
+  private long _mem_estimate;
+  public long memoryEstimate() { return _mem_estimate; }
+  /** Set the projected memory use of this Job, e.g. from the byteSize of its
+   *  input Frames.  Must be called before the Job starts. */
+  public void setMemoryEstimate(long bytes) {
+    assert created() : "Memory estimate must be set before the Job starts";
+    assert bytes >= 0;
+    _mem_estimate = bytes;
+  }
+
+  /** Relative share of the cores under fair sharing; see {@link FairShare} */
+  private float _share_weight = FairShare.JOB_WEIGHT;
+  public float shareWeight() { return _share_weight; }
+  /** Set this Job's weight relative to other Jobs when sharing the cores,
+   *  e.g. lower for batch work.  Must be called before the Job starts. */
+  public void setShareWeight(float weight) {
+    assert created() : "Share weight must be set before the Job starts";
+    if( !(weight > 0) ) throw new H2OIllegalArgumentException("share_weight", "setShareWeight", weight);
+    _share_weight = weight;
+  }
+
   /** Returns a float from 0 to 1 representing progress.  Polled periodically.
    *  Can default to returning e.g. 0 always.  */
   public float progress() { update_from_remote();
@@ -219,6 +250,9 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     assert created() && !running() && !stopped();
     assert fjtask != null : "Starting a job with null working task is not permitted!";
     assert fjtask.getCompleter() == null : "Cannot have a completer; this must be a top-level task";
+    if( MemoryManager.JOB_MEM_QUOTA > 0 && _mem_estimate > MemoryManager.JOB_MEM_QUOTA )
+      throw new H2OIllegalArgumentException("Job '" + _description + "' needs an estimated " + PrettyPrint.bytes(_mem_estimate) +
+                                            ", over the per-job memory quota of " + PrettyPrint.bytes(MemoryManager.JOB_MEM_QUOTA));
 
     // F/J rules: upon receiving an exception (the task's compute/compute2
     // throws an exception caugt by F/J), the task is marked as "completing
@@ -242,6 +276,7 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     // of Barrier2 - all callers of Job.get().
     _barrier = new Barrier2(); 
     fjtask.setCompleter(new Barrier1(_barrier));
+    if( FairShare.ENABLED || CancelledJobs.ENABLED ) fjtask._flow = FairShare.jobFlow(_share_weight, _key);
 
     // These next steps must happen in-order:
     // 4 - cannot submitTask without being on job-list, lest all cores get
@@ -271,12 +306,89 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
         return old;
       }
     }.invoke(LIST);
-    // 4 - Fire off the FJTASK
-    H2O.submitTask(fjtask);
+    // 4 - Fire off the FJTASK, now or once there is memory for it
+    if( admit(fjtask) ) H2O.submitTask(fjtask);
     return this;
   }
   transient private Barrier2 _barrier; // Top-level task to block on
 
+  // --------------
+  // Admission control.  With a MemoryManager.JOB_MEM_BUDGET set, a started Job
+  // reserves its memory estimate before its task is submitted.  Jobs that do
+  // not fit wait here, FIFO so a large Job is not starved by a stream of small
+  // ones; they are visible as running (with a "Queued" message) meanwhile.
+  // Every finishing Job releases its reservation and admits what now fits.
+  // Admission is local to the node starting the Job, which is also the node
+  // the Job's completion runs on.
+  private static final ArrayDeque<Job> _admissionQ = new ArrayDeque<>();
+  transient private H2OCountedCompleter _queuedTask; // Task held back until admitted
+
+  private boolean admit(H2OCountedCompleter fjtask) {
+    if( MemoryManager.jobMemBudget() <= 0 ) return true;
+    // Jobs started from inside another Job's computation are never queued: the
+    // outer Job may be blocked on them while holding its own reservation.
+    boolean nested = Thread.currentThread() instanceof ForkJoinWorkerThread;
+    synchronized( _admissionQ ) {
+      if( MemoryManager.tryReserveJobMem(_key, _mem_estimate, nested) && (nested || _admissionQ.isEmpty()) )
+        return true;
+      MemoryManager.freeJobMem(_key); // Fit, but others are waiting ahead of us
+      _queuedTask = fjtask;
+      _admissionQ.add(this);
+    }
+    Log.info("Job " + _key + " (" + _description + ") queued for " + PrettyPrint.bytes(_mem_estimate) +
+             "; " + PrettyPrint.bytes(MemoryManager.jobMemReserved()) + " of " + PrettyPrint.bytes(MemoryManager.jobMemBudget()) + " job memory in use");
+    update(0, "Queued: waiting for memory.");
+    return false;
+  }
+
+  // A Job stopped while waiting for admission never runs: take it off the
+  // queue and complete it as cancelled.  Stopped from another node, it is
+  // instead cancelled when its turn comes, in releaseMem.
+  private static void unqueue(Key<Job> key) {
+    if( MemoryManager.jobMemBudget() <= 0 ) return;
+    H2OCountedCompleter task = null;
+    synchronized( _admissionQ ) {
+      for( Iterator<Job> it = _admissionQ.iterator(); it.hasNext(); ) {
+        Job job = it.next();
+        if( job._key.equals(key) ) {
+          it.remove();
+          task = job._queuedTask;
+          job._queuedTask = null;
+          break;
+        }
+      }
+    }
+    if( task != null ) {
+      Log.info("Job " + key + " stopped while queued for memory");
+      task.completeExceptionally(new JobCancelledException());
+    }
+  }
+
+  // Release this Job's reservation and start the queued Jobs that now fit
+  private void releaseMem() {
+    if( MemoryManager.jobMemBudget() <= 0 ) return;
+    MemoryManager.freeJobMem(_key);
+    while( true ) {
+      Job job;
+      H2OCountedCompleter task;
+      synchronized( _admissionQ ) {
+        job = _admissionQ.peek();
+        if( job == null || !MemoryManager.tryReserveJobMem(job._key, job._mem_estimate, false) ) return;
+        _admissionQ.poll();
+        task = job._queuedTask;
+        job._queuedTask = null;
+      }
+      if( job.stop_requested() ) { // Stopped while queued, from another node
+        MemoryManager.freeJobMem(job._key);
+        task.completeExceptionally(new JobCancelledException());
+        continue;
+      }
+      Log.info("Job " + job._key + " (" + job._description + ") admitted after waiting " + job.msec() + "ms");
+      job.update(0, "Running.");
+      H2O.submitTask(task);
+    }
+  }
+
   // Handy for assertion
   private static class AssertNoKey extends MRTask<AssertNoKey> {
     private final Key<Job> _key;
@@ -295,12 +407,14 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     Barrier1(CountedCompleter cc) { super(cc,0); }
     @Override public void compute() { }
     @Override public void onCompletion(CountedCompleter caller) {
-      new Barrier1OnCom().apply(Job.this);
+      releaseMem();
+      new Barrier1OnCom(cancelReport()).apply(Job.this);
       _barrier = null;          // Free for GC
     }
     @Override public boolean onExceptionalCompletion(Throwable ex, CountedCompleter caller) {
+      releaseMem();
       if(Job.isCancelledException(ex)) {
-        new Barrier1OnCom().apply(Job.this);
+        new Barrier1OnCom(cancelReport()).apply(Job.this);
         _barrier = null;
       } else {
         try {
@@ -317,13 +431,20 @@ public final class Job<T extends Keyed> extends Keyed<Job> {
     return ex instanceof JobCancelledException || ex.getCause() != null && ex.getCause() instanceof JobCancelledException;
   }
 
+  // Map work dropped by cancelling, if any
+  private String cancelReport() {
+    return CancelledJobs.ENABLED && CancelledJobs.noticed(_key) ? CancelledJobs.report(_key) : null;
+  }
+
   private static class Barrier1OnCom extends JAtomic {
+    final String _cancelled;    // Message if cancelled, or null
+    Barrier1OnCom(String cancelled) { _cancelled = cancelled; }
     @Override boolean abort(Job job) { return false; }
     @Override public void update(Job old) {
       assert old._end_time==0 : "onComp should be called once at most, and never if onExComp is called";
       old._end_time = System.currentTimeMillis();
       if( old._worked < old._work ) old._worked = old._work;
-      old._msg = old._stop_requested ? "Cancelled." : "Done.";
+      old._msg = old._stop_requested ? (_cancelled != null ? _cancelled : "Cancelled.") : "Done.";
     }
   }
   private static class Barrier1OnExCom extends JAtomic {
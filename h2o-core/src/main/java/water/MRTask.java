@@ -2,12 +2,18 @@ package water;
 
 import jsr166y.CountedCompleter;
 import jsr166y.ForkJoinPool;
+import jsr166y.ForkJoinTask;
 import water.fvec.*;
 import water.util.DistributedException;
 import water.util.PrettyPrint;
 import water.fvec.Vec.VectorGroup;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Map/Reduce style distributed computation.
@@ -70,7 +76,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *
   *    internal "top-level" fields
   *    ---------------------------
-  *     - RPC<T> _nleft, _nrite: "child" node/JVMs that are doing work
+  *     - RPC<T>[] _nremote    : "child" node/JVMs that are doing work (_fanout of them at most)
   *     - boolean _topLocal    : "root" MRTask on a local machine
   *     - boolean _topGlobal   : "root" MRTask on the "root" node
   *     - T _left, _rite       : "child" MRTasks on a local machine
@@ -83,7 +89,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *              3 node cloud              Inside one of the 'N' nodes:
   *                   N1                               T  _topLocal**
   *                 /   \                            /  \
-  *         N2 (_nleft)  N3 (_nrite)         T (_left)   T (_rite)
+  *      N2 (_nremote[0]) N3 (_nremote[1])   T (_left)   T (_rite)
   *
   *                  **: T is also _topGlobal if N==N1
   *
@@ -101,9 +107,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *                ==>       setupLocal0 on N1
   *                            - topLocal=true
   *                            - _fs = new Futures()
-  *                            - nmid = (_nlo + _nhi) >> 1 => split the range of nodes (divide-conquer)
-  *                            - _nleft = remote_compute(_nlo,nmid) => chooses a node in range and does new RPC().call()
-  *                            - _nrite = remote_compute(nmid,_nhi)    serializing MRTask and call dinvoke on remote.
+  *                            - split the rest of the range of nodes in _fanout (2) parts (divide-conquer)
+  *                            - _nremote[0] = remote_compute(_nlo+1,nmid) => chooses a node in range and does new RPC().call()
+  *                            - _nremote[1] = remote_compute(nmid,_nhi)      serializing MRTask and call dinvoke on remote.
   *                           /                                 \
   *                         /                                     \
   *                       /                                         \
@@ -149,8 +155,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  style, can not be passed via K/V store).*/
   protected AppendableVec[] _appendables;
 
-  /** Internal field to track the left &amp; right remote nodes/JVMs to work on */
-  transient protected RPC<T> _nleft, _nrite;
+  /** Internal field to track the remote nodes/JVMs to work on */
+  transient protected RPC<T>[] _nremote;
 
   /** Internal field to track if this is a top-level local call */
   transient protected boolean _topLocal; // Top-level local call, returning results over the wire
@@ -167,9 +173,51 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   /** The range of Nodes to work on remotely */
   protected short _nlo, _nhi;
 
+  /** Default fan-out of the node tree; see {@link #fanout(int)} */
+  static final int FANOUT = Math.max(2, Math.min(Integer.getInteger(H2O.OptArgs.SYSTEM_PROP_PREFIX + "mrtask.fanout", 2), 64));
+
+  /** Max remote nodes each node hands work to, and reduces the results of */
+  protected byte _fanout = (byte)FANOUT;
+
+  /** Set the shape of the node tree the task is spread over and reduced up.
+   *  Each node splits the nodes left to do into k ranges and hands one to
+   *  each of k other nodes; their results come back to it to be reduced.  The
+   *  default of 2 (or {@code -Dsys.ai.h2o.mrtask.fanout}) is a binary tree.
+   *  A wider tree has fewer levels, so less latency for small results, but
+   *  each node takes k results in at once; with big results (dense Gram
+   *  matrices, model weights) the time is roughly k*log_k(nodes) transfers,
+   *  which is lowest at k=3 and about equal at 2 and 4.
+   *  @param k Fan-out, between 2 and 64
+   *  @return this */
+  public T fanout( int k ) {
+    if( k < 2 || k > 64 ) throw new IllegalArgumentException("MRTask fan-out must be between 2 and 64, not " + k);
+    _fanout = (byte)k;
+    return self();
+  }
+
   /** Internal field to track a range of local Chunks to work on */
   transient protected int _lo, _hi;
 
+  /** The fair-share flow and Job this task's map work belongs to; null if
+   *  neither.  See {@link FairShare} and {@link CancelledJobs}. */
+  FairShare.Flow _share;
+
+  /** Internal field: this leaf's map work was admitted by {@link FairShare} */
+  transient boolean _fsAdmitted;
+
+  /** Internal field: map calls done on this node and nanos taken, shared by
+   *  all the local copies; kept for cancellable Jobs and stealing only */
+  transient AtomicLongArray _mapStats;
+
+  /** Identifies this MRTask to peers stealing its Chunks; 0 if not
+   *  stealing.  See {@link WorkStealing}. */
+  long _stealId;
+
+  /** Internal fields: this node's Chunks and which are claimed; this task
+   *  steals Chunks from peers; this task maps a stolen Chunk */
+  transient WorkStealing.Claims _claims;
+  transient boolean _stealer, _stolen;
+
   /** We can add more things to block on - in case we want a bunch of lazy
    *  tasks produced by children to all end before this top-level task ends.
    *  Semantically, these will all complete before we return from the top-level
@@ -405,6 +453,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   public void dfork(Key... keys ) {
     _topGlobal = true;
     _keys = keys;
+    _share = FairShare.taskFlow(priority());
     _nlo = selfidx(); _nhi = (short)H2O.CLOUD.size(); // Do Whole Cloud
     setupLocal0();              // Local setup
     H2O.submitTask(this);       // Begin normal execution on a FJ thread
@@ -453,6 +502,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     _fr = fr;                   // Record vectors to work on
     _nlo = selfidx(); _nhi = (short)H2O.CLOUD.size(); // Do Whole Cloud
     _run_local = run_local;     // Run locally by copying data, or run globally?
+    _share = FairShare.taskFlow(priority());
+    _stealId = WorkStealing.active(fr, run_local) ? ThreadLocalRandom.current().nextLong() | 1 : 0;
     setupLocal0();              // Local setup
     H2O.submitTask(this);       // Begin normal execution on a FJ thread
     return self();
@@ -513,6 +564,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       (_profile = new MRProfile(this))._localstart = System.currentTimeMillis();
     // Make a blockable Futures for both internal and user work to block on.
     _fs = new Futures();
+    if( (_share != null && _share._job != null) || _stealId != 0 ) _mapStats = new AtomicLongArray(2);
     if(modifiesVolatileVecs() && _fr != null){
       for(Vec v:_fr.vecs())
         if(v.isVolatile())v.preWriting();
@@ -522,16 +574,21 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     int selfidx = selfidx();
     int nlo = subShift(selfidx);
     assert nlo < _nhi;
-    final int nmid = (nlo+_nhi)>>>1; // Mid-point
 
     // Run remote IF:
     // - Not forced to run local (no remote jobs allowed) AND
     // - - There's remote work, or Client mode (always remote work)
     if( (!_run_local) && ((nlo+1 < _nhi) || H2O.ARGS.client) ) {
       if(_profile!=null) _profile._rpcLstart = System.currentTimeMillis();
-      _nleft = remote_compute(H2O.ARGS.client ? nlo : nlo+1,nmid);
-      if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
-      _nrite = remote_compute( nmid,_nhi);
+      // Split the remaining nodes into _fanout near-equal ranges, the later
+      // ranges taking any extra nodes
+      int start = H2O.ARGS.client ? nlo : nlo+1, n = _nhi-start, k = Math.min(Math.max(2,_fanout),n);
+      @SuppressWarnings("unchecked") RPC<T>[] rpcs = new RPC[k];
+      for( int i=0; i<k; i++ ) {
+        rpcs[i] = remote_compute(start+(n*i)/k, start+(n*(i+1))/k);
+        if(_profile!=null && i==0) _profile._rpcRstart = System.currentTimeMillis();
+      }
+      _nremote = rpcs;
       if(_profile!=null) _profile._rpcRdone  = System.currentTimeMillis();
     } else {
       if(_profile!=null)
@@ -548,6 +605,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     // Setup any user's shared local structures for both normal cluster nodes
     // and any client; want this for possible reduction ONTO client
     setupLocal();
+    if( _stealId != 0 && !H2O.ARGS.client ) // Peers may steal this node's Chunks
+      _claims = WorkStealing.register(_stealId, _fr, _lo, _hi, _mapStats);
     if(_profile!=null) _profile._localdone = System.currentTimeMillis();
   }
 
@@ -580,6 +639,13 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   @Override public final void compute2() {
     assert _left == null && _rite == null && _res == null;
     if(_profile!=null) _profile._mapstart = System.currentTimeMillis();
+    // Job cancelled: drop the map calls not yet started under this subtree
+    if( _share != null && _share._job != null && CancelledJobs.armed(_share._job) ) {
+      if( _fsAdmitted ) { _fsAdmitted = false; FairShare.done(); }
+      CancelledJobs.dropped(_share._job, _stealer ? 0 : homedHere(), _mapStats);
+      throw new Job.JobCancelledException();
+    }
+    if( _topLocal && _claims != null ) { mapThenSteal(); return; }
     if( (_hi-_lo) >= 2 ) { // Multi-chunk case: just divide-and-conquer to 1 chunk
       final int mid = (_lo+_hi)>>>1; // Mid-point
       _left = copyAndInit();
@@ -592,7 +658,109 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       if(_profile!=null) _profile._mapdone = System.currentTimeMillis();
       return;                   // Not complete until the fork completes
     }
-    // Zero or 1 chunks, and further chunk might not be homed here
+    if( _stealer ) { steal(); tryComplete(); return; }
+    // Zero or 1 chunks, and further chunk might not be homed here.  Skip
+    // Chunks stolen by peers.  Map work under fair sharing waits its turn,
+    // parked without holding the thread.
+    if( _claims != null && !_fsAdmitted && mapsHere() && !_claims.claim(_lo) ) { tryComplete(); return; }
+    if( _share != null && !_share._exempt && FairShare.ENABLED && !_fsAdmitted && mapsHere() && FairShare.park(this, _share) )
+      return;                   // Submitted again when admitted
+    boolean admitted = _fsAdmitted, flows = _share != null || FairShare.ENABLED;
+    long t0 = _mapStats != null && mapsHere() ? System.nanoTime() : 0;
+    FairShare.Flow outer = flows ? FairShare.enterMap(_share) : null;
+    try {
+      mapLocal();
+    } finally {
+      if( flows ) FairShare.exit(outer);
+      if( admitted ) { _fsAdmitted = false; FairShare.done(); }
+    }
+    if( t0 != 0 ) { _mapStats.incrementAndGet(0); _mapStats.addAndGet(1, System.nanoTime() - t0); }
+    if(_profile!=null)
+      _profile._mapdone = System.currentTimeMillis();
+    tryComplete();
+  }
+
+  // Map all the local Chunks, then steal peers' Chunks with one thief.
+  // Both results reduce into this task as left and right.
+  private void mapThenSteal() {
+    final WorkStealing.Claims claims = _claims;
+    final T thieves = copyAndInit();
+    thieves._stealer = true;
+    thieves._lo = 0;  thieves._hi = 1;
+    _rite = thieves;
+    _left = copyAndInit();
+    _left.setCompleter(new H2O.H2OCallback<T>() { // Not this: not complete until the thief is
+      @Override public void callback( T local ) {
+        WorkStealing.unregister(claims); // All claimed now
+        H2O.submitTask(thieves);
+      }
+      @Override public boolean onExceptionalCompletion( Throwable ex, CountedCompleter caller ) {
+        WorkStealing.unregister(claims);
+        MRTask.this.completeExceptionally(ex);
+        return true;
+      }
+    });
+    _left.fork();
+  }
+
+  // Map Chunks stolen from peers, a batch for all threads at a time, until
+  // every peer has all its Chunks claimed.  Peers with nothing to give yet
+  // are asked again after a growing backoff, up to MAX_RETRIES rounds.
+  private void steal() {
+    ArrayList<H2ONode> peers = new ArrayList<>(Arrays.asList(H2O.CLOUD.members()));
+    Collections.rotate(peers, -H2O.SELF.index()); // Nodes start at different peers
+    peers.remove(H2O.SELF);
+    int max = WorkStealing.BATCH * H2O.ARGS.nthreads;
+    long wait = WorkStealing.RETRY_MS;
+    for( int tries = 0; !peers.isEmpty() && tries < WorkStealing.MAX_RETRIES; ) {
+      boolean stole = false;
+      for( Iterator<H2ONode> it = peers.iterator(); it.hasNext(); ) {
+        int[] got = WorkStealing.steal(it.next(), _stealId, max);
+        if( got == null ) continue; // Nothing to give yet: ask again
+        if( got.length == 0 ) { it.remove(); continue; } // All claimed
+        mapStolen(got);
+        stole = true;
+      }
+      if( stole ) { tries = 0;  wait = WorkStealing.RETRY_MS;  continue; }
+      if( peers.isEmpty() || ++tries == WorkStealing.MAX_RETRIES ) break;
+      WorkStealing.backoff(wait);
+      wait = Math.min(wait << 1, WorkStealing.MAX_RETRY_MS);
+    }
+  }
+
+  // Map the stolen Chunks in parallel, and reduce them into this thief
+  @SuppressWarnings("unchecked")
+  private void mapStolen( int[] cidxs ) {
+    if( _share != null && _share._job != null && CancelledJobs.armed(_share._job) )
+      throw new Job.JobCancelledException();
+    MRTask<T>[] xs = new MRTask[cidxs.length];
+    for( int i = 0; i < cidxs.length; i++ ) {
+      MRTask<T> x = xs[i] = copyAndInit();
+      x.setCompleter(null);     // Joined here, not completing into the thief
+      x._stealer = false;  x._stolen = true;  x._claims = null;
+      x._lo = cidxs[i];  x._hi = cidxs[i] + 1;
+    }
+    ForkJoinTask.invokeAll(xs);
+    for( MRTask<T> x : xs ) reduce2(x);
+  }
+
+  // Will this leaf call map() on this node?
+  private boolean mapsHere() { return _hi > _lo && mapsHere(_lo); }
+  private boolean mapsHere( int i ) {
+    if( _fr == null ) return _keys != null && _keys[i].home();
+    return _run_local || _fr.anyVec().chunkKey(i).home();
+  }
+  // Map calls this subtree would make on this node
+  private int homedHere() {
+    if( _fr == null && _keys == null ) return 0; // Once-per-node mode: no map calls
+    int n = 0;
+    for( int i = _lo; i < _hi; i++ )
+      if( mapsHere(i) ) n++;
+    return n;
+  }
+
+  // Map the zero or one Chunk or Key of this leaf, if homed here
+  private void mapLocal() {
     if( _fr==null ) {           // No Frame, so doing Keys?
       if( _keys == null ||     // Once-per-node mode
           _hi > _lo && _keys[_lo].home() ) {
@@ -604,8 +772,10 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
       }
     } else if( _hi > _lo ) {    // Frame, Single chunk?
       Vec v0 = _fr.anyVec();
-      if( _run_local || v0.chunkKey(_lo).home() ) { // And chunk is homed here?
+      if( _run_local || _stolen || v0.chunkKey(_lo).home() ) { // And chunk is homed here?
         assert(_run_local || !H2O.ARGS.client) : "Client node should not process any keys in MRTask!";
+        // Reload the next swapped-out chunks in the background while we map this one
+        if( ReadAhead.ENABLED && !_run_local && !_stolen ) ReadAhead.prefetch(_fr, _lo);
 
         // Make decompression chunk headers for these chunks
         Vec vecs[] = _fr.vecs();
@@ -613,7 +783,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         NewChunk [] appendableChunks = null;
         for( int i=0; i<vecs.length; i++ )
           if( vecs[i] != null ) {
-            assert _run_local || vecs[i].chunkKey(_lo).home()
+            assert _run_local || _stolen || vecs[i].chunkKey(_lo).home()
               : "Chunk="+_lo+" v0="+v0+", k="+v0.chunkKey(_lo)+"   v["+i+"]="+vecs[i]+", k="+vecs[i].chunkKey(_lo);
             bvs[i] = vecs[i].chunkForChunkIdx(_lo);
           }
@@ -631,30 +801,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         if(_profile!=null)
           _profile._userstart = System.currentTimeMillis();
 
-        int num_fr_vecs = _fr.vecs().length;
-        int num_outputs = _output_types == null? 0 : _output_types.length;
-        if (num_outputs == 0) {
-          if (num_fr_vecs == 1) map(bvs[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
-          else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
-          map(bvs);
-        }
-        else if (num_outputs == 1) {  // convenience versions for cases with single output.
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
-          else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
-          map(bvs, appendableChunks[0]);
-        }
-        else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
-          assert appendableChunks != null;
-          if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
-          // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
-          map(bvs, appendableChunks[0], appendableChunks[1]);
-        }
-        if (num_outputs >= 0)
-          map(bvs, appendableChunks);
+        callMaps(bvs, appendableChunks);
 
         _res = self();          // Save results since called map() at least once!
         // Further D/K/V put any new vec results.
@@ -664,9 +811,34 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
         if( _output_types != null) for(NewChunk nch:appendableChunks)nch.close(_lo, _fs);
       }
     }
-    if(_profile!=null)
-      _profile._mapdone = System.currentTimeMillis();
-    tryComplete();
+  }
+
+  // Call all the various map() calls that apply to these Chunks
+  void callMaps( Chunk[] bvs, NewChunk[] appendableChunks ) {
+    int num_fr_vecs = bvs.length;
+    int num_outputs = _output_types == null? 0 : _output_types.length;
+    if (num_outputs == 0) {
+      if (num_fr_vecs == 1) map(bvs[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1]);
+      else if (num_fr_vecs == 3) map(bvs[0], bvs[1], bvs[2]);
+      map(bvs);
+    }
+    else if (num_outputs == 1) {  // convenience versions for cases with single output.
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0]);
+      else if (num_fr_vecs == 2) map(bvs[0], bvs[1], appendableChunks[0]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0]);
+      map(bvs, appendableChunks[0]);
+    }
+    else if (num_outputs == 2) {  // convenience versions for cases with 2 outputs (e.g split).
+      assert appendableChunks != null;
+      if (num_fr_vecs == 1) map(bvs[0], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 2) map(bvs[0], bvs[1], appendableChunks[0], appendableChunks[1]);
+      // else if (fr_vecs_length == 3) map(bvs[0], bvs[1], bvs[2], appendableChunks[0], appendableChunks[1]);
+      map(bvs, appendableChunks[0], appendableChunks[1]);
+    }
+    if (num_outputs >= 0)
+      map(bvs, appendableChunks);
   }
 
   /** OnCompletion - reduce the left and right into self.  Called internal by
@@ -705,10 +877,11 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   // Block for other queued pending tasks.
   // Copy any final results into 'this', such that a return of 'this' has the results.
   private void postLocal0() {
+    if( _claims != null ) WorkStealing.unregister(_claims);
     closeLocal();               // User's node-local cleanup
     if(_profile!=null) _profile._closeLocalDone = System.currentTimeMillis();
-    reduce3(_nleft);            // Reduce global results from neighbors.
-    reduce3(_nrite);
+    RPC<T>[] rpcs = _nremote;   // Reduce global results from neighbors.
+    if( rpcs != null ) for( RPC<T> rpc : rpcs ) reduce3(rpc);
     if(_profile!=null) _profile._remoteBlkDone = System.currentTimeMillis();
     _fs.blockForPending();      // Block any pending user tasks
     if(_profile!=null) _profile._localBlkDone = System.currentTimeMillis();
@@ -767,6 +940,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  exceptions (which is the F/J default).  Called internal by F/J.  Not
    *  expected to be user-called.  */
   @Override public final boolean onExceptionalCompletion( Throwable ex, CountedCompleter caller ) {
+    if( _topLocal && _claims != null ) WorkStealing.unregister(_claims); // No more Chunks to give
     self_cancel1();
     // Block for completion - we don't want the work, but we want all the
     // workers stopped before we complete this task.  Otherwise this task quits
@@ -776,8 +950,10 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
 
     // Since blocking can throw (generally the same exception, again and again)
     // catch & ignore, keeping only the first one we already got.
-    RPC<T> nl = _nleft; if( nl != null ) try { nl.get(); } catch( Throwable ignore ) { } _nleft = null;
-    RPC<T> nr = _nrite; if( nr != null ) try { nr.get(); } catch( Throwable ignore ) { } _nrite = null;
+    RPC<T>[] rpcs = _nremote;
+    if( rpcs != null )
+      for( RPC<T> rpc : rpcs ) if( rpc != null ) try { rpc.get(); } catch( Throwable ignore ) { }
+    _nremote = null;
     return true;
   }
 
@@ -787,9 +963,11 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     x._topGlobal = false;
     x.setCompleter(this); // Set completer, what used to be a final field
     x._topLocal = false;  // Not a top job
-    x._nleft = x._nrite = null;
+    x._fsAdmitted = false;
+    x._nremote = null;
     x. _left = x. _rite = null;
     x._fs = _fs;
+    x._mapStats = _mapStats;
     if( _profile!=null )  x._profile = new MRProfile(this);
     else                  x._profile = null;    // Clone needs its own profile
     x.setPendingCount(0); // Volatile write for completer field; reset pending count also
@@ -1,7 +1,9 @@
 package water;
 
 import java.lang.management.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.management.Notification;
 import javax.management.NotificationEmitter;
@@ -10,6 +12,8 @@ import jsr166y.ForkJoinPool;
 import water.util.Log;
 import water.util.PrettyPrint;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
  * Manages memory assigned to key/value pairs. All byte arrays used in
  * keys/values should be allocated through this class - otherwise we risking
@@ -297,6 +301,86 @@ abstract public class MemoryManager {
   public static long   [] arrayCopyOf( long  [] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
   public static double [] arrayCopyOf( double[] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
 
+  // Off-heap tier for K/V data.  Chunk bytes can be moved into direct
+  // ByteBuffers by the Cleaner instead of being spilled to disk; this memory
+  // is accounted here, separately from the heap-based MEM_MAX limits above.
+  // Sized by -Dsys.ai.h2o.offheap.max (in bytes); zero turns the tier off.
+  public static final long OFFHEAP_MAX = Long.getLong(SYSTEM_PROP_PREFIX + "offheap.max", 0);
+  private static volatile long _offHeapMax = OFFHEAP_MAX; // Resized by tests only
+  /** Test hook: resize the off-heap tier */
+  static void setOffHeapMax( long max ) { _offHeapMax = max; }
+  private static final AtomicLong _offHeapUsed = new AtomicLong();
+
+  /** @return Bytes of K/V data currently held off-heap */
+  public static long offHeapUsed() { return _offHeapUsed.get(); }
+
+  /** Allocate a direct buffer of the given size from the off-heap tier.
+   *  Never blocks and never triggers the Cleaner: if the tier is off or full
+   *  the caller gets a null and is expected to fall back to disk.
+   *  @return A direct ByteBuffer, or null if no off-heap space is available */
+  static ByteBuffer mallocOffHeap(int bytes) {
+    long max = _offHeapMax;
+    if( max <= 0 ) return null;
+    if( _offHeapUsed.addAndGet(bytes) > max ) {
+      _offHeapUsed.addAndGet(-bytes);
+      return null;
+    }
+    try {
+      return ByteBuffer.allocateDirect(bytes);
+    } catch( OutOfMemoryError e ) { // Hit -XX:MaxDirectMemorySize
+      _offHeapUsed.addAndGet(-bytes);
+      return null;
+    }
+  }
+
+  /** Return off-heap space to the tier.  The native memory itself is released
+   *  when the owning direct buffer is collected. */
+  static void freeOffHeap(int bytes) { _offHeapUsed.addAndGet(-bytes); }
+
+  // Admission control for Jobs.  A Job may carry an estimate of the memory it
+  // will need (see Job#setMemoryEstimate).  The estimates of admitted Jobs are
+  // reserved against a node-wide budget, and a Job that would push the total
+  // over budget waits in Job's admission queue instead of starting.
+  // -Dsys.ai.h2o.job.mem.budget sizes the budget in bytes; zero (the default)
+  // turns admission off.  -Dsys.ai.h2o.job.mem.quota caps the estimate any
+  // single Job may carry; larger Jobs are refused outright.
+  public static final long JOB_MEM_BUDGET = Long.getLong(SYSTEM_PROP_PREFIX + "job.mem.budget", 0);
+  private static volatile long _jobMemBudget = JOB_MEM_BUDGET; // Changed by tests only
+  /** @return The job memory budget in force; zero if admission is off */
+  static long jobMemBudget() { return _jobMemBudget; }
+  /** Test hook: resize the job memory budget */
+  static void setJobMemBudget( long bytes ) { _jobMemBudget = bytes; }
+  public static final long JOB_MEM_QUOTA  = Long.getLong(SYSTEM_PROP_PREFIX + "job.mem.quota" , 0);
+  private static final HashMap<Key,Long> _jobMem = new HashMap<>(); // Reservation per admitted Job
+  private static long _jobMemReserved;                              // Sum of the above
+
+  /** @return Bytes reserved by all admitted Jobs */
+  public static synchronized long jobMemReserved() { return _jobMemReserved; }
+  /** @return Bytes reserved by the given Job, or 0 if it holds no reservation */
+  public static synchronized long jobMemReserved( Key job ) {
+    Long b = _jobMem.get(job);
+    return b == null ? 0 : b;
+  }
+
+  /** Reserve a Job's estimated memory, if it fits in the budget.  A Job is
+   *  always admitted when no other Job holds memory, so an estimate larger than
+   *  the whole budget runs alone rather than never.  Nested Jobs pass force:
+   *  their outer Job may be blocked on them, so they must not wait.
+   *  @return true if the Job was admitted */
+  static synchronized boolean tryReserveJobMem( Key job, long bytes, boolean force ) {
+    assert bytes >= 0 : "bytes < 0: " + bytes;
+    if( !force && _jobMemReserved > 0 && _jobMemReserved + bytes > _jobMemBudget ) return false;
+    Long old = _jobMem.put(job, bytes);
+    _jobMemReserved += bytes - (old == null ? 0 : old);
+    return true;
+  }
+
+  /** Release a Job's reservation; safe to call more than once. */
+  static synchronized void freeJobMem( Key job ) {
+    Long b = _jobMem.remove(job);
+    if( b != null ) _jobMemReserved -= b;
+  }
+
   // Memory available for tasks (we assume 3/4 of the heap is available for tasks)
   static final AtomicLong _taskMem = new AtomicLong(MEM_MAX-(MEM_MAX>>2));
 
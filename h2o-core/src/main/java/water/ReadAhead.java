@@ -0,0 +1,110 @@
+package water;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.nbhm.NonBlockingHashSet;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Background read-ahead of swapped-out Chunks during MRTask passes.
+ *  <p>
+ *  When an MRTask maps a Chunk whose bytes were spilled by the {@link
+ *  Cleaner}, the reload happens synchronously inside the map call and stalls
+ *  the F/J worker.  With read-ahead on, each local map call first queues the
+ *  next {@link #DEPTH} Chunks that worker is expected to map, and a single
+ *  I/O thread reloads any of them that are on disk (or off-heap) while the
+ *  worker computes.
+ *  <p>
+ *  Order: {@link MRTask#compute2} forks the left half of its range and
+ *  recurses into the right half, and F/J workers pop their own forks LIFO;
+ *  so each worker maps its chunks in <em>descending</em> index order, and the
+ *  next Chunks for a worker mapping chunk {@code c} are {@code c-1, c-2, ...}.
+ *  <p>
+ *  Enabled with {@code -Dsys.ai.h2o.mr.readahead=N} (N Chunks ahead; off by
+ *  default).  Read-ahead backs off while the Cleaner is blocking allocations,
+ *  so it never competes with emergency swapping.
+ */
+class ReadAhead extends Thread {
+  static final int DEPTH = Integer.getInteger(SYSTEM_PROP_PREFIX + "mr.readahead", 0);
+  static final boolean ENABLED = DEPTH > 0;
+  private static final int MAX_QUEUED = 1024;
+
+  private static ReadAhead THE_READAHEAD;
+  private static synchronized ReadAhead get() {
+    if( THE_READAHEAD == null ) (THE_READAHEAD = new ReadAhead()).start();
+    return THE_READAHEAD;
+  }
+
+  // Reloaded ahead of use, and skipped because memory was low
+  private static final AtomicLong LOADED = new AtomicLong(), LOADED_BYTES = new AtomicLong(), SKIPPED = new AtomicLong();
+
+  /** @return Chunks reloaded ahead of use so far */
+  static long loaded() { return LOADED.get(); }
+
+  /** @return One-line summary of read-ahead so far, for logging */
+  static String summary() {
+    return "read-ahead: " + LOADED.get() + " chunks (" + PrettyPrint.bytes(LOADED_BYTES.get()) + ") reloaded, " +
+      SKIPPED.get() + " skipped for low memory";
+  }
+
+  private final LinkedBlockingQueue<Value> _q = new LinkedBlockingQueue<>(MAX_QUEUED);
+  private final NonBlockingHashSet<Key> _queued = new NonBlockingHashSet<>();
+
+  private ReadAhead() {
+    super("ReadAhead");
+    setDaemon(true);
+  }
+
+  /** Queue the Chunks after chunk cidx (in map order) for reload, if swapped
+   *  out and homed here.  Cheap and non-blocking; called from map threads. */
+  static void prefetch( Frame fr, int cidx ) { prefetch(fr, cidx, DEPTH); }
+  static void prefetch( Frame fr, int cidx, int depth ) {
+    if( !MemoryManager.canAlloc() ) return; // Cleaner is busy freeing memory
+    ReadAhead ra = null;
+    Vec[] vecs = fr.vecs();
+    Vec v0 = fr.anyVec();
+    // Chunks are striped across the cloud; look at most depth local ones ahead
+    int found = 0, limit = Math.max(0, cidx - depth*H2O.CLOUD.size());
+    for( int c = cidx-1; c >= limit && found < depth; c-- ) {
+      if( !v0.chunkKey(c).home() ) continue; // All Vecs in a Frame home a chunk alike
+      found++;
+      for( Vec vec : vecs ) {
+        if( vec == null ) continue;
+        Key k = vec.chunkKey(c);
+        Value val = Value.STORE_get(k);
+        if( val == null || !isSwapped(val) ) continue;
+        if( ra == null ) ra = get();
+        if( ra._queued.add(k) && !ra._q.offer(val) ) { // Queue is full; try again later
+          ra._queued.remove(k);
+          return;
+        }
+      }
+    }
+  }
+
+  private static boolean isSwapped( Value val ) {
+    return val.rawMem() == null && val.rawPOJO() == null && (val.isPersisted() || val.isOffHeap());
+  }
+
+  @Override public void run() {
+    while( true ) {
+      Value val;
+      try { val = _q.take(); } catch( InterruptedException ignore ) { continue; }
+      try {
+        if( !isSwapped(val) || val.isDeleted() ) continue; // Already reloaded by a map call, or gone
+        if( !MemoryManager.canAlloc() ) { SKIPPED.incrementAndGet(); continue; }
+        LOADED_BYTES.addAndGet(val.memOrLoad().length);
+        LOADED.incrementAndGet();
+      } catch( Throwable t ) {  // Racing delete; the map call will see it too
+        Log.debug("Read-ahead of " + val._key + " failed: " + t);
+      } finally {
+        _queued.remove(val._key);
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.nbhm.NonBlockingHashMap;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Accounting and size limit for read replicas: Values homed on another node
+ *  and cached here after a {@link TaskGetKey}, until the home invalidates
+ *  them.  Only non-Chunk Values are tracked (Models, Frame and Vec headers,
+ *  and the like); Chunks stay under the {@link Cleaner}, which frees remote
+ *  Chunks first under memory pressure.
+ *  <p>
+ *  Replicas are otherwise kept until invalidated, which is what makes reading
+ *  the same remote Value over and over cheap.  With {@code
+ *  -Dsys.ai.h2o.replica.cache.max} (bytes) set, replicas beyond the limit are
+ *  dropped in the order given by {@code -Dsys.ai.h2o.replica.cache.eviction}
+ *  (an {@link EvictionPolicy} name, {@code lru} by default), independently of
+ *  the Cleaner's policy for Chunks.  A dropped replica is simply fetched from
+ *  home again on its next get; an invalidate arriving for it is harmless.
+ *  <p>
+ *  Hits, misses, invalidations and evictions are counted per node and
+ *  reported with the heartbeat (see {@code /3/Cloud}).
+ */
+public class ReplicaCache {
+  /** Max bytes of replicas cached; 0 is no limit */
+  public static final long MAX_BYTES = Long.getLong(SYSTEM_PROP_PREFIX + "replica.cache.max", 0);
+  static final EvictionPolicy POLICY = EvictionPolicy.make(System.getProperty(SYSTEM_PROP_PREFIX + "replica.cache.eviction", "lru"));
+
+  private static final NonBlockingHashMap<Key,Value> REPLICAS = new NonBlockingHashMap<>();
+  private static final AtomicLong BYTES = new AtomicLong();
+  private static final AtomicLong HITS = new AtomicLong(), MISSES = new AtomicLong();
+  private static final AtomicLong INVALIDATIONS = new AtomicLong(), EVICTIONS = new AtomicLong();
+
+  public static long hits() { return HITS.get(); }
+  public static long misses() { return MISSES.get(); }
+  public static long invalidations() { return INVALIDATIONS.get(); }
+  public static long evictions() { return EVICTIONS.get(); }
+  /** Bytes of replicas cached on this node */
+  public static long bytes() { return BYTES.get(); }
+  public static int size() { return REPLICAS.size(); }
+
+  private static boolean tracked( Key key ) { return !key.isChunkKey(); }
+
+  // A get of a remote Key found it cached locally
+  static void hit( Key key ) { if( tracked(key) ) HITS.incrementAndGet(); }
+  // A get of a remote Key goes to its home
+  static void miss( Key key ) { if( tracked(key) ) MISSES.incrementAndGet(); }
+
+  // A Value fetched from home was installed in the local store
+  static void cached( Key key, Value val ) {
+    if( val == null || !tracked(key) ) return;
+    Value old = REPLICAS.put(key, val);
+    BYTES.addAndGet(val._max - (old == null ? 0 : old._max));
+    if( MAX_BYTES > 0 && BYTES.get() > MAX_BYTES ) evict();
+  }
+
+  // The home invalidated our copy of Key
+  static void invalidated( Key key ) {
+    if( !tracked(key) ) return;
+    INVALIDATIONS.incrementAndGet();
+    Value old = REPLICAS.remove(key);
+    if( old != null ) BYTES.addAndGet(-old._max);
+  }
+
+  // A local Put replaced the replica; it is no longer a copy of home's Value
+  static void replaced( Key key, Value old ) {
+    if( old != null && tracked(key) && REPLICAS.remove(key, old) ) BYTES.addAndGet(-old._max);
+  }
+
+  // Drop replicas by policy until back under 3/4 of the limit, so a cache
+  // running at the limit does not sort on every fetch
+  private static synchronized void evict() {
+    if( BYTES.get() <= MAX_BYTES ) return; // Raced with another evict
+    // Snapshot the eviction times: they move as replicas are read
+    final ArrayList<Map.Entry<Key,Value>> es = new ArrayList<>(REPLICAS.entrySet());
+    final long[] times = new long[es.size()];
+    Integer[] order = new Integer[times.length];
+    for( int i = 0; i < times.length; i++ ) { times[i] = POLICY.evictionTime(es.get(i).getValue()); order[i] = i; }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare( Integer a, Integer b ) { return Long.compare(times[a], times[b]); }
+    });
+    long goal = MAX_BYTES - (MAX_BYTES >> 2), freed = 0;
+    int n = 0;
+    for( int i : order ) {
+      if( BYTES.get() <= goal ) break;
+      Key key = es.get(i).getKey();
+      Value val = es.get(i).getValue();
+      if( !REPLICAS.remove(key, val) ) continue; // Invalidated or replaced meanwhile
+      BYTES.addAndGet(-val._max);
+      // Only drop what is still the cached replica
+      if( H2O.putIfMatch(key, null, val) == val ) { freed += val._max; n++; }
+    }
+    EVICTIONS.addAndGet(n);
+    if( n > 0 ) Log.debug("Replica cache evicted " + n + " values, " + PrettyPrint.bytes(freed) + "; cached " + PrettyPrint.bytes(BYTES.get()));
+  }
+}
@@ -8,6 +8,7 @@ import java.nio.channels.ByteChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 
+import water.network.CompressedChannel;
 import water.network.SocketChannelFactory;
 import water.util.Log;
 import water.util.SB;
@@ -40,6 +41,11 @@ public class TCPReceiverThread extends Thread {
    */
   static final byte TCP_EXTERNAL = 3;
 
+  /**
+   * Byte representing TCP communication for big data, compressed; see {@link CompressedChannel}
+   */
+  static final byte TCP_BIG_COMPRESSED = 4;
+
   public TCPReceiverThread(
           ServerSocketChannel sock) {
     super("TCP-Accept");
@@ -82,7 +88,7 @@ public class TCPReceiverThread extends Thread {
           wrappedSocket.read(bb);
         }
         bb.flip();
-        int chanType = bb.get(); // 1 - small , 2 - big
+        int chanType = bb.get(); // 1 - small , 2 - big, 4 - big compressed
         int port = bb.getChar();
         int sentinel = (0xFF) & bb.get();
         if(sentinel != 0xef) {
@@ -107,11 +113,15 @@ public class TCPReceiverThread extends Thread {
         case TCP_BIG:
           new TCPReaderThread(wrappedSocket, new AutoBuffer(wrappedSocket, inetAddress), inetAddress).start();
           break;
+        case TCP_BIG_COMPRESSED:
+          ByteChannel compressed = new CompressedChannel(wrappedSocket);
+          new TCPReaderThread(compressed, new AutoBuffer(compressed, inetAddress), inetAddress).start();
+          break;
         case TCP_EXTERNAL:
           new ExternalFrameHandlerThread(wrappedSocket, new AutoBuffer(wrappedSocket, null)).start();
           break;
         default:
-          throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big and 3 - ExternalFrameHandling");
+          throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big, 3 - ExternalFrameHandling and 4 - Big compressed");
         }
       } catch( java.nio.channels.AsynchronousCloseException ex ) {
         break;                  // Socket closed for shutdown
@@ -20,37 +20,53 @@ public class TaskPutKey extends DTask<TaskPutKey> {
   protected TaskPutKey( Key key ) { super(H2O.INVALIDATE_PRIORITY); _xkey = _key = key; _xval = _val = null; _dontCache = false;}
 
   @Override public void dinvoke( H2ONode sender ) {
-    assert _key.home() || _val==null; // Only PUT to home for keys, or remote invalidation from home
-    Paxos.lockCloud(_key);
-    // Initialize Value for having a single known replica (the sender)
-    if( _val != null ) _val.initReplicaHome(sender,_key);
-    else if( _key.home() ) _val = Value.makeNull(_key);
-    // Spin, until we update something.
-    Value old = H2O.STORE.get(_key); // Raw-get: do not lazy-manifest if overwriting
-    while( H2O.putIfMatch(_key,_val,old) != old )
-      old = H2O.STORE.get(_key);  // Repeat until we update something.
     // Invalidate remote caches.  Block, so that all invalidates are done
     // before we return to the remote caller.  This is conservative, but
     // otherwise we have to send the invalidate-completion message to the
     // remote caller; i.e. the caller would have to handle a 2-step Put
     // completion ("I started your Put request" and "I completed your Put
     // request").
-    if( _key.home() ) {
-      if( old != null ) old.lockAndInvalidate(sender,_val,new Futures()).blockForPending();
-      else _val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
-    }
+    Futures fs = new Futures();
+    update(sender,_key,_val,fs);
+    fs.blockForPending();
     // No return result
     _key = null;
     _val = null;
     tryComplete();
   }
+
+  // Install a Value sent by sender, and start invalidating remote caches
+  static void update( H2ONode sender, Key key, Value val, Futures fs ) {
+    assert key.home() || val==null; // Only PUT to home for keys, or remote invalidation from home
+    Paxos.lockCloud(key);
+    // Initialize Value for having a single known replica (the sender)
+    if( val != null ) val.initReplicaHome(sender,key);
+    else if( key.home() ) val = Value.makeNull(key);
+    // Spin, until we update something.
+    Value old = H2O.STORE.get(key); // Raw-get: do not lazy-manifest if overwriting
+    while( H2O.putIfMatch(key,val,old) != old )
+      old = H2O.STORE.get(key);  // Repeat until we update something.
+    if( !key.home() ) ReplicaCache.invalidated(key);
+    else {
+      if( old != null ) old.lockAndInvalidate(sender,val,fs);
+      else val.lowerActiveGetCount(null);  // Remove initial read-lock, accounting for pending inv counts
+    }
+  }
+
+  // Is this an in-flight Put to Key k, and of which Value?  Lets local Gets
+  // see their own pending writes.
+  boolean puts( Key k ) { return k.equals(_xkey); }
+  Value pendingValue( Key k ) { return _xval; }
   @Override public void compute2() { throw H2O.fail(); }
 
   // Received an ACK
-  @Override public void onAck() {
+  @Override public void onAck() { acked(_xkey,_xval,_dontCache); }
+
+  static void acked( Key key, Value val, boolean dontCache ) {
     // remove local cache but NOT in case it is already on disk
     // (ie memory can be reclaimed and we assume we have plenty of disk space)
-    if( _dontCache && !_xval.isPersisted() ) H2O.putIfMatch(_xkey, null, _xval);
-    if( _xval != null ) _xval.completeRemotePut();
+    if( val == null ) return;   // A remove: nothing cached, nothing to complete
+    if( dontCache && !val.isPersisted() ) H2O.putIfMatch(key, null, val);
+    val.completeRemotePut();
   }
 }
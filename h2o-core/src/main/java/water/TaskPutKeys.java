@@ -0,0 +1,84 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/** Push a batch of keys, all homed on the same remote node, in one message.
+ *  The batched form of {@link TaskPutKey}; a null Value is a remove.
+ *  Callers build these with a {@link Batch}, via {@link DKV#put(Key[],Value[],Futures,boolean)}.
+ */
+class TaskPutKeys extends TaskPutKey {
+  Key[] _keys;
+  Value[] _vals;
+  transient Key[] _xkeys;
+  transient Value[] _xvals;
+  transient HashMap<Key,Integer> _idx; // For pending-Put lookups by local Gets
+
+  private TaskPutKeys( Key[] keys, Value[] vals, boolean dontCache ) {
+    super(null,null,dontCache);
+    _xkeys = _keys = keys;
+    _xvals = _vals = vals;
+    _idx = new HashMap<>();
+    for( int i=0; i<keys.length; i++ ) _idx.put(keys[i],i);
+  }
+
+  @Override public void dinvoke( H2ONode sender ) {
+    // Start all the invalidates, then block for them together
+    Futures fs = new Futures();
+    for( int i=0; i<_keys.length; i++ )
+      update(sender,_keys[i],_vals[i],fs);
+    fs.blockForPending();
+    // No return result
+    _keys = null;
+    _vals = null;
+    tryComplete();
+  }
+
+  @Override boolean puts( Key k ) { return _idx.containsKey(k); }
+  @Override Value pendingValue( Key k ) { return _xvals[_idx.get(k)]; }
+
+  @Override public void onAck() {
+    for( int i=0; i<_xkeys.length; i++ )
+      acked(_xkeys[i],_xvals[i],_dontCache);
+  }
+
+  /** Remote Puts grouped by home node, sent as one TaskPutKeys per node.
+   *  Each queued Put is visible to local Gets (via {@link
+   *  H2ONode#pendingPutKey}) from the moment it is added, not only once sent. */
+  static class Batch {
+    private final boolean _dontCache;
+    private final HashMap<H2ONode,ArrayList<TaskPutKey>> _puts = new HashMap<>();
+    private final HashMap<Key,H2ONode> _batched = new HashMap<>();
+    Batch( boolean dontCache ) { _dontCache = dontCache; }
+
+    boolean contains( Key key ) { return _batched.containsKey(key); }
+
+    void add( H2ONode home, Key key, Value val ) {
+      assert !contains(key) : "Key "+key+" batched twice; send the batch first";
+      TaskPutKey tpk = new TaskPutKey(key,val,_dontCache);
+      ArrayList<TaskPutKey> puts = _puts.get(home);
+      if( puts == null ) _puts.put(home, puts = new ArrayList<>());
+      puts.add(tpk);
+      _batched.put(key,home);
+      home.queuePutKey(key,tpk);
+    }
+
+    /** Send one message per home node, and empty the batch. */
+    void send( Futures fs ) {
+      for( H2ONode home : _puts.keySet() ) {
+        ArrayList<TaskPutKey> puts = _puts.get(home);
+        if( puts.size() == 1 ) fs.add(RPC.call(home,puts.get(0)));
+        else {
+          Key[] keys = new Key[puts.size()];
+          Value[] vals = new Value[puts.size()];
+          for( int i=0; i<keys.length; i++ ) { keys[i] = puts.get(i)._xkey; vals[i] = puts.get(i)._xval; }
+          fs.add(RPC.call(home,new TaskPutKeys(keys,vals,_dontCache)));
+        }
+        // Pending as sent tasks now
+        for( TaskPutKey tpk : puts ) home.unqueuePutKey(tpk._xkey,tpk);
+      }
+      _puts.clear();
+      _batched.clear();
+    }
+  }
+}
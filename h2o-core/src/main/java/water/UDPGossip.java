@@ -0,0 +1,188 @@
+package water;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Gossip dissemination of HeartBeats, for big flatfile clouds.
+ *
+ * Without multicast, every node sends its HeartBeat to every other node once
+ * a second, N^2 messages per second for the cloud.  With {@code
+ * -Dsys.ai.h2o.heartbeat.gossip} each server node instead sends, once a
+ * second, its own HeartBeat plus up to {@code heartbeat.gossip.size} (16)
+ * rumors of other nodes to {@code heartbeat.gossip.fanout} (3) random peers.
+ * A rumor is a node's HeartBeat version and Paxos state (cloud hash, size,
+ * common knowledge), not the whole HeartBeat, so the message stays a single
+ * UDP datagram; rumors are dropped to fit.  The receiver applies every rumor
+ * newer than the HeartBeat it has to a copy of that HeartBeat, as if the
+ * node had sent it directly - so {@link Paxos} is unchanged, and still sees
+ * every node's cloud hash.  Rumors whose Paxos state changed in the last few
+ * seconds are relayed first, so a cloud forms in O(log N) rounds.  Load and
+ * memory stats still come only from the node itself.
+ *
+ * A newer HeartBeat also counts as hearing from its node, and a node whose
+ * HeartBeat has not advanced for {@code heartbeat.gossip.suspect.ms} (15sec)
+ * is announced as suspect.  Clients are sent the plain HeartBeat, as before.
+ * All nodes of a cloud must agree on the mode.
+ */
+class UDPGossip extends UDP {
+  static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "heartbeat.gossip");
+  static final int FANOUT = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.fanout", 3));
+  static final int SIZE = Math.max(0, Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.size", 16));
+  static final int SUSPECT = Integer.getInteger(SYSTEM_PROP_PREFIX + "heartbeat.gossip.suspect.ms", 15000);
+  static final int HOT_MS = 5000;       // Paxos state changes are relayed first for this long
+  static final int MAX_BYTES = AutoBuffer.MTU - 1 - 2; // One datagram, after the udp type & port
+
+  private static final Random RNG = new Random();
+
+  /** Gossip replaces the simulated multicast of server HeartBeats */
+  static boolean active() { return ENABLED && H2O.isFlatfileEnabled() && !H2O.ARGS.client; }
+
+  // The message: sender's HeartBeat, then rumors of other nodes
+  static class Gossip extends Iced<Gossip> {
+    HeartBeat _self;
+    Rumor[] _rumors;
+  }
+
+  // The Paxos part of a node's HeartBeat
+  static class Rumor extends Iced<Rumor> {
+    H2ONode _h2o;
+    long _jvm_boot_msec;
+    char _hb_version;
+    int _cloud_hash;
+    char _cloud_size;
+    boolean _common_knowledge;
+    Rumor() {}
+    Rumor( H2ONode h2o, HeartBeat hb ) {
+      _h2o = h2o;
+      _jvm_boot_msec = hb._jvm_boot_msec;
+      _hb_version = hb._hb_version;
+      _cloud_hash = hb._cloud_hash;
+      _cloud_size = hb._cloud_size;
+      _common_knowledge = hb._common_knowledge;
+    }
+    // The node's HeartBeat as of this rumor: the latest one heard, updated
+    HeartBeat apply( HeartBeat old, HeartBeat relay ) {
+      HeartBeat hb;
+      if( old._jvm_boot_msec != 0 ) hb = old.clone();
+      else {                    // Never heard of: the relay vouches for the rest
+        hb = new HeartBeat();
+        hb._cloud_name_hash = relay._cloud_name_hash;
+        hb._jar_md5 = relay._jar_md5;
+      }
+      hb._jvm_boot_msec = _jvm_boot_msec;
+      hb._hb_version = _hb_version;
+      hb._cloud_hash = _cloud_hash;
+      hb._cloud_size = _cloud_size;
+      hb._common_knowledge = _common_knowledge;
+      return hb;
+    }
+  }
+
+  @Override AutoBuffer call(AutoBuffer ab) {
+    Gossip g = new Gossip().read(ab);
+    if( g._self._cloud_name_hash != H2O.SELF._heartbeat._cloud_name_hash ) return ab; // Not our cloud, nor its rumors
+    if( ab._h2o != H2O.SELF ) apply(ab._h2o, g._self, null);
+    if( g._rumors != null )
+      for( Rumor r : g._rumors )
+        if( r._h2o != H2O.SELF && r._h2o != ab._h2o )
+          apply(r._h2o, g._self, r);
+    return ab;
+  }
+
+  // Apply a node's own HeartBeat, or a rumor of it relayed along with hb
+  private static void apply( H2ONode h2o, HeartBeat hb, Rumor r ) {
+    synchronized( h2o ) {
+      HeartBeat old = h2o._heartbeat;
+      if( r == null ? !newer(hb, old) : !newer(r._jvm_boot_msec, r._hb_version, old) )
+        return;                 // Already have this news
+      if( r != null ) hb = r.apply(old, hb);
+      long now = System.currentTimeMillis();
+      if( old._cloud_hash != hb._cloud_hash || old._cloud_size != hb._cloud_size || old._common_knowledge != hb._common_knowledge )
+        h2o._gossip_changed_ms = now;
+      h2o._heartbeat = hb;
+      h2o._last_heard_from = now;
+    }
+    Paxos.doHeartbeat(h2o);
+  }
+
+  // Is hb a later HeartBeat of the same node than cur?  Versions are a
+  // wrapping counter, reset when the node reboots.
+  static boolean newer( HeartBeat hb, HeartBeat cur ) { return newer(hb._jvm_boot_msec, hb._hb_version, cur); }
+  static boolean newer( long boot, char version, HeartBeat cur ) {
+    if( boot != cur._jvm_boot_msec ) return boot > cur._jvm_boot_msec;
+    char d = (char)(version - cur._hb_version);
+    return d != 0 && d < 0x8000;
+  }
+
+  /** Called once a second by the HeartBeatThread instead of multicasting */
+  static void gossip( HeartBeat hb ) {
+    H2O.SELF._heartbeat = hb;
+    Set<H2ONode> nodes = H2O.getFlatfile();
+    nodes.addAll(Paxos.PROPOSED.values());
+    ArrayList<H2ONode> peers = new ArrayList<>();
+    for( H2ONode h2o : nodes ) {
+      if( h2o == H2O.SELF || h2o._removed_from_cloud ) continue;
+      if( h2o._heartbeat._client ) // Clients do not gossip; tell them directly
+        hb.write(new AutoBuffer(h2o, udp.heartbeat._prior).putUdp(udp.heartbeat)).close();
+      else peers.add(h2o);
+    }
+    Collections.shuffle(peers, RNG);
+    final long now = System.currentTimeMillis();
+    for( int i = 0; i < Math.min(FANOUT, peers.size()); i++ ) {
+      H2ONode to = peers.get(i);
+      Gossip g = digest(hb, to, now);
+      g.write(new AutoBuffer(to, udp.gossip._prior).putUdp(udp.gossip)).close();
+    }
+  }
+
+  // Up to SIZE rumors worth relaying to a peer: recent Paxos changes first,
+  // newest change first, then random ones
+  private static Gossip digest( HeartBeat self, H2ONode to, final long now ) {
+    final ArrayList<H2ONode> known = new ArrayList<>();
+    for( H2ONode h2o : Paxos.PROPOSED.values() )
+      if( h2o != H2O.SELF && h2o != to && !h2o._heartbeat._client && h2o._heartbeat._jvm_boot_msec != 0 )
+        known.add(h2o);
+    Collections.shuffle(known, RNG);
+    // Snapshot the change times: they move as gossip arrives
+    final long[] hot = new long[known.size()];
+    Integer[] order = new Integer[hot.length];
+    for( int i = 0; i < hot.length; i++ ) {
+      long t = known.get(i)._gossip_changed_ms;
+      hot[i] = now - t < HOT_MS ? t : 0;
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare( Integer a, Integer b ) { return Long.compare(hot[b], hot[a]); }
+    });
+    ArrayList<H2ONode> nodes = new ArrayList<>();
+    for( Integer i : order ) nodes.add(known.get(i));
+    return pack(self, nodes);
+  }
+
+  // The message: self, and rumors of the first nodes, as many as fit
+  static Gossip pack( HeartBeat self, List<H2ONode> nodes ) {
+    Gossip g = new Gossip();
+    g._self = self;
+    g._rumors = new Rumor[Math.min(SIZE, nodes.size())];
+    for( int i = 0; i < g._rumors.length; i++ )
+      g._rumors[i] = new Rumor(nodes.get(i), nodes.get(i)._heartbeat);
+    int len;
+    while( (len = size(g)) > MAX_BYTES && g._rumors.length > 0 ) {
+      // Drop the excess in one go, by the average rumor size
+      int per = Math.max(1, (len - size(self)) / g._rumors.length);
+      int drop = (len - MAX_BYTES + per - 1) / per;
+      g._rumors = Arrays.copyOf(g._rumors, Math.max(0, g._rumors.length - drop));
+    }
+    return g;
+  }
+
+  static int size( Iced ice ) { return ice.write(new AutoBuffer()).position(); }
+}
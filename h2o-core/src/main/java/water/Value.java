@@ -1,9 +1,12 @@
 package water;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import jsr166y.ForkJoinPool;
+import water.fvec.Chunk;
 import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.Log;
@@ -79,6 +82,21 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   private volatile byte[] _mem;
   final byte[] rawMem() { return _mem; }
 
+  // ---
+  // An off-heap copy of _mem, or NULL if not held off-heap.  Filled in by the
+  // Cleaner as a cheaper alternative to spilling to disk, after which the heap
+  // copy can be dropped.  Fixed-width Chunks then read it in place (see
+  // reload); other POJOs, and the wire, still take a heap copy from
+  // memOrLoad.  Immutable once set, like _mem.  The buffer is never
+  // yanked (racing readers may still hold this Value); instead the off-heap
+  // accounting is handed back once, when the Value leaves the K/V store.
+  private transient volatile ByteBuffer _offheap;
+  private transient volatile int _offheapReleased;
+  private static final AtomicIntegerFieldUpdater<Value> OFFHEAP_RELEASED_UPDATER =
+    AtomicIntegerFieldUpdater.newUpdater(Value.class, "_offheapReleased");
+  /** Check if a copy of the backing byte[] is held off-heap */
+  public final boolean isOffHeap() { return _offheap != null; }
+
   // ---
   // A POJO version of the _mem array, or null if the _mem has not been
   // serialized or if _mem is primitive data and not a POJO.  Cleared to null
@@ -103,7 +121,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   /** Invalidate POJO cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freePOJO() {
-    assert isPersisted() || _mem != null;
+    assert isPersisted() || isOffHeap() || _mem != null;
     _pojo = null;
   }
 
@@ -117,11 +135,27 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     if( pojo != null )          // Has the POJO, make raw bytes
       return _mem = pojo.asBytes();
     if( _max == 0 ) return (_mem = new byte[0]);
+    ByteBuffer off = _offheap; // Read once!
+    if( off != null ) return (_mem = loadOffHeap(off));
     return (_mem = loadPersist());
   }
+  /** Read-only view of the serialized POJO, without building a heap copy
+   *  when the bytes are held off-heap.  Never returns NULL.
+   *  @return ByteBuffer over the serialized POJO  */
+  public final ByteBuffer memBuffer() {
+    byte[] mem = _mem;          // Read once!
+    if( mem != null ) return ByteBuffer.wrap(mem).asReadOnlyBuffer();
+    ByteBuffer off = _offheap;  // Read once!
+    if( off != null ) return off.asReadOnlyBuffer();
+    if( _pojo == null && isPersisted() ) { // Mapped swap can hand out a view
+      ByteBuffer view = loadPersistView();
+      if( view != null ) return view;
+    }
+    return ByteBuffer.wrap(memOrLoad()).asReadOnlyBuffer();
+  }
   // Just an empty shell of a Value, no local data but the Value is "real".
   // Any attempt to look at the Value will require a remote fetch.
-  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted(); }
+  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted() && !isOffHeap(); }
 
   /** The FAST path get-POJO as an {@link Iced} subclass - final method for
    *  speed.  Will (re)build the POJO from the _mem array.  Never returns NULL.
@@ -131,7 +165,7 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     Iced pojo = (Iced)_pojo;    // Read once!
     if( pojo != null ) return (T)pojo;
     pojo = TypeMap.newInstance(_type);
-    return (T)(_pojo = pojo.reloadFromBytes(memOrLoad()));
+    return (T)(_pojo = reload(pojo));
   }
   /** The FAST path get-POJO as a {@link Freezable} - final method for speed.
    *  Will (re)build the POJO from the _mem array.  Never returns NULL.  This
@@ -150,16 +184,43 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     Freezable pojo = _pojo;     // Read once!
     if( pojo != null ) return (T)pojo;
     pojo = TypeMap.newFreezable(_type);
-    pojo.reloadFromBytes(memOrLoad());
+    pojo = reload(pojo);
     return (T)(_pojo = pojo);
   }
 
+  // Build the POJO from the bytes.  Fixed-width Chunks held off-heap, or
+  // swapped to mapped ice segments, read them in place with no heap copy;
+  // everything else decodes a byte[].
+  private Freezable reload( Freezable pojo ) {
+    if( _mem == null && pojo instanceof Chunk && ((Chunk)pojo).readsOffHeap() ) {
+      ByteBuffer bb = _offheap; // Read once!
+      if( bb == null && isPersisted() ) bb = loadPersistView(); // Paged in on demand
+      if( bb != null ) return ((Chunk)pojo).reloadFromBuffer(bb);
+    }
+    return pojo.reloadFromBytes(memOrLoad());
+  }
+
   // ---
-  // Time of last access to this value.
+  // Time of last access to this value, plus the time of the access before
+  // it (racy, unsynchronized), used by the Cleaner's EvictionPolicy.  Touches within
+  // CORRELATED_MS of each other count as a single access, so that one pass
+  // of an MRTask over a Chunk does not look like many separate uses.
+  static final long CORRELATED_MS = 1000;
   transient long _lastAccessedTime = System.currentTimeMillis();
-  private void touch() {_lastAccessedTime = System.currentTimeMillis();}
+  private transient long _prevAccessedTime; // Access before the last one, or 0
+  private void touch() {
+    long now = System.currentTimeMillis();
+    long last = _lastAccessedTime;
+    if( now - last > CORRELATED_MS )
+      _prevAccessedTime = last;
+    _lastAccessedTime = now;
+  }
   // Exposed and used for testing only; used to trigger premature cleaning/disk-swapping
   void touchAt(long time) {_lastAccessedTime = time;}
+  /** @return Time of the most recent access */
+  public final long lastAccessedTime() { return _lastAccessedTime; }
+  /** @return Time of the access before the most recent one, or 0 if none */
+  public final long prevAccessedTime() { return _prevAccessedTime; }
 
   // ---
 
@@ -241,6 +302,49 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     } catch( IOException ioe ) { throw Log.throwErr(ioe); }
   }
 
+  /** Copy the backing byte[] into the off-heap tier.  Only the Cleaner
+   *  moves Values off-heap.
+   *  @return true if the bytes are now held off-heap */
+  boolean storeOffHeap() {
+    if( isOffHeap() ) return true;
+    if( isDeleted() || _offheapReleased != 0 ) return false;
+    byte[] mem = _mem;          // Read once!
+    if( mem == null ) return false; // Nothing cheap to copy
+    ByteBuffer off = MemoryManager.mallocOffHeap(mem.length);
+    if( off == null ) return false; // Tier is off or full
+    off.put(mem).flip();
+    _offheap = off;
+    freeOffHeapOnce();          // Raced with a removal?  Hand the space back
+    return true;
+  }
+
+  /** Return this Value's off-heap space to the tier; called once the Value
+   *  is no longer mapped in the local K/V store.  The buffer stays readable. */
+  void releaseOffHeap() {
+    if( OFFHEAP_RELEASED_UPDATER.compareAndSet(this, 0, 1) )
+      freeOffHeapOnce();
+  }
+  // Released (1) with a buffer present: account the free exactly once (2),
+  // whichever of the storing or releasing threads gets here first.
+  private void freeOffHeapOnce() {
+    ByteBuffer off = _offheap;
+    if( off != null && _offheapReleased == 1 && OFFHEAP_RELEASED_UPDATER.compareAndSet(this, 1, 2) )
+      MemoryManager.freeOffHeap(off.capacity());
+  }
+
+  private byte[] loadOffHeap(ByteBuffer off) {
+    byte[] mem = MemoryManager.malloc1(off.capacity());
+    off.duplicate().get(mem);
+    return mem;
+  }
+
+  // A view of the persisted bytes without a heap copy, or null if the
+  // backend (or a racing delete) cannot provide one.
+  private ByteBuffer loadPersistView() {
+    try { return H2O.getPM().loadView(backend(), this); }
+    catch( IOException ioe ) { throw Log.throwErr(ioe); }
+  }
+
   String nameOfPersist() { return nameOfPersist(backend()); }
   /** One of ICE, HDFS, S3, NFS or TCP, according to where this Value is persisted.
    *  @return Short String of the persitance name */
@@ -359,7 +463,19 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // and the normal serializer then might ship over a null instead of the
   // intended byte[].  Also, the value is NOT on the deserialize'd machines disk
   public final AutoBuffer write_impl( AutoBuffer ab ) {
-    return ab.put1(_persist).put2(_type).putA1(memOrLoad());
+    ab.put1(_persist).put2(_type);
+    // Big Values headed for another node without a heap copy at hand go
+    // straight to the socket: from the off-heap copy, the mapped swap, or
+    // the swap file.  Same bytes on the wire as putA1(byte[]).
+    if( _mem == null && _pojo == null && ab.zeroCopy(_max) ) {
+      ByteBuffer off = _offheap; // Read once!
+      if( off != null ) return ab.putA1Direct(off.asReadOnlyBuffer());
+      if( isPersisted() ) {
+        ByteBuffer view = loadPersistView();
+        return view != null ? ab.putA1Direct(view) : ab.putA1Persisted(this,backend());
+      }
+    }
+    return ab.putA1(memOrLoad());
   }
   // Custom serializer: set _max from _mem length; set replicas & timestamp.
   public final Value read_impl(AutoBuffer bb) {
@@ -12,6 +12,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /** Class to auto-gen serializer delegate classes.  */
@@ -454,14 +455,32 @@ public class Weaver {
       }
     // For all fields...
     CtField ctfs[] = iced_cc.getDeclaredFields();
+    ArrayList<CtField> flds = new ArrayList<>();
     for( CtField ctf : ctfs ) {
-      if( mimpl == null ) break; // Custom serializer, do not dump fields
       int mods = ctf.getModifiers();
       if( javassist.Modifier.isTransient(mods) || javassist.Modifier.isStatic(mods) )
         continue;  // Only serialize not-transient instance fields (not static)
       if (ctf.hasAnnotation(API.class))
         if( ((API)ctf.getAvailableAnnotations()[0]).json() == false )
           continue;
+      flds.add(ctf);
+    }
+    boolean packs = PACKED && (impl.equals("write") || impl.equals("read"));
+    for( int fi = 0; fi < flds.size(); fi++ ) {
+      if( mimpl == null ) break; // Custom serializer, do not dump fields
+      CtField ctf = flds.get(fi);
+      int mods = ctf.getModifiers();
+      if( packs ) {             // Run of primitives: one bounds check for all
+        int fj = fi, bytes = 0;
+        while( fj < flds.size() && ftype(iced_cc, flds.get(fj).getSignature()) < 8 &&
+               bytes + PRIM_SZ[ftype(iced_cc, flds.get(fj).getSignature())] <= MAX_PACKED )
+          bytes += PRIM_SZ[ftype(iced_cc, flds.get(fj++).getSignature())];
+        if( fj - fi >= 2 ) {
+          packed(sb, iced_cc, iced_clazz, impl.equals("read"), flds.subList(fi, fj), bytes, fi);
+          fi = fj - 1;
+          continue;
+        }
+      }
       if( field_sep1 != null ) { sb.append(field_sep1); field_sep1 = null; }
       else if( field_sep2 != null ) sb.append(field_sep2);
 
@@ -502,6 +521,36 @@ public class Weaver {
     return body;
   }
 
+  // Packed primitives.  A run of primitive fields is written (read) through
+  // one ByteBuffer with room for (holding) all of them, instead of one
+  // AutoBuffer call and bounds check per field.  The bytes are the same
+  // either way, so packed and unpacked nodes interoperate.
+  static final boolean PACKED = !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "weaver.packed.disable");
+  private static final int MAX_PACKED = 256; // Max bytes per run; fits any AutoBuffer
+  static private final int[] PRIM_SZ = {1,1,2,2,4,4,8,8};
+  static private final String[] PRIM_BB = {"","","Char","Short","Int","Float","Long","Double"};
+  static private final String[] PRIM_UNSAFE = {"Boolean","Byte","Char","Short","Int","Float","Long","Double"};
+
+  private static void packed( StringBuilder sb, CtClass iced_cc, Class iced_clazz, boolean read, List<CtField> run, int bytes, int idx ) throws NotFoundException, NoSuchFieldException {
+    String bb = "bb"+idx;
+    sb.append("    java.nio.ByteBuffer ").append(bb).append(read ? " = ab.getPacked(" : " = ab.putPacked(").append(bytes).append(");\n");
+    for( CtField ctf : run ) {
+      int mods = ctf.getModifiers();
+      int ft = ftype(iced_cc, ctf.getSignature());
+      boolean can_access = !javassist.Modifier.isPrivate(mods) && !(read && javassist.Modifier.isFinal(mods));
+      String fld = can_access ? null : "ice,"+_unsafe.objectFieldOffset(iced_clazz.getDeclaredField(ctf.getName()))+"L";
+      if( read ) {
+        String v = bb+".get"+PRIM_BB[ft]+"()"+(ft == 0 ? " != 0" : "");
+        sb.append(can_access ? "    ice."+ctf.getName()+" = "+v+";\n"
+                             : "    _unsafe.put"+PRIM_UNSAFE[ft]+"("+fld+","+v+");  //"+ctf.getName()+"\n");
+      } else {
+        String v = can_access ? "ice."+ctf.getName() : "_unsafe.get"+PRIM_UNSAFE[ft]+"("+fld+")";
+        if( ft == 0 ) v = "(byte)("+v+" ? 1 : 0)";
+        sb.append("    ").append(bb).append(".put").append(PRIM_BB[ft]).append("(").append(v).append(");\n");
+      }
+    }
+  }
+
   // Add a gen'd method.  Politely print if there's an error during generation.
   private static void addMethod( String body, CtClass icer_cc ) throws CannotCompileException {
     try {
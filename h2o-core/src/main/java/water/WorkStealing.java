@@ -0,0 +1,185 @@
+package water;
+
+import jsr166y.ForkJoinPool;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.init.NetworkProbe;
+import water.nbhm.NonBlockingHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/** Cross-node work stealing for MRTasks over Frames.
+ *  <p>
+ *  A map call normally runs on the home node of its Chunk, so a Frame whose
+ *  Chunks are unevenly spread (after a filter, a merge, an uneven parse)
+ *  leaves most nodes idle while one maps the bulk of it.  With {@code
+ *  -Dsys.ai.h2o.mrtask.steal}, a node which has mapped all its own Chunks
+ *  asks its peers for some of theirs not yet started, fetches them and maps
+ *  them itself; its results reduce into the MRTask's as usual.  Every node
+ *  keeps a table of its own Chunks, claimed once by whichever node maps
+ *  them, so each is mapped exactly once.
+ *  <p>
+ *  A peer gives up a Chunk only if shipping and mapping it elsewhere is
+ *  quicker than its own threads would get to it: the Chunk's bytes over the
+ *  bandwidth to the thief (from {@link NetworkProbe} if running, else
+ *  {@code mrtask.steal.bandwidth}, 100MB/s), plus the peer's mean map time,
+ *  against the peer's queued map calls times that mean, over its threads.
+ *  One thief per node asks its peers in turn for a batch of Chunks for all
+ *  its threads, and maps each batch in parallel.  Peers which have not
+ *  started the MRTask or mapped anything yet, or had nothing worth shipping,
+ *  are asked again after a backoff doubling from 10ms to 320ms, blocking the
+ *  thief's thread as a {@link ForkJoinPool.ManagedBlocker}; the thief gives
+ *  up after 8 rounds in a row with nothing stolen, or when every peer has
+ *  all its Chunks claimed or is done with the MRTask.
+ *  <p>
+ *  Stealing changes which node maps a Chunk, but not the map/reduce
+ *  contract; Chunks written by stolen map calls are written back to their
+ *  home.  MRTasks run local, over Keys, or on a one-node cloud never steal.
+ */
+public final class WorkStealing {
+  public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "mrtask.steal");
+  private static volatile boolean _enabled = ENABLED;
+  static final int BATCH = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "mrtask.steal.batch", 2));
+  static final double BANDWIDTH = Double.parseDouble(System.getProperty(SYSTEM_PROP_PREFIX + "mrtask.steal.bandwidth", "1e8"));
+  static final int RETRY_MS = 10;       // First wait before asking again peers with nothing to give yet
+  static final int MAX_RETRY_MS = 320;  // Longest wait
+  static final int MAX_RETRIES = 8;     // Rounds in a row with nothing stolen before giving up
+  static final long DONE_MS = 60000;    // How long finished MRTasks are remembered
+
+  private WorkStealing() {}
+
+  /** Should an MRTask over this Frame steal? */
+  static boolean active( Frame fr, boolean run_local ) {
+    return _enabled && !run_local && fr != null && fr.numCols() > 0 && H2O.CLOUD.size() > 1;
+  }
+
+  /** Test hook: turn stealing on or off for MRTasks started after */
+  static void setEnabled( boolean enabled ) { _enabled = enabled; }
+
+  // Tables of local Chunks of running MRTasks, by steal id
+  private static final NonBlockingHashMap<Long,Claims> CLAIMS = new NonBlockingHashMap<>();
+  // MRTasks done with their local Chunks, by steal id, and when.  Thieves
+  // asking about an id in neither map are early, not late.
+  private static final NonBlockingHashMap<Long,Long> DONE = new NonBlockingHashMap<>();
+  private static volatile long _pruned;
+
+  /** The Chunks of one MRTask homed on this node, and which are claimed */
+  static final class Claims {
+    final long _id;
+    private final Vec[] _vecs;
+    private final int _lo;
+    private final boolean[] _claimed; // Also true for Chunks homed elsewhere
+    private int _unclaimed;
+    private final AtomicLongArray _stats; // Local map calls done, nanos taken
+    Claims( long id, Frame fr, int lo, int hi, AtomicLongArray stats ) {
+      _id = id;
+      _vecs = fr.vecs();
+      _lo = lo;
+      _claimed = new boolean[hi - lo];
+      Vec v0 = fr.anyVec();
+      for( int i = lo; i < hi; i++ )
+        if( !(_claimed[i - lo] = !v0.chunkKey(i).home()) ) _unclaimed++;
+      _stats = stats;
+    }
+
+    /** Claim a local Chunk for a local map call; false if stolen already */
+    synchronized boolean claim( int cidx ) {
+      if( _claimed[cidx - _lo] ) return false;
+      _claimed[cidx - _lo] = true;
+      _unclaimed--;
+      return true;
+    }
+
+    // Claim up to max Chunks from the end of the table, as long as moving
+    // them to the thief is quicker than waiting here.  None: all claimed.
+    // Null: nothing to give now, ask again later.
+    synchronized int[] grant( double bandwidth, int max ) {
+      if( _unclaimed == 0 ) return new int[0];
+      long done = _stats.get(0);
+      if( done == 0 ) return null; // No map time to go by yet
+      double map = _stats.get(1) / 1e9 / done;
+      int[] got = new int[max];
+      int n = 0;
+      for( int i = _claimed.length - 1; i >= 0 && n < max; i-- ) {
+        if( _claimed[i] ) continue;
+        double wait = (_unclaimed - 1) * map / H2O.ARGS.nthreads;
+        if( wait <= bytes(i + _lo) / bandwidth + map ) break;
+        _claimed[i] = true;
+        _unclaimed--;
+        got[n++] = i + _lo;
+      }
+      return n == 0 ? null : Arrays.copyOf(got, n);
+    }
+
+    private long bytes( int cidx ) {
+      long sz = 0;
+      for( Vec v : _vecs ) {
+        Value val = v == null ? null : Value.STORE_get(v.chunkKey(cidx));
+        if( val != null ) sz += val._max;
+      }
+      return sz;
+    }
+  }
+
+  static Claims register( long id, Frame fr, int lo, int hi, AtomicLongArray stats ) {
+    Claims c = new Claims(id, fr, lo, hi, stats);
+    CLAIMS.put(id, c);
+    return c;
+  }
+
+  /** All local Chunks are claimed, or the MRTask failed: thieves need not
+   *  ask any more.  Idempotent. */
+  static void unregister( Claims c ) {
+    if( CLAIMS.remove(c._id) == null ) return;
+    long now = System.currentTimeMillis();
+    DONE.put(c._id, now);
+    if( now - _pruned < DONE_MS ) return;
+    _pruned = now;
+    for( Map.Entry<Long,Long> e : DONE.entrySet() )
+      if( now - e.getValue() > DONE_MS ) DONE.remove(e.getKey());
+  }
+
+  /** Local Chunk tables registered, for tests */
+  static int registered() { return CLAIMS.size(); }
+
+  /** Ask the victim for up to max Chunks of the MRTask to map here: their
+   *  indices, none if the victim has all its Chunks claimed or is done, or
+   *  null to ask again later */
+  static int[] steal( H2ONode victim, long id, int max ) {
+    double bw = NetworkProbe.bandwidth(victim);
+    return new RPC<>(victim, new Steal(id, bw > 0 ? bw : BANDWIDTH, max)).call().get()._chunks;
+  }
+
+  /** Wait ms before asking again, without starving the F/J pool */
+  static void backoff( long ms ) {
+    final long deadline = System.currentTimeMillis() + ms;
+    try {
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        @Override public boolean isReleasable() { return System.currentTimeMillis() >= deadline; }
+        @Override public boolean block() throws InterruptedException {
+          long left = deadline - System.currentTimeMillis();
+          if( left > 0 ) Thread.sleep(left);
+          return true;
+        }
+      });
+    } catch( InterruptedException ignore ) { }
+  }
+
+  private static class Steal extends DTask<Steal> {
+    final long _id;
+    final double _bandwidth;
+    final int _max;
+    int[] _chunks;
+    Steal( long id, double bandwidth, int max ) { super(H2O.MIN_HI_PRIORITY); _id = id; _bandwidth = bandwidth; _max = max; }
+    @Override public void compute2() {
+      Claims c = CLAIMS.get(_id);
+      if( c != null ) _chunks = c.grant(_bandwidth, _max);
+      else _chunks = DONE.containsKey(_id) ? new int[0] : null; // Finished, or not started here yet
+      tryComplete();
+    }
+  }
+}
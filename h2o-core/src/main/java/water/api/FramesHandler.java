@@ -4,6 +4,7 @@ import hex.Model;
 import water.*;
 import water.api.schemas3.*;
 import water.exceptions.*;
+import water.fvec.BinaryFrame;
 import water.fvec.Frame;
 import water.fvec.Vec;
 import water.util.Log;
@@ -248,6 +249,29 @@ public class FramesHandler<I extends FramesHandler.Frames, S extends SchemaV3<I,
     return s;
   }
 
+  /** Export a single frame to the specified path, in the native binary format. */
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public FramesV3 exportBinary(int version, FramesV3 s) {
+    Frame fr = getFromDKV("key", s.frame_id.key());
+    try {
+      BinaryFrame.export(fr, s.path, s.force);
+    } catch (FSIOException e) {
+      throw new H2OIllegalArgumentException("path", "exportBinary", e);
+    }
+    return s;
+  }
+
+  /** Import a frame in the native binary format from the specified path. */
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public FramesV3 importBinary(int version, FramesV3 s) {
+    try {
+      BinaryFrame.importFrame(s.path, s.frame_id.key());
+    } catch (IllegalArgumentException | FSIOException e) {
+      throw new H2OIllegalArgumentException("path", "importBinary", e.getMessage());
+    }
+    return s;
+  }
+
   @SuppressWarnings("unused") // called through reflection by RequestServer
   // TODO: return list of FrameSummaryV3 that has histograms et al.
   public FramesV3 summary(int version, FramesV3 s) {
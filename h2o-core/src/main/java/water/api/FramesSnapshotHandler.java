@@ -0,0 +1,36 @@
+package water.api;
+
+import water.api.schemas3.FramesSnapshotV3;
+import water.api.schemas3.KeyV3;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.FrameSnapshot;
+
+public class FramesSnapshotHandler extends Handler {
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public FramesSnapshotV3 save(int version, FramesSnapshotV3 s) {
+    try {
+      return fill(s, FrameSnapshot.save(s.dir, s.force));
+    } catch (IllegalArgumentException e) {
+      throw new H2OIllegalArgumentException(e.getMessage());
+    }
+  }
+
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public FramesSnapshotV3 restore(int version, FramesSnapshotV3 s) {
+    try {
+      return fill(s, FrameSnapshot.restore(s.dir));
+    } catch (IllegalArgumentException e) {
+      throw new H2OIllegalArgumentException(e.getMessage());
+    }
+  }
+
+  private static FramesSnapshotV3 fill(FramesSnapshotV3 s, FrameSnapshot.Stats stats) {
+    s.frames = new KeyV3.FrameKeyV3[stats._frames.length];
+    for (int i = 0; i < s.frames.length; i++)
+      s.frames[i] = new KeyV3.FrameKeyV3(stats._frames[i]);
+    s.chunks = stats._chunks;
+    s.bytes = stats._bytes;
+    s.msec = stats._msecs;
+    return s;
+  }
+}
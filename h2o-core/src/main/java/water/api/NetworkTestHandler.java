@@ -1,8 +1,10 @@
 package water.api;
 
 import water.api.schemas3.NetworkBenchV3;
+import water.api.schemas3.NetworkProbeV3;
 import water.api.schemas3.NetworkTestV3;
 import water.init.NetworkBench;
+import water.init.NetworkProbe;
 import water.init.NetworkTest;
 
 public class NetworkTestHandler extends Handler {
@@ -12,6 +14,10 @@ public class NetworkTestHandler extends Handler {
   }
   @SuppressWarnings("unused") // called through reflection by RequestServer
   public NetworkBenchV3 runBench(int version, NetworkBenchV3 nb){ return nb.fillFromImpl(new NetworkBench().doTest());}
+  @SuppressWarnings("unused") // called through reflection by RequestServer
+  public NetworkProbeV3 probes(int version, NetworkProbeV3 np) {
+    return np.fillFromImpl(new NetworkProbe.Report().execImpl());
+  }
 
 
 }
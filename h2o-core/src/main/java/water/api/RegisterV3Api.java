@@ -91,6 +91,10 @@ public class RegisterV3Api extends AbstractRegister {
             "GET /3/NetworkTest", NetworkTestHandler.class, "fetch",
             "Run a network test to measure the performance of the cluster interconnect.");
 
+    context.registerEndpoint("networkProbe",
+            "GET /3/NetworkProbe", NetworkTestHandler.class, "probes",
+            "Report the round trip times and bandwidths measured continuously between all nodes (see -Dsys.ai.h2o.netprobe.interval).");
+
     context.registerEndpoint("unlockAllKeys",
             "POST /3/UnlockKeys", UnlockKeysHandler.class, "unlock",
             "Unlock all keys in the H2O distributed K/V store, to attempt to recover from a crash.");
@@ -229,6 +233,24 @@ public class RegisterV3Api extends AbstractRegister {
             "GET /3/PartialDependence/{name}", ModelsHandler.class, "fetchPartialDependence",
             "Fetch partial dependence data.");
 
+    // Frame serialization - native binary import/export calls
+    context.registerEndpoint("importFrameBinary",
+            "POST /99/Frames.bin/{frame_id}", FramesHandler.class, "importBinary",
+            "Import a frame from a file in the native binary format.");
+
+    context.registerEndpoint("exportFrameBinary",
+            "GET /99/Frames.bin/{frame_id}", FramesHandler.class, "exportBinary",
+            "Export a frame to a file in the native binary format, storing chunks as-is.");
+
+    // Frame snapshots - save all frames, and warm restore without parsing
+    context.registerEndpoint("saveFrames",
+            "POST /99/Frames.snapshot", FramesSnapshotHandler.class, "save",
+            "Snapshot all frames to a directory, in chunk-native format.");
+
+    context.registerEndpoint("restoreFrames",
+            "POST /99/Frames.snapshot/restore", FramesSnapshotHandler.class, "restore",
+            "Restore all frames from a snapshot directory.");
+
     // Model serialization - import/export calls
     context.registerEndpoint("importModel",
             "POST /99/Models.bin/{model_id}", ModelsHandler.class, "importModel",
@@ -4,6 +4,7 @@ import water.H2O;
 import water.Iced;
 import water.TimeLine;
 import water.api.schemas3.TimelineV3;
+import water.init.NetworkProbe;
 import water.init.TimelineSnapshot;
 
 /** UDP Timeline
@@ -12,6 +13,7 @@ import water.init.TimelineSnapshot;
 public class TimelineHandler extends Handler {
   public static final class Timeline extends Iced {
     public TimelineSnapshot snapshot;
+    public NetworkProbe.LinkStats[] probes; // Latest network probes from this node
   }
 
   // TODO: should return a base class for TimelineVx
@@ -19,6 +21,7 @@ public class TimelineHandler extends Handler {
   public TimelineV3 fetch(int version, TimelineV3 s) {
     Timeline t = s.createAndFillImpl();
     t.snapshot = new TimelineSnapshot(H2O.CLOUD,TimeLine.system_snapshot());
+    t.probes = NetworkProbe.localStats();
     return s.fillFromImpl(t);
   }
 }
@@ -142,10 +142,30 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
     public long max_mem;
     @API(help="Size of data on node's disk", direction=API.Direction.OUTPUT)
     public long swap_mem;
+    @API(help="Size of data held off-heap", direction=API.Direction.OUTPUT)
+    public long offheap_mem;
 
     @API(help="#local keys", direction=API.Direction.OUTPUT)
     public int num_keys;
 
+    @API(help="Gets of remote keys served from the local replica", direction=API.Direction.OUTPUT)
+    public long replica_hits;
+    @API(help="Gets of remote keys fetched from their home", direction=API.Direction.OUTPUT)
+    public long replica_misses;
+    @API(help="Local replicas invalidated by their home", direction=API.Direction.OUTPUT)
+    public long replica_invalidations;
+    @API(help="Local replicas dropped to stay under the replica cache limit", direction=API.Direction.OUTPUT)
+    public long replica_evictions;
+    @API(help="Size of local replicas of remote keys", direction=API.Direction.OUTPUT)
+    public long replica_mem;
+
+    @API(help="Wire compression of big messages enabled", direction=API.Direction.OUTPUT)
+    public boolean wire_compress;
+    @API(help="Bytes sent over compressed connections, before compression", direction=API.Direction.OUTPUT)
+    public long wire_raw_bytes;
+    @API(help="Bytes saved by wire compression", direction=API.Direction.OUTPUT)
+    public long wire_bytes_saved;
+
     @API(help="Free disk", direction=API.Direction.OUTPUT)
     public long free_disk;
     @API(help="Max disk", direction=API.Direction.OUTPUT)
@@ -189,8 +209,17 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
       pojo_mem = hb.get_pojo_mem();
       free_mem = hb.get_free_mem();
       swap_mem = hb.get_swap_mem();
+      offheap_mem = hb.get_offheap_mem();
       max_mem = pojo_mem + free_mem + mem_value_size;
       num_keys = hb._keys;
+      replica_hits = hb._replica_hits;
+      replica_misses = hb._replica_misses;
+      replica_invalidations = hb._replica_invalidations;
+      replica_evictions = hb._replica_evictions;
+      replica_mem = hb.get_replica_mem();
+      wire_compress = hb._wire_compress;
+      wire_raw_bytes = hb._wire_raw_bytes;
+      wire_bytes_saved = hb._wire_raw_bytes - hb._wire_sent_bytes;
 
       // Disk health
       free_disk = hb.get_free_disk();
@@ -0,0 +1,28 @@
+package water.api.schemas3;
+
+import water.Iced;
+import water.api.API;
+
+/**
+ * Snapshot of all Frames to a directory, and restore from one.
+ */
+public class FramesSnapshotV3 extends RequestSchemaV3<Iced, FramesSnapshotV3> {
+
+  @API(help="Snapshot directory (hdfs, local)", required=true)
+  public String dir;
+
+  @API(help="Overwrite a prior snapshot in the directory, or throw exception if set to false.")
+  public boolean force = false;
+
+  @API(help="Frames saved or restored", direction=API.Direction.OUTPUT)
+  public KeyV3.FrameKeyV3[] frames;
+
+  @API(help="Number of chunks saved or restored", direction=API.Direction.OUTPUT)
+  public long chunks;
+
+  @API(help="Bytes of chunk data saved or restored", direction=API.Direction.OUTPUT)
+  public long bytes;
+
+  @API(help="Time taken in milliseconds", direction=API.Direction.OUTPUT)
+  public long msec;
+}
@@ -48,6 +48,12 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
   @API(help="ready for view", direction=API.Direction.OUTPUT)
   public boolean ready_for_view;
 
+  @API(help="Projected memory use in bytes, for admission control", direction=API.Direction.OUTPUT)
+  public long memory_estimate;
+
+  @API(help="Relative share of the cores when sharing them with other jobs", direction=API.Direction.OUTPUT)
+  public float share_weight;
+
   //==========================
   // Custom adapters go here
 
@@ -90,6 +96,8 @@ public class JobV3 extends SchemaV3<Job, JobV3> {
     }
     msec = job.msec();
     ready_for_view = job.readyForView();
+    memory_estimate = job.memoryEstimate();
+    share_weight = job.shareWeight();
 
     Keyed dest_type = (Keyed)TypeMap.theFreezable(job._typeid);
     dest = job._result == null ? null : KeyV3.make(dest_type.makeSchema(),job._result);
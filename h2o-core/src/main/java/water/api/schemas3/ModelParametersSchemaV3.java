@@ -154,6 +154,9 @@ public class ModelParametersSchemaV3<P extends Model.Parameters, S extends Model
   @API(help = "Maximum allowed runtime in seconds for model training. Use 0 to disable.", level = API.Level.secondary, direction=API.Direction.INOUT, gridable = true)
   public double max_runtime_secs;
 
+  @API(help = "Relative share of the cores for this training job when several jobs share the cloud (0 for the default)", level = API.Level.expert, direction=API.Direction.INOUT)
+  public float share_weight;
+
   /**
    * Metric to use for convergence checking, only for _stopping_rounds > 0
    */
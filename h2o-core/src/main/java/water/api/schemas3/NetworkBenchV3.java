@@ -9,6 +9,9 @@ public class NetworkBenchV3 extends RequestSchemaV3<NetworkBench, NetworkBenchV3
   @API(help="NetworkBenchResults", direction = API.Direction.OUTPUT)
   TwoDimTableV3[] results;
 
+  @API(help="Loopback channel throughput, plain and SSL", direction = API.Direction.OUTPUT)
+  TwoDimTableV3 channels;
+
   @Override
   public NetworkBenchV3 fillFromImpl(NetworkBench impl) {
     if(impl._results != null) {
@@ -16,6 +19,8 @@ public class NetworkBenchV3 extends RequestSchemaV3<NetworkBench, NetworkBenchV3
       for(int i = 0; i < results.length; ++i)
         results[i] = (TwoDimTableV3)new TwoDimTableV3().fillFromImpl(impl._results[i].to2dTable());
     }
+    if(impl._channels != null)
+      channels = (TwoDimTableV3)new TwoDimTableV3().fillFromImpl(impl._channels);
     return this;
   }
 
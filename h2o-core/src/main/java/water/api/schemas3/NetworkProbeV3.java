@@ -0,0 +1,51 @@
+package water.api.schemas3;
+
+import water.api.API;
+import water.init.NetworkProbe;
+import water.init.NetworkProbe.LinkStats;
+
+public class NetworkProbeV3 extends RequestSchemaV3<NetworkProbe.Report, NetworkProbeV3> {
+
+  @API(help="Whether nodes probe each other (-Dsys.ai.h2o.netprobe.interval)", direction=API.Direction.OUTPUT)
+  public boolean enabled;
+
+  @API(help="Seconds between probes", direction=API.Direction.OUTPUT)
+  public int interval_secs;
+
+  @API(help="One entry per probed link, from each node to each other node", direction=API.Direction.OUTPUT)
+  public LinkStatsV3[] links;
+
+  public static class LinkStatsV3 extends SchemaV3<LinkStats, LinkStatsV3> {
+    public LinkStatsV3() { }
+
+    @API(help="Probing node", direction=API.Direction.OUTPUT)
+    public String from;
+
+    @API(help="Probed node", direction=API.Direction.OUTPUT)
+    public String to;
+
+    @API(help="Round trips measured", direction=API.Direction.OUTPUT)
+    public int samples;
+
+    @API(help="Probes timed out", direction=API.Direction.OUTPUT)
+    public long failures;
+
+    @API(help="Unix epoch time of the last probe", direction=API.Direction.OUTPUT)
+    public long last_ms;
+
+    @API(help="Median round trip time in microseconds, over the recent probes", direction=API.Direction.OUTPUT)
+    public double rtt_p50_us;
+
+    @API(help="99th percentile round trip time in microseconds, over the recent probes", direction=API.Direction.OUTPUT)
+    public double rtt_p99_us;
+
+    @API(help="Max round trip time in microseconds, over the recent probes", direction=API.Direction.OUTPUT)
+    public double rtt_max_us;
+
+    @API(help="Median bi-directional bandwidth in Bytes/sec, over the recent probes", direction=API.Direction.OUTPUT)
+    public double bandwidth;
+
+    @API(help="Recent round trips per power-of-2 bucket: entry i counts times in [2^i, 2^(i+1)) microseconds", direction=API.Direction.OUTPUT)
+    public long[] rtt_histogram;
+  }
+}
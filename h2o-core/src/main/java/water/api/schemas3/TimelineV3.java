@@ -3,7 +3,9 @@ package water.api.schemas3;
 import water.*;
 import water.api.API;
 import water.api.TimelineHandler.Timeline;
+import water.init.NetworkProbe;
 import water.init.TimelineSnapshot;
+import water.util.PrettyPrint;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -30,8 +32,8 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
     @API(help="Time in nanos")
     private final long nanos;
 
-    enum EventType {unknown, heartbeat, network_msg, io}
-    @API(help="type of recorded event", values = {"unknown", "heartbeat", "network_msg", "io"})
+    enum EventType {unknown, heartbeat, network_msg, io, network_probe}
+    @API(help="type of recorded event", values = {"unknown", "heartbeat", "network_msg", "io", "network_probe"})
     private final EventType type;
 
     @SuppressWarnings("unused")
@@ -123,6 +125,34 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
     @Override public    String toString() { return "I_O('" + io_flavor + "')"; }
   } // IOEvent
 
+  public static class ProbeEvent extends EventV3<Iced, ProbeEvent> {
+    @API(help="Probing node")
+    private final String from;
+    @API(help="Probed node")
+    private final String to;
+    @API(help="Median round trip time in microseconds, over the recent probes")
+    private final double rtt_p50_us;
+    @API(help="Median bi-directional bandwidth in Bytes/sec, over the recent probes")
+    private final double bandwidth;
+    @API(help="Probes timed out")
+    private final long failures;
+
+    public ProbeEvent() { super(); from = "unknown"; to = "unknown"; rtt_p50_us = -1; bandwidth = -1; failures = -1; }
+    private ProbeEvent(NetworkProbe.LinkStats ls){
+      super(EventType.network_probe,ls._last_ms,0);
+      this.from = ls._from;
+      this.to = ls._to;
+      this.rtt_p50_us = ls._rtt_p50_us;
+      this.bandwidth = ls._bandwidth;
+      this.failures = ls._failures;
+    }
+    @Override protected String who() { return from + " -> " + to;}
+    @Override protected String ioType() {return "probe";}
+    @Override protected String event() {return "network_probe";}
+    @Override public    String bytes() {return PrettyPrint.usecs((long)rtt_p50_us) + ", " + PrettyPrint.bytesPerSecond((long)bandwidth) + ", " + failures + " failed";}
+    @Override public    String toString() { return "NetworkProbe(" + from + " -> " + to + ", " + bytes() + ")"; }
+  } // ProbeEvent
+
   @Override public TimelineV3 fillFromImpl(Timeline timeline) {
     ArrayList<EventV3> outputEvents = new ArrayList<>();
     ArrayList<TimelineSnapshot.Event> heartbeats = new ArrayList();
@@ -178,6 +208,9 @@ public class TimelineV3 extends RequestSchemaV3<Timeline,TimelineV3> {
         }
       }
     } // if timeline.snapshot
+    if (null != timeline.probes)
+      for (NetworkProbe.LinkStats ls : timeline.probes)
+        outputEvents.add(new ProbeEvent(ls));
     events = outputEvents.toArray(new EventV3[null == outputEvents ? 0 : outputEvents.size()]);
     return this;
   }
@@ -0,0 +1,213 @@
+package water.fvec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+
+import water.*;
+import water.persist.Persist;
+import water.util.FileUtils;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+/** A columnar binary file format for a single Frame, storing the compressed
+ *  Chunk bytes as-is, so a Frame can be exported and imported again without
+ *  a CSV round trip or a re-parse.
+ *  <p>
+ *  Layout: a {@link #MAGIC} header; the Chunks of column 0 in order, then of
+ *  column 1, and so on; a {@link Footer}; and finally the footer length (8
+ *  bytes, big-endian) and the magic again.  The footer is the index: column
+ *  names, types, domains and row layout, plus the offset, length and Chunk
+ *  class of every Chunk.  It is written field by field with the {@link
+ *  AutoBuffer} primitives, and Chunk classes are recorded by name, as type
+ *  ids are not stable across clouds.
+ *  <p>
+ *  Files are read and written through the {@link Persist} backend for their
+ *  URI, so local, HDFS and S3 paths all work.  Export streams the Chunks to one
+ *  file from the calling node; remote Chunks it pulls stay cached until the
+ *  Cleaner evicts them.  Import has every node read just the Chunks it homes,
+ *  opening the file at each run of them with {@link Persist#open(String,long)}
+ *  (a seek, or a ranged GET on S3), so no node downloads the whole file.
+ */
+public class BinaryFrame {
+  static final byte[] MAGIC = {'H','2','O','F','R','M','0','1'};
+  // Gaps between a node's Chunks up to this are read through, not reopened
+  static final long MAX_SKIP = 1 << 20;
+
+  // The index at the end of the file
+  private static class Footer {
+    String[] _names;
+    byte[] _types;
+    String[][] _domains;
+    long[] _espc;
+    String[] _chunkClasses;     // Distinct Chunk class names
+    long[][] _offsets;          // Per column, per chunk: file offset...
+    int[][] _lens;              // ...length...
+    byte[][] _classes;          // ...and index into _chunkClasses
+
+    // No Iced serialization: that would record this class by type id
+    byte[] write() {
+      return new AutoBuffer().putAStr(_names).putA1(_types).putAAStr(_domains).putA8(_espc)
+        .putAStr(_chunkClasses).putAA8(_offsets).putAA4(_lens).putAA1(_classes).buf();
+    }
+    static Footer read( byte[] bits ) {
+      AutoBuffer ab = new AutoBuffer(bits);
+      Footer f = new Footer();
+      f._names = ab.getAStr();
+      f._types = ab.getA1();
+      f._domains = ab.getAAStr();
+      f._espc = ab.getA8();
+      f._chunkClasses = ab.getAStr();
+      f._offsets = ab.getAA8();
+      f._lens = ab.getAA4();
+      f._classes = ab.getAA1();
+      return f;
+    }
+  }
+
+  private static Persist persist( URI uri ) { return H2O.getPM().getPersistForURI(uri); }
+
+  /** Export a Frame to the given path.
+   *  @return Bytes written */
+  public static long export( Frame fr, String path, boolean overwrite ) {
+    URI uri = FileUtils.getURI(path);
+    Vec[] vecs = fr.vecs();
+    int ncols = vecs.length, nchks = fr.anyVec().nChunks();
+    Footer f = new Footer();
+    f._names = fr.names().clone();
+    f._types = new byte[ncols];
+    f._domains = new String[ncols][];
+    f._espc = fr.anyVec().espc();
+    f._offsets = new long[ncols][nchks];
+    f._lens = new int[ncols][nchks];
+    f._classes = new byte[ncols][nchks];
+    String[] classes = new String[0];
+    long off = 0;
+    try( OutputStream os = persist(uri).create(uri.toString(), overwrite) ) {
+      os.write(MAGIC);
+      off += MAGIC.length;
+      for( int c = 0; c < ncols; c++ ) {
+        f._types[c] = vecs[c].get_type();
+        f._domains[c] = vecs[c].domain();
+        for( int i = 0; i < nchks; i++ ) {
+          Key ck = vecs[c].chunkKey(i);
+          Value val = DKV.get(ck);       // Pull Chunk local
+          byte[] bits = val.memOrLoad();
+          String cls = TypeMap.className(val.type());
+          int ci = Arrays.asList(classes).indexOf(cls);
+          if( ci == -1 ) { classes = Arrays.copyOf(classes, (ci = classes.length) + 1); classes[ci] = cls; }
+          if( ci > Byte.MAX_VALUE ) throw H2O.fail("Too many Chunk classes");
+          os.write(bits);
+          f._offsets[c][i] = off;
+          f._lens[c][i] = bits.length;
+          f._classes[c][i] = (byte)ci;
+          off += bits.length;
+        }
+      }
+      f._chunkClasses = classes;
+      byte[] footer = f.write();
+      os.write(footer);
+      os.write(longBytes(footer.length));
+      os.write(MAGIC);
+      off += footer.length + 8 + MAGIC.length;
+    } catch( IOException e ) {
+      throw new RuntimeException("Failed to export " + fr._key + " to " + path, e);
+    }
+    Log.info("Exported " + fr._key + " to " + path + ": " + PrettyPrint.bytes(off));
+    return off;
+  }
+
+  private static byte[] longBytes( long x ) {
+    byte[] b = new byte[8];
+    for( int i = 7; i >= 0; i-- ) { b[i] = (byte)x; x >>>= 8; }
+    return b;
+  }
+
+  private static Footer readFooter( URI uri ) throws IOException {
+    Persist p = persist(uri);
+    String path = uri.toString();
+    long len = p.length(path);
+    byte[] head = new byte[MAGIC.length];
+    byte[] tail = new byte[8 + MAGIC.length];
+    if( len < head.length + tail.length ) throw new IOException("Not a binary frame file: " + uri);
+    try( InputStream is = p.open(path) ) { new DataInputStream(is).readFully(head); }
+    try( InputStream is = p.open(path, len - tail.length) ) { new DataInputStream(is).readFully(tail); }
+    if( !Arrays.equals(head, MAGIC) || !Arrays.equals(Arrays.copyOfRange(tail, 8, tail.length), MAGIC) )
+      throw new IOException("Not a binary frame file: " + uri);
+    long flen = 0;
+    for( int i = 0; i < 8; i++ ) flen = (flen << 8) | (tail[i] & 0xFF);
+    byte[] footer = new byte[(int)flen];
+    try( InputStream is = p.open(path, len - tail.length - flen) ) {
+      new DataInputStream(is).readFully(footer);
+    }
+    return Footer.read(footer);
+  }
+
+  /** Import a Frame exported by {@link #export}, as a new Frame at the given
+   *  Key.  Every node reads the Chunks it homes, in parallel. */
+  public static Frame importFrame( String path, Key<Frame> dest ) {
+    if( DKV.get(dest) != null ) throw new IllegalArgumentException("Cannot import " + path + ": " + dest + " already exists");
+    URI uri = FileUtils.getURI(path);
+    Footer f;
+    try { f = readFooter(uri); }
+    catch( IOException e ) { throw new IllegalArgumentException("Failed to import " + path + ": " + e.getMessage(), e); }
+    int ncols = f._names.length;
+    if( ncols == 0 ) throw new IllegalArgumentException("Failed to import " + path + ": no columns");
+    Key<Vec>[] keys = new Vec.VectorGroup().addVecs(ncols);
+    int rowLayout = Vec.ESPC.rowLayout(keys[0], f._espc);
+    short[] types = new short[f._chunkClasses.length];
+    for( int i = 0; i < types.length; i++ ) types[i] = (short)TypeMap.onIce(f._chunkClasses[i]);
+    new ReadChunks(uri.toString(), keys, f._offsets, f._lens, f._classes, types).doAllNodes();
+    Futures fs = new Futures();
+    Vec[] vecs = new Vec[ncols];
+    for( int c = 0; c < ncols; c++ )
+      DKV.put(vecs[c] = new Vec(keys[c], rowLayout, f._domains[c], f._types[c]), fs);
+    fs.blockForPending();
+    Frame fr = new Frame(dest, f._names, vecs);
+    DKV.put(fr);
+    Log.info("Imported " + path + " as " + dest + ": " + fr.numRows() + " rows, " + ncols + " columns");
+    return fr;
+  }
+
+  // Each node reads the Chunks it homes, in file order
+  private static class ReadChunks extends MRTask<ReadChunks> {
+    final String _uri;
+    final Key<Vec>[] _keys;
+    final long[][] _offsets;
+    final int[][] _lens;
+    final byte[][] _classes;
+    final short[] _types;
+    ReadChunks( String uri, Key<Vec>[] keys, long[][] offsets, int[][] lens, byte[][] classes, short[] types ) {
+      _uri = uri; _keys = keys; _offsets = offsets; _lens = lens; _classes = classes; _types = types;
+    }
+    @Override public void setupLocal() {
+      Persist p = persist(URI.create(_uri));
+      Futures fs = new Futures();
+      InputStream is = null;
+      long pos = 0;
+      try {
+        for( int c = 0; c < _keys.length; c++ )
+          for( int i = 0; i < _offsets[c].length; i++ ) {
+            Key ck = Vec.chunkKey(_keys[c], i);
+            if( !ck.home() ) continue;
+            long off = _offsets[c][i];
+            if( is != null && off - pos > MAX_SKIP ) { is.close(); is = null; }
+            if( is == null ) { is = p.open(_uri, off); pos = off; }
+            FileUtils.skipFully(is, off - pos);
+            byte[] bits = MemoryManager.malloc1(_lens[c][i]);
+            new DataInputStream(is).readFully(bits);
+            pos = off + bits.length;
+            DKV.put(ck, new Value(ck, bits.length, bits, _types[_classes[c][i]], Value.ICE), fs);
+          }
+      } catch( IOException e ) {
+        throw new RuntimeException("Failed to read " + _uri, e);
+      } finally {
+        FileUtils.close(is);
+      }
+      fs.blockForPending();
+    }
+  }
+}
@@ -13,15 +13,15 @@ public class C1Chunk extends Chunk {
 
 
   @Override protected final long at8_impl( int i ) {
-    long res = 0xFF&_mem[i+_OFF];
+    long res = 0xFF&get1(i+_OFF);
     if( res == _NA ) throw new IllegalArgumentException("at8_abs but value is missing");
     return res;
   }
   @Override protected final double atd_impl( int i ) {
-    long res = 0xFF&_mem[i+_OFF];
+    long res = 0xFF&get1(i+_OFF);
     return (res == _NA)?Double.NaN:res;
   }
-  @Override protected final boolean isNA_impl( int i ) { return (0xFF&_mem[i+_OFF]) == _NA; }
+  @Override protected final boolean isNA_impl( int i ) { return (0xFF&get1(i+_OFF)) == _NA; }
   @Override boolean set_impl(int i, long l) {
     if( !(0 <= l && l < 255) ) return false;
     _mem[i+_OFF] = (byte)l;
@@ -33,11 +33,11 @@ public class C1Chunk extends Chunk {
 
   @Override public void initFromBytes(){
     _start = -1;  _cidx = -1;
-    set_len(_mem.length);
+    set_len(memLen());
   }
 
   private final void processRow(int r, ChunkVisitor v){
-    int i = 0xFF&_mem[r+_OFF];
+    int i = 0xFF&get1(r+_OFF);
     if(i == _NA) v.addNAs(1);
     else v.addValue(i);
   }
@@ -56,7 +56,7 @@ public class C1Chunk extends Chunk {
 
   public int [] getIntegers(int [] vals, int from, int to, int NA){
     for(int i = from; i < to; i++) {
-      int x = 0xFF&_mem[i];
+      int x = 0xFF&get1(i);
       vals[i-from] = (x == _NA)?NA:x;
     }
     return vals;
@@ -64,7 +64,7 @@ public class C1Chunk extends Chunk {
 
   @Override public double [] getDoubles(double [] vals, int from, int to, double NA){
     for(int i = from; i < to; i++) {
-      int x = 0xFF&_mem[i];
+      int x = 0xFF&get1(i);
       vals[i-from] = (x == _NA)?NA:x;
     }
     return vals;
@@ -73,12 +73,13 @@ public class C1Chunk extends Chunk {
   @Override public double [] getDoubles(double [] vals, int [] ids){
     int k = 0;
     for(int i:ids) {
-      int x = 0xFF&_mem[i];
+      int x = 0xFF&get1(i);
       vals[k++] = (x == _NA)?Double.NaN:x;
     }
     return vals;
   }
   @Override
   public boolean hasFloat() {return false;}
+  @Override public boolean readsOffHeap() { return true; }
 
 }
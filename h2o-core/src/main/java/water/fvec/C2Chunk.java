@@ -11,15 +11,15 @@ public class C2Chunk extends Chunk {
 
   C2Chunk( byte[] bs ) { _mem=bs; _start = -1; set_len(_mem.length>>1); }
   @Override protected final long at8_impl( int i ) {
-    int res = UnsafeUtils.get2(_mem,(i<<1)+_OFF);
+    int res = get2((i<<1)+_OFF);
     if( res == _NA ) throw new IllegalArgumentException("at8_abs but value is missing");
     return res;
   }
   @Override protected final double atd_impl( int i ) {
-    int res = UnsafeUtils.get2(_mem,(i<<1)+_OFF);
+    int res = get2((i<<1)+_OFF);
     return res == _NA?Double.NaN:res;
   }
-  @Override protected final boolean isNA_impl( int i ) { return UnsafeUtils.get2(_mem,(i<<1)+_OFF) == _NA; }
+  @Override protected final boolean isNA_impl( int i ) { return get2((i<<1)+_OFF) == _NA; }
   @Override boolean set_impl(int idx, long l) {
     if( !(Short.MIN_VALUE < l && l <= Short.MAX_VALUE) ) return false;
     UnsafeUtils.set2(_mem,(idx<<1)+_OFF,(short)l);
@@ -34,7 +34,7 @@ public class C2Chunk extends Chunk {
   @Override boolean setNA_impl(int idx) { UnsafeUtils.set2(_mem,(idx<<1)+_OFF,(short)_NA); return true; }
 
   private final void processRow(int r, ChunkVisitor v){
-    int i = UnsafeUtils.get2(_mem,(r<<1)+_OFF);
+    int i = get2((r<<1)+_OFF);
     if(i == _NA) v.addNAs(1);
     else v.addValue(i);
   }
@@ -42,7 +42,7 @@ public class C2Chunk extends Chunk {
 
   @Override public double [] getDoubles(double [] vals, int from, int to, double NA){
     for(int i = from; i < to; i++) {
-      int x = UnsafeUtils.get2(_mem, 2*i);
+      int x = get2(2*i);
       vals[i-from] = (x == _NA)?NA:x;
     }
     return vals;
@@ -51,7 +51,7 @@ public class C2Chunk extends Chunk {
   @Override public double [] getDoubles(double [] vals, int [] ids){
     int k = 0;
     for(int i:ids) {
-      int x = UnsafeUtils.get2(_mem, 2*i);
+      int x = get2(2*i);
       vals[k++] = (x == _NA)?Double.NaN:x;
     }
     return vals;
@@ -60,7 +60,7 @@ public class C2Chunk extends Chunk {
   @Override
   public int [] getIntegers(int [] vals, int from, int to, int NA){
     for(int i = from; i < to; i++) {
-      int x = UnsafeUtils.get2(_mem, 2*i);
+      int x = get2(2*i);
       vals[i-from] = (x == _NA)?NA:x;
     }
     return vals;
@@ -80,10 +80,11 @@ public class C2Chunk extends Chunk {
 
   @Override public final void initFromBytes () {
     _start = -1;  _cidx = -1;
-    set_len(_mem.length>>1);
-    assert _mem.length == _len <<1;
+    set_len(memLen()>>1);
+    assert memLen() == _len <<1;
   }
   @Override
   public boolean hasFloat() {return false;}
+  @Override public boolean readsOffHeap() { return true; }
 
 }
@@ -8,15 +8,15 @@ import water.util.UnsafeUtils;
 public class C4FChunk extends Chunk {
   public C4FChunk( byte[] bs ) { _mem=bs; _start = -1; set_len(_mem.length>>2); }
   @Override protected final long at8_impl( int i ) {
-    float res = UnsafeUtils.get4f(_mem, i << 2);
+    float res = get4f(i << 2);
     if( Float.isNaN(res) ) throw new IllegalArgumentException("at8_abs but value is missing");
     return (long)res;
   }
   @Override protected final double atd_impl( int i ) {
-    float res = UnsafeUtils.get4f(_mem,i<<2);
+    float res = get4f(i<<2);
     return Float.isNaN(res)?Double.NaN:res;
   }
-  @Override protected final boolean isNA_impl( int i ) { return Float.isNaN(UnsafeUtils.get4f(_mem,i<<2)); }
+  @Override protected final boolean isNA_impl( int i ) { return Float.isNaN(get4f(i<<2)); }
   @Override boolean set_impl(int idx, long l) { return false; }
   @Override boolean set_impl(int i, double d) { return false; }
   @Override boolean set_impl(int i, float f ) {
@@ -27,17 +27,17 @@ public class C4FChunk extends Chunk {
 
   @Override public NewChunk extractRows(NewChunk nc, int from, int to){
     for(int i = from; i < to; i++)
-      nc.addNum(UnsafeUtils.get4f(_mem,4*i));
+      nc.addNum(get4f(4*i));
     return nc;
   }
   @Override public NewChunk extractRows(NewChunk nc, int... rows){
     for(int i:rows)
-      nc.addNum(UnsafeUtils.get4f(_mem,4*i));
+      nc.addNum(get4f(4*i));
     return nc;
   }
 
   private final void processRow(int r, ChunkVisitor v){
-    float f = UnsafeUtils.get4f(_mem,(r<<2));
+    float f = get4f((r<<2));
     if(Float.isNaN(f)) v.addNAs(1);
     else v.addValue((double)f);
   }
@@ -59,8 +59,9 @@ public class C4FChunk extends Chunk {
 //  public String pformat0() { return "% 13.7e"; }
   @Override public final void initFromBytes () {
     _start = -1;  _cidx = -1;
-    set_len(_mem.length>>2);
-    assert _mem.length == _len <<2;
+    set_len(memLen()>>2);
+    assert memLen() == _len <<2;
   }
   @Override public boolean hasFloat() {return true;}
+  @Override public boolean readsOffHeap() { return true; }
 }
@@ -9,15 +9,15 @@ public class C8Chunk extends Chunk {
   protected static final long _NA = Long.MIN_VALUE;
   C8Chunk( byte[] bs ) { _mem=bs; _start = -1; set_len(_mem.length>>3); }
   @Override protected final long at8_impl( int i ) {
-    long res = UnsafeUtils.get8(_mem,i<<3);
+    long res = get8(i<<3);
     if( res == _NA ) throw new IllegalArgumentException("at8_abs but value is missing");
     return res;
   }
   @Override protected final double atd_impl( int i ) {
-    long res = UnsafeUtils.get8(_mem,i<<3);
+    long res = get8(i<<3);
     return res == _NA?Double.NaN:res;
   }
-  @Override protected final boolean isNA_impl( int i ) { return UnsafeUtils.get8(_mem, i << 3)==_NA; }
+  @Override protected final boolean isNA_impl( int i ) { return get8(i << 3)==_NA; }
   @Override boolean set_impl(int idx, long l) { return false; }
   @Override boolean set_impl(int i, double d) { return false; }
   @Override boolean set_impl(int i, float f ) { return false; }
@@ -25,14 +25,15 @@ public class C8Chunk extends Chunk {
 
   @Override public final void initFromBytes () {
     _start = -1;  _cidx = -1;
-    set_len(_mem.length>>3);
-    assert _mem.length == _len <<3;
+    set_len(memLen()>>3);
+    assert memLen() == _len <<3;
   }
   @Override
   public boolean hasFloat() {return false;}
+  @Override public boolean readsOffHeap() { return true; }
 
   private final void processRow(int r, ChunkVisitor v){
-    long l = UnsafeUtils.get8(_mem,(r<<3));
+    long l = get8((r<<3));
     if(l == _NA) v.addNAs(1);
     else v.addValue(l);
   }
@@ -51,7 +52,7 @@ public class C8Chunk extends Chunk {
 
   @Override public double [] getDoubles(double [] vals, int from, int to, double NA){
     for(int i = from; i < to; i++) {
-      long x = UnsafeUtils.get8(_mem, 8*i);
+      long x = get8(8*i);
       vals[i-from] = (x == _NA)?NA:x;
     }
     return vals;
@@ -59,7 +60,7 @@ public class C8Chunk extends Chunk {
   @Override public double [] getDoubles(double [] vals, int [] ids){
     int k = 0;
     for(int i:ids) {
-      long x = UnsafeUtils.get8(_mem, 8*i);
+      long x = get8(8*i);
       vals[k++] = (x == _NA)?Double.NaN:x;
     }
     return vals;
@@ -2,7 +2,10 @@ package water.fvec;
 
 import water.*;
 import water.parser.BufferedString;
+import water.util.UnsafeUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.UUID;
 
 /** A compression scheme, over a chunk of data - a single array of bytes.
@@ -166,9 +169,32 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
   /** Short-cut to the embedded big-data memory.  Generally not useful for
    *  public consumption, since the data remains compressed and holding on to a
    *  pointer to this array defeats the user-mode spill-to-disk. */
-  public byte[] getBytes() { return _mem; }
+  public byte[] getBytes() { return _mem != null || _buf == null ? _mem : bufBytes(); }
 
-  public void setBytes(byte[] mem) { _mem = mem; }
+  public void setBytes(byte[] mem) { _mem = mem; _buf = null; }
+
+  /** The Big Data held off-heap instead, when {@code _mem} is null: a view in
+   *  native byte order of a Value's off-heap copy, read in place by the
+   *  Chunks which {@link #readsOffHeap}.  Written Chunks get a heap copy. */
+  transient ByteBuffer _buf;
+
+  // Reads of the Big Data, from the heap or in place off-heap
+  final int    memLen(         ) { return _mem != null ? _mem.length : _buf.limit(); }
+  final byte   get1 ( int off ) { return _mem != null ? _mem[off] : _buf.get(off); }
+  final int    get2 ( int off ) { return _mem != null ? UnsafeUtils.get2 (_mem,off) : _buf.getShort (off); }
+  final int    get4 ( int off ) { return _mem != null ? UnsafeUtils.get4 (_mem,off) : _buf.getInt   (off); }
+  final long   get8 ( int off ) { return _mem != null ? UnsafeUtils.get8 (_mem,off) : _buf.getLong  (off); }
+  final float  get4f( int off ) { return _mem != null ? UnsafeUtils.get4f(_mem,off) : _buf.getFloat (off); }
+  final double get8d( int off ) { return _mem != null ? UnsafeUtils.get8d(_mem,off) : _buf.getDouble(off); }
+
+  // A heap copy of the off-heap bytes
+  private byte[] bufBytes() {
+    ByteBuffer bb = _buf.duplicate();
+    bb.position(0);
+    byte[] mem = MemoryManager.malloc1(bb.limit());
+    bb.get(mem);
+    return mem;
+  }
 
 
 
@@ -389,7 +415,8 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
     c2._vec=null;
     c2._start=-1;
     c2._cidx=-1;
-    c2._mem = _mem.clone();
+    c2._mem = _mem != null ? _mem.clone() : bufBytes();
+    c2._buf = null;
     c2.initFromBytes();
     assert len() == c2._len;
     return c2;
@@ -398,7 +425,9 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
   private void setWrite() {
     if( _chk2 != null ) return; // Already setWrite
     assert !(this instanceof NewChunk) : "Cannot direct-write into a NewChunk, only append";
-    setWrite(clone());
+    Chunk ck = clone();
+    if( ck._mem == null && ck._buf != null ) { ck._mem = bufBytes(); ck._buf = null; } // Written on the heap
+    setWrite(ck);
   }
 
   private void setWrite(Chunk ck) {
@@ -687,14 +716,29 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
 
   /** Custom serializers implemented by Chunk subclasses: the _mem field
    *  contains ALL the fields already. */
-  public final  AutoBuffer write_impl(AutoBuffer bb) {return bb.putA1(_mem);}
+  public final  AutoBuffer write_impl(AutoBuffer bb) {return bb.putA1(getBytes());}
 
   @Override
-  public byte [] asBytes(){return _mem;}
+  public byte [] asBytes(){return getBytes();}
 
   @Override
   public final Chunk reloadFromBytes(byte [] ary){
     _mem = ary;
+    _buf = null;
+    initFromBytes();
+    return this;
+  }
+
+  /** Can this Chunk read its Big Data in place from off-heap memory?  True
+   *  for the fixed-width Chunks; the rest always decode from a byte[]. */
+  public boolean readsOffHeap() { return false; }
+
+  /** Point this Chunk at serialized bytes held off-heap, without a heap
+   *  copy.  Only for Chunks which {@link #readsOffHeap}. */
+  public final Chunk reloadFromBuffer( ByteBuffer bb ){
+    assert readsOffHeap() : getClass();
+    _mem = null;
+    _buf = bb.duplicate().order(ByteOrder.nativeOrder());
     initFromBytes();
     return this;
   }
@@ -702,6 +746,7 @@ public abstract class Chunk extends Iced<Chunk> implements Vec.Holder {
   protected abstract void initFromBytes();
   public final Chunk read_impl(AutoBuffer ab){
     _mem = ab.getA1();
+    _buf = null;
     initFromBytes();
     return this;
   }
@@ -0,0 +1,265 @@
+package water.fvec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import water.*;
+import water.util.Log;
+import water.util.PrettyPrint;
+import water.util.UnsafeUtils;
+
+/** Snapshot of the Frames in the DKV to a directory, and warm restore of them
+ *  without going through the parser.
+ *  <p>
+ *  A snapshot directory holds one {@code chunks_<node>.bin} file per node,
+ *  written in parallel by each node from the Chunks it homes, plus a {@link
+ *  #MANIFEST} written last by the node taking the snapshot.  Chunk files are
+ *  a stream of (Chunk Key, Chunk) pairs in {@link AutoBuffer} format, so the
+ *  compressed Chunk bytes are written as-is.  The manifest holds the Frames,
+ *  their Vecs, each Vec's row layout (espc) and any computed rollups.  A
+ *  directory without a manifest is an incomplete snapshot and is refused.
+ *  <p>
+ *  The directory can be node-local (each node keeps its own chunk file) or
+ *  shared (HDFS, NFS); restore has every node report which chunk files it
+ *  can see, and assigns each file to one node which sees it.  Chunks are then
+ *  read and pushed to their new homes by all nodes in parallel, so the cloud
+ *  being restored need not have the same size as the one snapshotted.
+ *  <p>
+ *  Only Frames made of plain Vecs are snapshotted; Frames which are being
+ *  written, or which use file-backed or wrapped Vecs, are skipped.
+ */
+public class FrameSnapshot {
+  public static final String MANIFEST = "frames.snapshot";
+  static final String CHUNKS = "chunks_";
+
+  /** Outcome of a save or restore */
+  public static class Stats extends Iced<Stats> {
+    public Key<Frame>[] _frames;
+    public long _chunks, _bytes, _msecs;
+    @Override public String toString() {
+      return _frames.length + " frames, " + _chunks + " chunks, " + PrettyPrint.bytes(_bytes) + " in " + PrettyPrint.msecs(_msecs, true);
+    }
+  }
+
+  // The manifest.  Vecs are listed once each, even if shared by Frames.
+  private static class Manifest extends Iced<Manifest> {
+    Frame[] _frames;
+    Vec[] _vecs;
+    long[][] _espcs;            // Row layout of each Vec
+    RollupStats[] _rollups;     // Rollups of each Vec, or null if not computed
+    int _nfiles;                // Chunk files, one per node taking the snapshot
+    long _chunks, _bytes;       // Totals, to check the restore against
+  }
+
+  private static String path( String dir, String name ) { return dir.endsWith("/") ? dir + name : dir + "/" + name; }
+
+  /** Snapshot all Frames in the DKV to the given directory.
+   *  @param dir Directory, local or HDFS; created if missing
+   *  @param overwrite Replace any prior snapshot in dir */
+  public static Stats save( String dir, boolean overwrite ) {
+    long start = System.currentTimeMillis();
+    if( !overwrite && H2O.getPM().exists(path(dir, MANIFEST)) )
+      throw new IllegalArgumentException("A snapshot already exists in " + dir);
+    Job job = new Job(null, null, "Snapshot to " + dir); // Only used for read-locking the Frames
+    ArrayList<Frame> frames = new ArrayList<>();
+    LinkedHashMap<Key,Vec> vecs = new LinkedHashMap<>();
+    try {
+      for( Key k : KeySnapshot.globalKeysOfClass(Frame.class) ) {
+        Frame fr = DKV.getGet(k);
+        if( fr == null || !plainVecs(fr) ) continue;
+        try { fr.read_lock(job._key); }
+        catch( IllegalArgumentException iae ) { Log.info("Snapshot skips " + k + ": " + iae.getMessage()); continue; }
+        frames.add(fr);
+        for( Vec v : fr.vecs() ) vecs.put(v._key, v);
+      }
+      Manifest m = new Manifest();
+      m._frames = frames.toArray(new Frame[frames.size()]);
+      m._vecs = vecs.values().toArray(new Vec[vecs.size()]);
+      m._espcs = new long[m._vecs.length][];
+      m._rollups = new RollupStats[m._vecs.length];
+      for( int i = 0; i < m._vecs.length; i++ ) {
+        m._espcs[i] = m._vecs[i].espc();
+        m._rollups[i] = RollupStats.getOrNull(m._vecs[i], m._vecs[i].rollupStatsKey());
+      }
+      H2O.getPM().mkdirs(dir);
+      WriteChunks wc = new WriteChunks(dir, vecs.keySet().toArray(new Key[vecs.size()])).doAllNodes();
+      m._nfiles = H2O.CLOUD.size();
+      m._chunks = wc._chunks;
+      m._bytes = wc._bytes;
+      write(path(dir, MANIFEST), m);
+
+      Stats s = new Stats();
+      s._frames = new Key[m._frames.length];
+      for( int i = 0; i < m._frames.length; i++ ) s._frames[i] = m._frames[i]._key;
+      s._chunks = m._chunks;
+      s._bytes = m._bytes;
+      s._msecs = System.currentTimeMillis() - start;
+      Log.info("Snapshot to " + dir + ": " + s);
+      return s;
+    } finally {
+      for( Frame fr : frames ) fr.unlock(job._key);
+    }
+  }
+
+  private static boolean plainVecs( Frame fr ) {
+    for( Vec v : fr.vecs() )
+      if( v.getClass() != Vec.class ) return false;
+    return true;
+  }
+
+  private static void write( String path, Manifest m ) {
+    // The stream header carries the TypeMap as of opening the stream, but
+    // type ids are assigned lazily on first serialization: serialize once
+    // first, so the Manifest and everything in it has an id in the header.
+    new AutoBuffer().put(m).close();
+    OutputStream os = H2O.getPM().create(path, true);
+    new AutoBuffer(os, true).put(m).close();
+  }
+
+  private static Manifest read( String path ) {
+    if( !H2O.getPM().exists(path) )
+      throw new IllegalArgumentException("No snapshot manifest at " + path);
+    InputStream is = H2O.getPM().open(path);
+    AutoBuffer ab = new AutoBuffer(is);
+    ab.sourceName = path;
+    Manifest m = ab.get(Manifest.class);
+    ab.close();
+    return m;
+  }
+
+  // Each node writes the Chunks it homes to its own file
+  private static class WriteChunks extends MRTask<WriteChunks> {
+    final String _dir;
+    final Key[] _vecs;
+    long _chunks, _bytes;       // Outputs
+    WriteChunks( String dir, Key[] vecs ) { _dir = dir; _vecs = vecs; }
+    @Override public void setupLocal() {
+      String path = path(_dir, CHUNKS + H2O.SELF.index() + ".bin");
+      AutoBuffer ab = new AutoBuffer(H2O.getPM().create(path, true), true);
+      for( Key vk : _vecs ) {
+        Vec vec = DKV.getGet(vk);
+        for( int c = 0; c < vec.nChunks(); c++ ) {
+          Key ck = vec.chunkKey(c);
+          if( !ck.home() ) continue;
+          Chunk chk = DKV.getGet(ck);
+          ab.put(ck).put(chk);
+          _chunks++;
+          _bytes += chk.getBytes().length;
+        }
+      }
+      ab.put((Key)null).close(); // Null Key ends the file
+    }
+    @Override public void reduce( WriteChunks wc ) { _chunks += wc._chunks; _bytes += wc._bytes; }
+  }
+
+  /** Restore all Frames from a snapshot directory.  Fails if any of the
+   *  Frames or Vecs already exist in the DKV. */
+  public static Stats restore( String dir ) {
+    long start = System.currentTimeMillis();
+    final Manifest m = read(path(dir, MANIFEST));
+    for( Frame fr : m._frames )
+      if( DKV.get(fr._key) != null ) throw new IllegalArgumentException("Cannot restore " + fr._key + ": it already exists");
+    for( Vec v : m._vecs )
+      if( DKV.get(v._key) != null ) throw new IllegalArgumentException("Cannot restore Vec " + v._key + ": it already exists");
+
+    // Assign each chunk file to one node that can see it
+    FindFiles ff = new FindFiles(dir, m._nfiles).doAllNodes();
+    int[] owner = new int[m._nfiles];
+    int[] load = new int[H2O.CLOUD.size()];
+    for( int f = 0; f < m._nfiles; f++ ) {
+      owner[f] = -1;
+      for( int n = 0; n < load.length; n++ )
+        if( ff._seen[n] != null && ff._seen[n][f] && (owner[f] == -1 || load[n] < load[owner[f]]) )
+          owner[f] = n;
+      if( owner[f] == -1 ) throw new IllegalArgumentException("Chunk file " + path(dir, CHUNKS + f + ".bin") + " is not visible from any node");
+      load[owner[f]]++;
+    }
+
+    // Vecs first, with their row layouts re-registered on this cloud
+    Futures fs = new Futures();
+    HashMap<Key,Integer> groups = new HashMap<>(); // Largest Vec id per VectorGroup
+    for( int i = 0; i < m._vecs.length; i++ ) {
+      Vec v = m._vecs[i];
+      v._rowLayout = Vec.ESPC.rowLayout(v._key, m._espcs[i]);
+      DKV.put(v, fs);
+      if( m._rollups[i] != null ) DKV.put(v.rollupStatsKey(), m._rollups[i], fs);
+      Key gk = v.group()._key;
+      int id = UnsafeUtils.get4(v._key._kb, 2);
+      Integer old = groups.get(gk);
+      if( old == null || old < id ) groups.put(gk, id);
+    }
+    // Make sure new Vecs made in the restored groups do not reuse their ids
+    for( Vec v : m._vecs ) {
+      Integer id = groups.remove(v.group()._key);
+      if( id == null ) continue;
+      Vec.VectorGroup vg = v.group();
+      if( vg.len() <= id ) vg.reserveKeys(id + 1 - vg.len());
+    }
+    fs.blockForPending();
+
+    // Then Chunks, by all nodes in parallel
+    ReadChunks rc = new ReadChunks(dir, owner).doAllNodes();
+    if( rc._chunks != m._chunks )
+      throw new IllegalStateException("Snapshot in " + dir + " is damaged: restored " + rc._chunks + " of " + m._chunks + " chunks");
+
+    // Frames last, once complete
+    Stats s = new Stats();
+    s._frames = new Key[m._frames.length];
+    for( int i = 0; i < m._frames.length; i++ ) {
+      DKV.put(m._frames[i], fs);
+      s._frames[i] = m._frames[i]._key;
+    }
+    fs.blockForPending();
+    s._chunks = rc._chunks;
+    s._bytes = m._bytes;
+    s._msecs = System.currentTimeMillis() - start;
+    Log.info("Restored from " + dir + ": " + s);
+    return s;
+  }
+
+  // Which chunk files can each node see?
+  private static class FindFiles extends MRTask<FindFiles> {
+    final String _dir;
+    final int _nfiles;
+    boolean[][] _seen;          // Output: per node, per file
+    FindFiles( String dir, int nfiles ) { _dir = dir; _nfiles = nfiles; }
+    @Override public void setupLocal() {
+      _seen = new boolean[H2O.CLOUD.size()][];
+      boolean[] seen = _seen[H2O.SELF.index()] = new boolean[_nfiles];
+      for( int f = 0; f < _nfiles; f++ )
+        seen[f] = H2O.getPM().exists(path(_dir, CHUNKS + f + ".bin"));
+    }
+    @Override public void reduce( FindFiles ff ) {
+      for( int n = 0; n < _seen.length; n++ )
+        if( _seen[n] == null ) _seen[n] = ff._seen[n];
+    }
+  }
+
+  // Each node reads the chunk files assigned to it, pushing Chunks home
+  private static class ReadChunks extends MRTask<ReadChunks> {
+    final String _dir;
+    final int[] _owner;
+    long _chunks;               // Output
+    ReadChunks( String dir, int[] owner ) { _dir = dir; _owner = owner; }
+    @Override public void setupLocal() {
+      Futures fs = new Futures();
+      for( int f = 0; f < _owner.length; f++ ) {
+        if( _owner[f] != H2O.SELF.index() ) continue;
+        String path = path(_dir, CHUNKS + f + ".bin");
+        AutoBuffer ab = new AutoBuffer(H2O.getPM().open(path));
+        ab.sourceName = path;
+        Key ck;
+        while( (ck = ab.get(Key.class)) != null ) {
+          DKV.put(ck, ab.get(Chunk.class), fs, true); // Push chunk home; do not cache local
+          _chunks++;
+        }
+        ab.close();
+      }
+      fs.blockForPending();
+    }
+    @Override public void reduce( ReadChunks rc ) { _chunks += rc._chunks; }
+  }
+}
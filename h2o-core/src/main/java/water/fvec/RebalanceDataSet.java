@@ -53,6 +53,19 @@ public class RebalanceDataSet extends H2O.H2OCountedCompleter {
     _vg = new Vec.VectorGroup();
   }
 
+  /**
+   * Constructor for a given layout, e.g. planned by {@link RebalancePlanner}.
+   */
+  public RebalanceDataSet(Frame srcFrame, Key dstKey, long[] espc) {
+    super(null);
+    _in = srcFrame;
+    _jobKey = null;
+    _okey = dstKey;
+    _espc = espc;
+    _vg = new Vec.VectorGroup();
+    _nchunks = espc.length - 1;
+  }
+
   public Frame getResult(){join(); return _out;}
 
   @Override public void compute2() {
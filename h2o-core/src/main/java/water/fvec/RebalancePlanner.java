@@ -0,0 +1,132 @@
+package water.fvec;
+
+import water.H2O;
+import water.H2ONode;
+import water.MRTask;
+import water.Value;
+import water.util.ArrayUtils;
+import water.util.PrettyPrint;
+
+import java.util.Arrays;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ *  Decides whether and how to rebalance a Frame before an iterative
+ *  algorithm, from the Frame's actual layout: the bytes of every Chunk, the
+ *  rows, which node each Chunk lives on and the cores of every node.
+ *
+ *  The target is {@code rebalance.chunks.per.core} (2) Chunks per core in
+ *  the cloud, but no Chunk smaller than {@code rebalance.min.chunk.bytes}
+ *  (1MB) or 1000 rows - so small Frames are left alone.  The Frame is kept
+ *  as is if it has the target number of Chunks and no node holds more than
+ *  {@code rebalance.max.skew} (1.5) times its share of the bytes for its
+ *  cores.  Otherwise only the Chunks bigger than the target are split;
+ *  every other Chunk keeps its rows, and every new Chunk is cut from a
+ *  single old one.
+ *
+ *  Chunks are placed by hashing their Keys, so a new layout is still
+ *  written as a new Frame by {@link RebalanceDataSet}; the plan only keeps
+ *  that copy as cheap as it can be, and skips it when it does not pay.
+ */
+public class RebalancePlanner {
+  public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "rebalance.planner");
+  static final int CHUNKS_PER_CORE = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "rebalance.chunks.per.core", 2));
+  static final long MIN_CHUNK_BYTES = Long.getLong(SYSTEM_PROP_PREFIX + "rebalance.min.chunk.bytes", 1 << 20);
+  static final double MAX_SKEW = Double.parseDouble(System.getProperty(SYSTEM_PROP_PREFIX + "rebalance.max.skew", "1.5"));
+  static final int MIN_ROWS = 1000;     // Per Chunk, as ModelBuilder.desiredChunks
+
+  /** The decision for one Frame */
+  public static final class Plan {
+    /** The new layout (as {@link Vec#espc}), or null to keep the Frame */
+    public final long[] _espc;
+    /** What was decided, and why */
+    public final String _msg;
+    Plan( long[] espc, String msg ) { _espc = espc; _msg = msg; }
+    public int nChunks() { return _espc == null ? 0 : _espc.length - 1; }
+    @Override public String toString() { return _msg; }
+  }
+
+  public static Plan plan( Frame fr ) {
+    Vec v0 = fr.anyVec();
+    int n = v0.nChunks();
+    long[] espc = v0.espc();
+    long[] bytes = new ChunkBytes(fr).doAllNodes()._bytes;
+    H2ONode[] nodes = H2O.CLOUD.members();
+    int[] cores = new int[nodes.length];
+    int ncores = 0;
+    for( int i = 0; i < nodes.length; i++ ) {
+      int c = nodes[i]._heartbeat._cpus_allowed;
+      ncores += (cores[i] = c > 0 ? c : Math.max(1, (int)nodes[i]._heartbeat._num_cpus));
+    }
+    long[] load = new long[nodes.length];
+    long total = 0;
+    for( int i = 0; i < n; i++ ) {
+      int node = v0.chunkKey(i).home_node().index();
+      if( node >= 0 ) load[node] += bytes[i];
+      total += bytes[i];
+    }
+    double skew = skew(load, cores);
+    long target = Math.max(1, Math.min((long)ncores * CHUNKS_PER_CORE, Math.min(total / MIN_CHUNK_BYTES, fr.numRows() / MIN_ROWS)));
+    String layout = n + " chunks, " + PrettyPrint.bytes(total) + ", " + fr.numRows() + " rows on " + nodes.length + " nodes/" + ncores +
+      " cores, skew " + String.format("%.2f", skew) + "x";
+    if( n >= target && skew <= MAX_SKEW )
+      return new Plan(null, "keep: " + layout);
+    long chunkBytes = (total + target - 1) / target;
+    long[] split = split(espc, bytes, chunkBytes, MIN_ROWS);
+    if( split.length == espc.length )
+      return new Plan(null, "keep: " + layout + ", no chunk bigger than the target " + PrettyPrint.bytes(chunkBytes));
+    int nsplit = 0;
+    for( int i = 0; i < n; i++ )
+      if( pieces(espc[i + 1] - espc[i], bytes[i], chunkBytes, MIN_ROWS) > 1 ) nsplit++;
+    return new Plan(split, "rebalance: " + layout + "; splitting " + nsplit + " chunks into " + (split.length - 1) + " chunks");
+  }
+
+  /** Most loaded node's bytes per core, over the mean */
+  static double skew( long[] load, int[] cores ) {
+    long total = 0;
+    int ncores = 0;
+    for( int i = 0; i < load.length; i++ ) { total += load[i]; ncores += cores[i]; }
+    if( total == 0 ) return 1;
+    double max = 0;
+    for( int i = 0; i < load.length; i++ ) max = Math.max(max, (double)load[i] / cores[i]);
+    return max / ((double)total / ncores);
+  }
+
+  /** The layout with every Chunk bigger than chunkBytes split evenly into
+   *  pieces of about that size, of at least minRows rows */
+  static long[] split( long[] espc, long[] bytes, long chunkBytes, int minRows ) {
+    long[] res = new long[espc.length];
+    int j = 0;
+    for( int i = 0; i < espc.length - 1; i++ ) {
+      long rows = espc[i + 1] - espc[i];
+      long k = pieces(rows, bytes[i], chunkBytes, minRows);
+      if( j + k + 1 > res.length ) res = Arrays.copyOf(res, (int)Math.max(res.length * 2, j + k + 1));
+      for( long p = 0; p < k; p++ ) res[j++] = espc[i] + rows * p / k;
+    }
+    res[j++] = espc[espc.length - 1];
+    return Arrays.copyOf(res, j);
+  }
+
+  private static long pieces( long rows, long bytes, long chunkBytes, int minRows ) {
+    return Math.max(1, Math.min((bytes + chunkBytes - 1) / chunkBytes, rows / minRows));
+  }
+
+  // Bytes of every Chunk, summed over the Vecs, from the Chunks' homes
+  private static class ChunkBytes extends MRTask<ChunkBytes> {
+    final Frame _src;
+    long[] _bytes;
+    ChunkBytes( Frame src ) { _src = src; }
+    @Override public void setupLocal() {
+      Vec v0 = _src.anyVec();
+      _bytes = new long[v0.nChunks()];
+      for( int i = 0; i < _bytes.length; i++ )
+        if( v0.chunkKey(i).home() )
+          for( Vec v : _src.vecs() ) {
+            Value val = Value.STORE_get(v.chunkKey(i));
+            if( val != null ) _bytes[i] += val._max;
+          }
+    }
+    @Override public void reduce( ChunkBytes cb ) { ArrayUtils.add(_bytes, cb._bytes); }
+  }
+}
@@ -3,11 +3,23 @@ package water.init;
 import jsr166y.CountedCompleter;
 import water.*;
 import water.H2O.H2OCountedCompleter;
+import water.network.SSLContextException;
+import water.network.SSLSocketChannelFactory;
 import water.util.Log;
 import water.util.TwoDimTable;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Random;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
  * Created by tomasnykodym on 7/28/15.
  */
@@ -56,6 +68,7 @@ public class NetworkBench extends Iced {
   }
 
   public NetworkBenchResults [] _results;
+  public TwoDimTable _channels; // Loopback throughput, plain vs SSL
   public NetworkBench doTest(){
     long t1 = System.currentTimeMillis();
     H2O.submitTask(new H2OCountedCompleter() {
@@ -82,10 +95,102 @@ public class NetworkBench extends Iced {
       System.out.println(r.to2dTable());
       System.out.println();
     }
+    if( runChannels() ) {
+      _channels = channelBench(CHANNEL_MSG_SZ, CHANNEL_BYTES);
+      System.out.println(_channels);
+    }
     Log.info("Newtork test done in " + ((System.currentTimeMillis()-t1)*0.001) + "s");
     return this;
   }
 
+  // The channel test is only run with internal security on (it is the cost
+  // of SSL against the plain channel), or when asked for
+  static final boolean CHANNELS_ASKED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "netbench.channels");
+  static boolean runChannels() { return CHANNELS_ASKED || H2O.ARGS.internal_security_conf != null; }
+  // Size of the writes, as sent by a big AutoBuffer, and total bytes per channel test
+  static final int CHANNEL_MSG_SZ = Integer.getInteger(SYSTEM_PROP_PREFIX + "netbench.channel.msg.size", 64 * 1024);
+  static final long CHANNEL_BYTES = Long.getLong(SYSTEM_PROP_PREFIX + "netbench.channel.bytes", 256L * 1024 * 1024);
+
+  /**
+   * Throughput of a node-to-node channel over the loopback interface, plain
+   * and (if internal security is configured) SSL wrapped.  Without the
+   * network in the way this is the cost of the channel itself, i.e. the
+   * ceiling the encryption puts on node-to-node traffic.
+   */
+  public static TwoDimTable channelBench(int msgSz, long bytes) {
+    SSLSocketChannelFactory ssl = null;
+    if (H2O.ARGS.internal_security_conf != null) {
+      try {
+        ssl = new SSLSocketChannelFactory();
+      } catch (SSLContextException e) {
+        Log.warn("Network Bench, no SSL channel test: " + e.getMessage());
+      }
+    }
+    String [] rowHeaders = ssl == null ? new String[]{"plain"} : new String[]{"plain", "ssl"};
+    TwoDimTable td = new TwoDimTable("Channel Bench, sz = " + msgSz + "B, total sz = " + (bytes >> 20) + "MB",
+        "Loopback channel throughput in MB/s", rowHeaders, new String[]{"MB/s"}, new String[]{"double"}, new String[]{"%2f"}, "");
+    for (int i = 0; i < rowHeaders.length; ++i) {
+      try {
+        td.set(i, 0, 0.01 * ((int) (100 * loopbackThroughput(i == 0 ? null : ssl, msgSz, bytes) / (1024 * 1024))));
+      } catch (IOException | InterruptedException e) {
+        Log.warn("Network Bench, " + rowHeaders[i] + " channel test failed", e);
+      }
+    }
+    return td;
+  }
+
+  /** Bytes/sec written through a loopback channel, SSL wrapped if ssl is not null */
+  public static double loopbackThroughput(final SSLSocketChannelFactory ssl, final int msgSz, final long bytes) throws IOException, InterruptedException {
+    final InetAddress lo = InetAddress.getByName("127.0.0.1");
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.socket().bind(new InetSocketAddress(lo, 0));
+      final int port = server.socket().getLocalPort();
+      final SocketChannel out = SocketChannel.open(new InetSocketAddress(lo, port));
+      out.socket().setTcpNoDelay(true);
+      final long msgs = (bytes + msgSz - 1) / msgSz;
+      final Throwable [] err = new Throwable[1];
+      // The SSL handshake needs both ends going at once
+      Thread writer = new Thread("NetworkBench-writer") {
+        @Override public void run() {
+          try {
+            ByteChannel ch = ssl == null ? out : ssl.wrapClientChannel(out, "127.0.0.1", port);
+            ByteBuffer bb = ByteBuffer.allocateDirect(msgSz);
+            for (long i = 0; i < msgs; ++i) {
+              bb.clear();
+              while (bb.hasRemaining()) ch.write(bb);
+            }
+          } catch (Throwable t) {
+            err[0] = t;
+            try { out.close(); } catch (IOException ignore) { }
+          }
+        }
+      };
+      writer.setDaemon(true);
+      writer.start();
+      try (SocketChannel acc = server.accept()) {
+        ByteChannel in = ssl == null ? acc : ssl.wrapServerChannel(acc);
+        ByteBuffer bb = ByteBuffer.allocateDirect(msgSz);
+        long t0 = System.nanoTime(), got = 0, want = msgs * msgSz;
+        while (got < want) {
+          bb.clear();
+          int n = in.read(bb);
+          if (n < 0 || n == 0 && !writer.isAlive()) break;
+          got += n;
+        }
+        long ns = System.nanoTime() - t0;
+        writer.join();
+        if (got < want) {
+          EOFException e = new EOFException("Read " + got + " of " + want + " bytes");
+          if (err[0] != null) e.initCause(err[0]);
+          throw e;
+        }
+        return want / (ns * 1e-9);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
   private static class TestAll2All extends MRTask<TestAll2All> {
     final int  _msgSz;  // in
     final int  _msgCnt; // in
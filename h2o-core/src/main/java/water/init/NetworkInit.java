@@ -1,5 +1,6 @@
 package water.init;
 
+import water.BufferPool;
 import water.H2O;
 import water.H2ONode;
 import water.JettyHTTPD;
@@ -266,8 +267,8 @@ public class NetworkInit {
           bb.reset();
           if(H2O.ARGS.useUDP) {
             CLOUD_DGRAM.send(bb, h2o._key);
-          } else {
-            h2o.sendMessage(bb,priority);
+          } else {              // Each send thread owns, and recycles, its own copy
+            h2o.sendMessage(BufferPool.copy(bb),priority);
           }
         } catch( IOException e ) {
           Log.warn("Multicast Error to "+h2o, e);
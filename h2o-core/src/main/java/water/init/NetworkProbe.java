@@ -0,0 +1,203 @@
+package water.init;
+
+import water.*;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Continuous, low-rate version of {@link NetworkTest}: with {@code
+ * -Dsys.ai.h2o.netprobe.interval} (seconds) set, every node pings every other
+ * node once per interval and measures the round trip, and every {@code
+ * netprobe.bandwidth.every} (10) rounds also bounces a {@code netprobe.bytes}
+ * (1MB) payload off it to estimate bandwidth.  The last {@link #WINDOW}
+ * samples per peer are kept, so the percentiles and histogram are over a
+ * rolling window.
+ * <p>
+ * A probe slower than {@code netprobe.warn.ms} (1000) or timing out (after
+ * 10 times that) is logged as a warning, well before a link that bad shows up
+ * as missed heartbeats and a Paxos cloud failure.  Results from all nodes are
+ * reported by {@code GET /3/NetworkProbe}; the latest sample from this node to
+ * each peer also shows up in {@code /3/Timeline}.
+ */
+public class NetworkProbe extends Thread {
+  public static final int INTERVAL_SECS = Integer.getInteger(SYSTEM_PROP_PREFIX + "netprobe.interval", 0);
+  static final int BW_BYTES = Integer.getInteger(SYSTEM_PROP_PREFIX + "netprobe.bytes", 1 << 20);
+  static final int BW_EVERY = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "netprobe.bandwidth.every", 10));
+  static final long WARN_MS = Long.getLong(SYSTEM_PROP_PREFIX + "netprobe.warn.ms", 1000);
+  static final int WINDOW = 60;         // Samples kept per peer
+  static final int BUCKETS = 24;        // Histogram of RTT in power-of-2 microseconds, up to ~8sec
+
+  private static final ConcurrentHashMap<H2ONode,Link> LINKS = new ConcurrentHashMap<>();
+
+  /** Start probing, if enabled; not on clients */
+  public static void startIfEnabled() {
+    if( INTERVAL_SECS > 0 && !H2O.ARGS.client ) new NetworkProbe().start();
+  }
+
+  private NetworkProbe() {
+    super("NetworkProbe");
+    setDaemon(true);
+    setPriority(MAX_PRIORITY-1); // Measure the network, not our own scheduling
+  }
+
+  @Override public void run() {
+    byte[] bulk = new byte[BW_BYTES];
+    new Random().nextBytes(bulk);
+    for( long round = 0; !H2O.getShutdownRequested(); round++ ) {
+      try { Thread.sleep(TimeUnit.SECONDS.toMillis(INTERVAL_SECS)); } catch( InterruptedException ignore ) { }
+      for( H2ONode node : H2O.CLOUD.members() ) {
+        if( node == H2O.SELF ) continue;
+        Link link = link(node);
+        long ns = probe(node, new byte[0], H2O.GUI_PRIORITY);
+        if( ns < 0 ) { link.failed(); continue; }
+        link.rtt(ns);
+        if( round % BW_EVERY == 0 ) {
+          long bns = probe(node, bulk, H2O.MIN_PRIORITY);
+          if( bns < 0 ) link.failed();
+          else link.bandwidth(2.0 * bulk.length / (bns / 1e9)); // Sent and received back
+        }
+      }
+    }
+  }
+
+  private static Link link( H2ONode node ) {
+    Link link = LINKS.get(node);
+    if( link == null ) {
+      Link old = LINKS.putIfAbsent(node, link = new Link());
+      if( old != null ) link = old;
+    }
+    return link;
+  }
+
+  // Bounce the payload off the node; nanoseconds taken, or -1 on timeout.
+  private static long probe( H2ONode node, byte[] payload, byte priority ) {
+    long start = System.nanoTime(), limit = TimeUnit.MILLISECONDS.toNanos(WARN_MS*10), ns;
+    RPC<Echo> rpc = new RPC<>(node, new Echo(payload, priority)).call();
+    try {
+      synchronized( rpc ) {
+        while( !rpc.isDone() && (ns = System.nanoTime() - start) < limit )
+          rpc.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(limit - ns)));
+      }
+    } catch( InterruptedException ignore ) { }
+    ns = System.nanoTime() - start;
+    if( !rpc.isDone() || rpc.isCancelled() ) {
+      rpc.cancel(true);
+      Log.warn("Network probe of " + PrettyPrint.bytes(payload.length) + " to " + node + " timed out after " + PrettyPrint.msecs(TimeUnit.NANOSECONDS.toMillis(ns), true));
+      return -1;
+    }
+    if( payload.length == 0 && ns > TimeUnit.MILLISECONDS.toNanos(WARN_MS) )
+      Log.warn("Network probe to " + node + " took " + PrettyPrint.msecs(TimeUnit.NANOSECONDS.toMillis(ns), true) + " round trip");
+    return ns;
+  }
+
+  // Sends its payload to the remote node, and back with the ACK
+  private static class Echo extends DTask<Echo> {
+    final byte[] _payload;
+    Echo( byte[] payload, byte priority ) { super(priority); _payload = payload; }
+    @Override public void compute2() { tryComplete(); }
+  }
+
+  // Rolling samples to one peer
+  static final class Link {
+    private final long[] _rtt = new long[WINDOW];     // Ring of round trip nanos
+    private final double[] _bw = new double[WINDOW];  // Ring of bytes/sec
+    private int _nrtt, _nbw;                          // Samples ever taken
+    private long _failures, _lastMs;
+
+    synchronized void rtt( long ns ) { _rtt[_nrtt++ % WINDOW] = ns; _lastMs = System.currentTimeMillis(); }
+    synchronized void bandwidth( double bps ) { _bw[_nbw++ % WINDOW] = bps; }
+    synchronized void failed() { _failures++; _lastMs = System.currentTimeMillis(); }
+
+    synchronized LinkStats stats( H2ONode to ) {
+      LinkStats s = new LinkStats();
+      s._from = H2O.SELF.toString();
+      s._to = to.toString();
+      s._samples = _nrtt;
+      s._failures = _failures;
+      s._last_ms = _lastMs;
+      s._rtt_histogram = new long[BUCKETS];
+      long[] rtt = Arrays.copyOf(_rtt, Math.min(_nrtt, WINDOW));
+      Arrays.sort(rtt);
+      for( long ns : rtt ) {
+        long us = Math.max(1, ns / 1000);
+        s._rtt_histogram[Math.min(BUCKETS-1, 63-Long.numberOfLeadingZeros(us))]++;
+      }
+      if( rtt.length > 0 ) {
+        s._rtt_p50_us = rtt[rtt.length/2] / 1e3;
+        s._rtt_p99_us = rtt[Math.min(rtt.length-1, (int)(rtt.length*0.99))] / 1e3;
+        s._rtt_max_us = rtt[rtt.length-1] / 1e3;
+      }
+      double[] bw = Arrays.copyOf(_bw, Math.min(_nbw, WINDOW));
+      Arrays.sort(bw);
+      if( bw.length > 0 ) s._bandwidth = bw[bw.length/2];
+      return s;
+    }
+  }
+
+  /** Rolling statistics of the probes from one node to another */
+  public static class LinkStats extends Iced<LinkStats> {
+    public String _from, _to;
+    public int _samples;                  // Round trips measured, ever
+    public long _failures;                // Probes timed out, ever
+    public long _last_ms;                 // Time of the last probe
+    public double _rtt_p50_us, _rtt_p99_us, _rtt_max_us; // Over the window
+    public double _bandwidth;             // Median bytes/sec over the window
+    public long[] _rtt_histogram;         // Window counts of RTT in [2^i,2^(i+1)) usec
+  }
+
+  /** Latest statistics from this node to each peer probed */
+  public static LinkStats[] localStats() {
+    ArrayList<LinkStats> stats = new ArrayList<>();
+    for( H2ONode node : H2O.CLOUD.members() ) {
+      Link link = LINKS.get(node);
+      if( link != null ) stats.add(link.stats(node));
+    }
+    return stats.toArray(new LinkStats[stats.size()]);
+  }
+
+  /** Median bandwidth to the peer over the window, in bytes/sec; 0 if
+   *  not measured */
+  public static double bandwidth( H2ONode node ) {
+    Link link = LINKS.get(node);
+    return link == null ? 0 : link.stats(node)._bandwidth;
+  }
+
+  /** Statistics of all the links in the cloud */
+  public static class Report extends Iced<Report> {
+    public boolean _enabled;
+    public int _interval_secs;
+    public LinkStats[] _links;
+
+    public Report execImpl() {
+      _enabled = INTERVAL_SECS > 0;
+      _interval_secs = INTERVAL_SECS;
+      ArrayList<LinkStats> all = new ArrayList<>();
+      for( LinkStats[] ls : new Collector().doAllNodes()._links )
+        if( ls != null ) all.addAll(Arrays.asList(ls));
+      _links = all.toArray(new LinkStats[all.size()]);
+      return this;
+    }
+  }
+
+  private static class Collector extends MRTask<Collector> {
+    LinkStats[][] _links;       // Per node
+    Collector() { super(H2O.MIN_HI_PRIORITY); }
+    @Override public void setupLocal() {
+      _links = new LinkStats[H2O.CLOUD.size()][];
+      int idx = H2O.SELF.index();
+      if( idx >= 0 ) _links[idx] = localStats(); // Clients are not in the cloud
+    }
+    @Override public void reduce( Collector that ) {
+      for( int i = 0; i < _links.length; i++ )
+        if( _links[i] == null ) _links[i] = that._links[i];
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package water.network;
+
+import water.util.LZ4;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * A wrapper around node-to-node TCP channels which compresses the bytes
+ * written with {@link LZ4}, and decompresses them on the reading side.
+ *
+ * Every write is sent as one frame: a 4-byte payload length, a 4-byte raw
+ * length (0 if the payload is stored as-is), then the payload.  Writes below
+ * {@link #MIN_BYTES}, and writes which do not shrink, are stored as-is, so
+ * high-entropy data costs a compression attempt but no extra bytes beyond the
+ * frame header.  A write is always framed and sent in full before returning,
+ * so the channel holds no buffered output; the single handshake bytes
+ * {@link water.AutoBuffer} exchanges on the underlying socket at close are
+ * unaffected.
+ *
+ * Used for big-message connections when {@code -Dsys.ai.h2o.wire.compress}
+ * is set on the sending node and the receiving node advertises support in
+ * its heartbeat.
+ */
+public class CompressedChannel implements ByteChannel {
+
+    public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "wire.compress");
+    /** Writes smaller than this are not worth compressing */
+    public static final int MIN_BYTES = Integer.getInteger(SYSTEM_PROP_PREFIX + "wire.compress.min", 4096);
+
+    // Bytes handed to compressed channels for writing, and bytes they put on the wire
+    private static final AtomicLong RAW_OUT = new AtomicLong(), WIRE_OUT = new AtomicLong();
+
+    public static long rawBytesOut() { return RAW_OUT.get(); }
+    public static long wireBytesOut() { return WIRE_OUT.get(); }
+
+    private static final int HEADER = 8;
+
+    private final ByteChannel channel;
+    private byte[] raw = new byte[0], packed = new byte[0];
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER);
+    private ByteBuffer in = ByteBuffer.allocate(0); // Decompressed bytes not yet read
+
+    public CompressedChannel(ByteChannel channel) {
+        this.channel = channel;
+    }
+
+    ByteChannel channel() {
+        return channel;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int len = src.remaining();
+        if (len == 0) return 0;
+        if (raw.length < len) raw = new byte[len];
+        src.get(raw, 0, len);
+        int max = HEADER + LZ4.maxCompressedLength(len);
+        if (packed.length < max) packed = new byte[max];
+        int plen = len >= MIN_BYTES ? LZ4.compress(raw, 0, len, packed, HEADER) : len;
+        ByteBuffer frame;
+        if (plen < len) {
+            frame = ByteBuffer.wrap(packed, 0, HEADER + plen);
+            frame.putInt(plen).putInt(len);
+        } else {                // Store as-is
+            System.arraycopy(raw, 0, packed, HEADER, len);
+            frame = ByteBuffer.wrap(packed, 0, HEADER + len);
+            frame.putInt(len).putInt(0);
+        }
+        frame.position(0);
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+        RAW_OUT.addAndGet(len);
+        WIRE_OUT.addAndGet(frame.limit());
+        return len;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!in.hasRemaining()) {
+            header.clear();
+            if (!readFully(header, true)) return -1;
+            header.flip();
+            int plen = header.getInt(), len = header.getInt();
+            if (plen < 0 || len < 0) throw new IOException("Corrupt compressed frame: " + plen + "/" + len);
+            if (packed.length < plen) packed = new byte[plen];
+            readFully(ByteBuffer.wrap(packed, 0, plen), false);
+            if (len == 0) {
+                in = ByteBuffer.wrap(packed, 0, plen);
+            } else {
+                if (raw.length < len) raw = new byte[len];
+                try {
+                    LZ4.decompress(packed, 0, plen, raw, 0, len);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupt compressed frame", e);
+                }
+                in = ByteBuffer.wrap(raw, 0, len);
+            }
+        }
+        int n = Math.min(in.remaining(), dst.remaining());
+        int lim = in.limit();
+        in.limit(in.position() + n);
+        dst.put(in);
+        in.limit(lim);
+        return n;
+    }
+
+    // Fill bb; false if the channel is at EOF before any byte (only allowed at a frame start)
+    private boolean readFully(ByteBuffer bb, boolean eofOk) throws IOException {
+        while (bb.hasRemaining()) {
+            if (channel.read(bb) < 0) {
+                if (eofOk && bb.position() == 0) return false;
+                throw new EOFException("Channel closed mid-frame");
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -12,6 +12,9 @@ class SSLProperties extends Properties {
         return null;
     }
 
+    /** Restrict the cipher suites to AES-GCM, unless h2o_ssl_enabled_algorithms is set */
+    boolean h2o_ssl_aes_gcm() { return Boolean.parseBoolean(getProperty("h2o_ssl_aes_gcm")); }
+
     String h2o_ssl_protocol() { return getProperty("h2o_ssl_protocol", SecurityUtils.defaultTLSVersion()); }
 
     String h2o_ssl_jks_internal() { return getProperty("h2o_ssl_jks_internal"); }
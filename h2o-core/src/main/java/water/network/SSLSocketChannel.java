@@ -1,6 +1,5 @@
 package water.network;
 
-import water.H2O;
 import water.util.Log;
 
 import javax.net.ssl.SSLEngine;
@@ -13,6 +12,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
 /**
  * This class is based on:
  * <a href="https://docs.oracle.com/javase/8/docs/technotes/guides/security/jsse/JSSERefGuide.html">Oracle's JSSE guide.</a>
@@ -20,9 +21,20 @@ import java.nio.channels.SocketChannel;
  *
  * It's a simple wrapper around SocketChannels which enables SSL/TLS
  * communication using {@link javax.net.ssl.SSLEngine}.
+ *
+ * The network buffers are direct and hold up to {@link #RECORDS} TLS records
+ * ({@code -Dsys.ai.h2o.ssl.records}, 8 by default): a big write is wrapped
+ * into as many records as fit and sent with one socket write, and a read
+ * pulls in as many records as the socket has ready.  With one record per
+ * buffer, every ~16KB of payload cost a system call (plus a copy into a
+ * temporary direct buffer by the JDK).  The buffers live as long as the
+ * channel, i.e. as long as the pooled node-to-node socket.
  */
 class SSLSocketChannel implements ByteChannel {
 
+    /** TLS records batched per socket read and write */
+    static final int RECORDS = Math.max(1, Integer.getInteger(SYSTEM_PROP_PREFIX + "ssl.records", 8));
+
     // Empty buffer for handshakes
     private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
 
@@ -74,9 +86,9 @@ class SSLSocketChannel implements ByteChannel {
         // Value 64 was based on other frameworks using it and some manual testing. Might require tuning in the future.
         peerAppData = ByteBuffer.allocate(appBufferSize + 64);
 
-        int netBufferSize = session.getPacketBufferSize();
-        netInBuffer = ByteBuffer.allocate(netBufferSize);
-        netOutBuffer = ByteBuffer.allocate(netBufferSize);
+        int netBufferSize = session.getPacketBufferSize() * RECORDS;
+        netInBuffer = ByteBuffer.allocateDirect(netBufferSize);
+        netOutBuffer = ByteBuffer.allocateDirect(netBufferSize);
 
     }
 
@@ -255,7 +267,7 @@ class SSLSocketChannel implements ByteChannel {
                     if (packetBufferSize > netInBuffer.capacity()) {
                         int netSize = packetBufferSize;
                         if (netSize > netInBuffer.capacity()) {
-                            ByteBuffer b = ByteBuffer.allocate(netSize);
+                            ByteBuffer b = ByteBuffer.allocateDirect(netSize);
                             netInBuffer.flip();
                             b.put(netInBuffer);
                             netInBuffer = b;
@@ -307,16 +319,24 @@ class SSLSocketChannel implements ByteChannel {
         }
 
         int wrote = 0;
-        // src can be much bigger than what our SSL session allows to send in one go
+        int packetSize = sslEngine.getSession().getPacketBufferSize();
+        if (packetSize > netOutBuffer.capacity()) {
+            netOutBuffer = ByteBuffer.allocateDirect(packetSize * RECORDS);
+        }
+        // src can be much bigger than what our SSL session allows to send in one go;
+        // wrap as many records as fit, then send them all with one write
         while (src.hasRemaining()) {
             netOutBuffer.clear();
 
-            SSLEngineResult wrapResult = sslEngine.wrap(src, netOutBuffer);
-            netOutBuffer.flip();
-
-            if (wrapResult.getStatus() == SSLEngineResult.Status.OK) {
+            while (src.hasRemaining() && netOutBuffer.remaining() >= packetSize) {
+                SSLEngineResult wrapResult = sslEngine.wrap(src, netOutBuffer);
+                if (wrapResult.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new IOException("Cannot perform socket write, the SSL engine is closed.");
+                }
                 if (wrapResult.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) tasks();
+                if (wrapResult.getStatus() != SSLEngineResult.Status.OK) break;
             }
+            netOutBuffer.flip();
 
             while (netOutBuffer.hasRemaining()) {
                 wrote += channel.write(netOutBuffer);
@@ -10,6 +10,7 @@ import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 import java.security.*;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 
 public class SSLSocketChannelFactory {
 
@@ -97,18 +98,42 @@ public class SSLSocketChannelFactory {
             int port) throws IOException {
         SSLEngine sslEngine = sslContext.createSSLEngine(host, port);
         sslEngine.setUseClientMode(false);
-        if (null != properties.h2o_ssl_enabled_algorithms()) {
-            sslEngine.setEnabledCipherSuites(properties.h2o_ssl_enabled_algorithms());
-        }
+        enableCipherSuites(sslEngine);
         return new SSLSocketChannel(channel, sslEngine);
     }
 
     public ByteChannel wrapServerChannel(SocketChannel channel) throws IOException {
         SSLEngine sslEngine = sslContext.createSSLEngine();
         sslEngine.setUseClientMode(true);
+        enableCipherSuites(sslEngine);
+        return new SSLSocketChannel(channel, sslEngine);
+    }
+
+    private void enableCipherSuites(SSLEngine sslEngine) {
         if (null != properties.h2o_ssl_enabled_algorithms()) {
             sslEngine.setEnabledCipherSuites(properties.h2o_ssl_enabled_algorithms());
+        } else if (properties.h2o_ssl_aes_gcm()) {
+            String[] gcm = aesGcmSuites(sslEngine.getEnabledCipherSuites());
+            if (gcm.length > 0) {
+                sslEngine.setEnabledCipherSuites(gcm);
+            } else {
+                Log.warn("No AES-GCM cipher suites available, using the default cipher suites.");
+            }
         }
-        return new SSLSocketChannel(channel, sslEngine);
+    }
+
+    /**
+     * The AES-GCM suites among the given ones.  On recent JVMs both AES
+     * (AES-NI) and GHASH (carry-less multiply) run as intrinsics, which makes
+     * these much faster than the CBC/HMAC suites for bulk traffic.
+     */
+    static String[] aesGcmSuites(String[] suites) {
+        ArrayList<String> gcm = new ArrayList<>();
+        for (String suite : suites) {
+            if (suite.contains("_AES_") && suite.contains("_GCM_")) {
+                gcm.add(suite);
+            }
+        }
+        return gcm.toArray(new String[gcm.size()]);
     }
 }
@@ -7,11 +7,13 @@ import java.nio.channels.SocketChannel;
 public class SocketChannelUtils {
 
     public static boolean isSocketChannel(Channel channel) {
-        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel;
+        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel || channel instanceof CompressedChannel;
     }
 
     public static SocketChannel underlyingSocketChannel(Channel channel) {
-        if(channel instanceof SSLSocketChannel) {
+        if(channel instanceof CompressedChannel) {
+            return underlyingSocketChannel(((CompressedChannel) channel).channel());
+        } else if(channel instanceof SSLSocketChannel) {
             return ((SSLSocketChannel) channel).channel();
         } else if(channel instanceof SocketChannel) {
             return (SocketChannel) channel;
@@ -0,0 +1,218 @@
+package water.persist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.Key;
+import water.MemoryManager;
+import water.Value;
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.UtilUnsafe;
+import water.util.Log;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Memory-mapped swap space for the ice directory.  Instead of one file per
+ * spilled Value, Values are appended into large preallocated segment files
+ * which stay mapped for the life of the segment.  Swapped fixed-width Chunks
+ * are reloaded as a view of the mapping, paged in on demand with no heap
+ * copy (see {@link water.fvec.Chunk#readsOffHeap}); other Values get a heap
+ * copy out of the mapping.
+ * <p>
+ * Space is bump-allocated from the current segment.  Each segment counts its
+ * live bytes, and its file is deleted once every Value stored in it has been
+ * deleted or re-stored elsewhere.  A dead segment no view was taken of is
+ * unmapped at once, freeing its disk space.  One with views handed out
+ * stays mapped until they are all collected; no more views are handed out
+ * while such segments hold over {@code 2 * SEGMENT_SIZE} bytes.  Enabled with
+ * {@code -Dsys.ai.h2o.persist.mmap.swap=true}.  With {@link SwapCodec}
+ * enabled as well, segments hold framed Values; only those stored {@link
+ * SwapCodec#RAW} can be handed out as views.
+ */
+final class IceSegments {
+  static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "persist.mmap.swap");
+  /** Size of a segment file; larger Values get a dedicated segment */
+  static final int SEGMENT_SIZE = Integer.getInteger(SYSTEM_PROP_PREFIX + "persist.mmap.segment.size", 256 << 20);
+
+  private final File _dir;
+  private final int _segSize;
+  private final NonBlockingHashMap<Key,Slot> _slots = new NonBlockingHashMap<>();
+  private Segment _cur;         // Segment being filled; guarded by this
+  private int _nextIdx;         // Name of the next segment file; guarded by this
+  // Dead segments still mapped by outstanding views, and their sizes; guarded by this
+  private final ArrayList<WeakReference<MappedByteBuffer>> _pinned = new ArrayList<>();
+  private final ArrayList<Integer> _pinnedSizes = new ArrayList<>();
+  private volatile long _pinnedBytes;
+
+  IceSegments(File dir) { this(dir, SEGMENT_SIZE); }
+  IceSegments(File dir, int segSize) { _dir = dir; _segSize = segSize; }
+
+  /** A mapped segment file */
+  private static final class Segment {
+    final File _file;
+    final MappedByteBuffer _map;
+    int _top;                   // Bump pointer; guarded by the owning IceSegments
+    // Guarded by this Segment: views handed out, so never unmapped eagerly;
+    // copies in progress; and dead, so no new views or copies
+    private boolean _viewed, _dropped;
+    private int _readers;
+    final AtomicLong _live = new AtomicLong(); // Bytes still referenced by a Slot
+    Segment( File file, int size ) throws IOException {
+      _file = file;
+      try( RandomAccessFile raf = new RandomAccessFile(file, "rw") ) {
+        raf.setLength(size);
+        // The mapping stays valid after the channel is closed
+        _map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      }
+    }
+    synchronized boolean view() { if( _dropped ) return false; _viewed = true; return true; }
+    synchronized boolean enter() { if( _dropped ) return false; _readers++; return true; }
+    synchronized void exit() { if( --_readers == 0 && _dropped && !_viewed ) unmap(_map); }
+    // Dead: unmap now if nothing reads it; false if views keep it mapped
+    synchronized boolean drop() {
+      _dropped = true;
+      if( !_viewed && _readers == 0 ) unmap(_map);
+      return !_viewed;
+    }
+  }
+
+  /** Where a Value's bytes live */
+  private static final class Slot {
+    final Segment _seg;
+    final int _off, _len;
+    final byte _codec;          // SwapCodec frame header, or -1 if not framed
+    Slot( Segment seg, int off, int len, byte codec ) { _seg = seg; _off = off; _len = len; _codec = codec; }
+    ByteBuffer view( int off, int len ) {
+      ByteBuffer bb = _seg._map.duplicate();
+      bb.limit(_off + off + len).position(_off + off);
+      return bb.slice();
+    }
+  }
+
+  private synchronized Slot alloc( int len, byte codec ) throws IOException {
+    if( _cur == null || _cur._map.capacity() - _cur._top < len ) {
+      if( !_dir.mkdirs() && !_dir.exists() )
+        throw new IOException("mkdirs failed making " + _dir);
+      Segment old = _cur;
+      _cur = new Segment(new File(_dir, "seg" + (_nextIdx++)), Math.max(len, _segSize));
+      if( old != null && old._live.get() == 0 ) drop(old);
+    }
+    Slot s = new Slot(_cur, _cur._top, len, codec);
+    _cur._top += len;
+    _cur._live.addAndGet(len);
+    return s;
+  }
+
+  private synchronized void release( Slot s ) {
+    if( s._seg._live.addAndGet(-s._len) == 0 && s._seg != _cur )
+      drop(s._seg);
+  }
+
+  // Unlink a fully dead segment.  Unmapped now unless views were handed out,
+  // which keep the mapping (and the disk space) until they are collected.
+  private void drop( Segment seg ) {
+    if( !seg._file.delete() )
+      Log.debug("Unable to delete swap segment " + seg._file);
+    if( seg.drop() ) return;
+    _pinned.add(new WeakReference<>(seg._map));
+    _pinnedSizes.add(seg._map.capacity());
+    prunePinned();
+  }
+
+  // Forget pinned segments whose views are all collected
+  private void prunePinned() {
+    long bytes = 0;
+    for( int i = _pinned.size() - 1; i >= 0; i-- )
+      if( _pinned.get(i).get() == null ) { _pinned.remove(i); _pinnedSizes.remove(i); }
+      else bytes += _pinnedSizes.get(i);
+    _pinnedBytes = bytes;
+  }
+
+  /** Bytes of dead segments still mapped by outstanding views */
+  synchronized long pinnedBytes() { prunePinned(); return _pinnedBytes; }
+
+  // Release the mapping now rather than when the buffer is collected; best
+  // effort, else it is left to the GC.  Only safe with no views outstanding.
+  private static void unmap( MappedByteBuffer map ) {
+    try {                       // Java 9+
+      Object unsafe = UtilUnsafe.getUnsafe();
+      unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class).invoke(unsafe, map);
+      return;
+    } catch( NoSuchMethodException ignore ) { // Java 7/8, below
+    } catch( Exception e ) { Log.debug("Unable to unmap swap segment: " + e); return; }
+    try {
+      Method cleaner = map.getClass().getMethod("cleaner");
+      cleaner.setAccessible(true);
+      Object c = cleaner.invoke(map);
+      if( c != null ) c.getClass().getMethod("clean").invoke(c);
+    } catch( Exception e ) { Log.debug("Unable to unmap swap segment: " + e); }
+  }
+
+  void store( Value v ) throws IOException {
+    byte[] m = v.memOrLoad(); // we are not single threaded anymore
+    if( m.length != v._max ) {
+      Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length + " v._max=" + v._max);
+      v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
+    }
+    byte[] b = SwapCodec.ENABLED ? SwapCodec.encode(m) : m;
+    Slot s = alloc(b.length, SwapCodec.ENABLED ? b[0] : -1);
+    s.view(0, b.length).put(b);
+    Slot old = _slots.put(v._key, s);
+    if( old != null ) release(old);
+  }
+
+  /** @return A heap copy of the stored bytes, or null for a racing delete.
+   *  Only for Values which cannot be read in place from a {@link #view}. */
+  byte[] load( Value v ) throws IOException {
+    Slot s = _slots.get(v._key);
+    if( s == null || (s._codec == -1 && s._len < v._max) ) {
+      assert !v.isPersisted() : v._key; // A racey delete of a spilled value
+      return null;
+    }
+    byte[] b = MemoryManager.malloc1(s._len);
+    if( !s._seg.enter() ) return null; // Racing delete dropped the segment
+    try { s.view(0, s._len).get(b); }
+    finally { s._seg.exit(); }
+    return s._codec == -1 ? b : SwapCodec.decode(b, v._max);
+  }
+
+  /** @return A read-only view of the stored bytes, or null for a racing
+   *  delete, a compressed Value, or too many dead segments pinned by views */
+  ByteBuffer view( Value v ) {
+    Slot s = _slots.get(v._key);
+    if( s == null ) return null;
+    long max = 2L * _segSize;   // Dead segments kept mapped by views, before views are refused
+    if( _pinnedBytes > max && pinnedBytes() > max ) return null;
+    int off = 0;
+    if( s._codec != -1 ) {
+      if( s._codec != SwapCodec.RAW ) return null;
+      off = 1;                  // Skip the frame header
+    }
+    if( s._len - off < v._max ) return null;
+    if( !s._seg.view() ) return null; // Racing delete dropped the segment
+    return s.view(off, v._max).asReadOnlyBuffer();
+  }
+
+  /** Forget all segments; the files are removed along with the ice directory */
+  synchronized void clear() {
+    _slots.clear();
+    _cur = null;
+    _pinned.clear();
+    _pinnedSizes.clear();
+    _pinnedBytes = 0;
+  }
+
+  void delete( Value v ) {
+    Slot s = _slots.remove(v._key);
+    if( s != null ) release(s);
+  }
+}
@@ -2,11 +2,15 @@ package water.persist;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import water.*;
+import water.api.FSIOException;
+import water.util.FileUtils;
 import water.util.Log;
 
 /** Abstract class describing various persistence targets.
@@ -25,6 +29,16 @@ public abstract class Persist {
   /** Load a previously stored Value */
   abstract public byte[] load(Value v) throws IOException;
 
+  /** A read-only view of a previously stored Value, without copying it onto
+   *  the heap; null if this backend cannot provide one (the default). */
+  public ByteBuffer loadView(Value v) throws IOException { return null; }
+
+  /** Write the bytes of a previously stored Value straight to a channel,
+   *  e.g. with {@link java.nio.channels.FileChannel#transferTo}, without
+   *  copying them onto the heap; false if this backend cannot (the default),
+   *  in which case nothing was written. */
+  public boolean transferTo(Value v, WritableByteChannel ch) throws IOException { return false; }
+
   /** Reclaim space from a previously stored Value */
   abstract public void delete(Value v);
 
@@ -213,6 +227,20 @@ public abstract class Persist {
     throw new RuntimeException("Not implemented");
   }
 
+  /** Open the file for reading from byte offset pos.  Backends which can
+   *  seek, or fetch a byte range, override this so the bytes before pos are
+   *  never read; by default they are read and skipped. */
+  public InputStream open(String path, long pos) {
+    InputStream is = open(path);
+    try {
+      FileUtils.skipFully(is, pos);
+      return is;
+    } catch (IOException e) {
+      FileUtils.close(is);
+      throw new FSIOException(path, e);
+    }
+  }
+
   public boolean mkdirs(String path) {
     throw new RuntimeException("Not implemented");
   }
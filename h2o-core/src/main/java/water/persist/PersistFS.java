@@ -2,11 +2,15 @@ package water.persist;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 
 import water.*;
 import water.api.FSIOException;
 import water.fvec.NFSFileVec;
+import water.util.FileUtils;
 import water.util.Log;
 
 /**
@@ -15,10 +19,12 @@ import water.util.Log;
 public final class PersistFS extends Persist {
   final File _root;
   final File _dir;
+  final IceSegments _segments; // Memory-mapped swap segments, or null for a file per Value
 
   PersistFS(File root) {
     _root = root;
     _dir = new File(root, "ice" + H2O.API_PORT);
+    _segments = IceSegments.ENABLED ? new IceSegments(new File(_dir, "segments")) : null;
     //deleteRecursive(_dir);
     // Make the directory as-needed
     root.mkdirs();
@@ -26,7 +32,10 @@ public final class PersistFS extends Persist {
       H2O.die("ice_root not a read/writable directory");
   }
 
-  public void cleanUp() { deleteRecursive(_dir); }
+  public void cleanUp() {
+    if( _segments != null ) _segments.clear();
+    deleteRecursive(_dir);
+  }
 
   private static void deleteRecursive(File path) {
     if( !path.exists() ) return;
@@ -47,7 +56,20 @@ public final class PersistFS extends Persist {
   }
 
   @Override public byte[] load(Value v) throws IOException {
+    if( _segments != null ) return _segments.load(v);
     File f = getFile(v);
+    if( SwapCodec.ENABLED ) {   // Framed, so the size on disk is not _max
+      if( !f.exists() ) {       // Racey delete of a spilled value
+        assert !v.isPersisted() : v._key;
+        return null;
+      }
+      try (FileInputStream s = new FileInputStream(f)) {
+        AutoBuffer ab = new AutoBuffer(s.getChannel(), true, Value.ICE);
+        byte[] b = ab.getA1((int)f.length());
+        ab.close();
+        return SwapCodec.decode(b, v._max);
+      }
+    }
     if( f.length() < v._max ) { // Should be fully on disk...
       // or it's a racey delete of a spilled value
       assert !v.isPersisted() : f.length() + " " + v._max + " " + v._key;
@@ -61,9 +83,31 @@ public final class PersistFS extends Persist {
       }
   }
 
+  @Override public ByteBuffer loadView(Value v) {
+    return _segments == null ? null : _segments.view(v);
+  }
+
+  // Only plain files hold the raw bytes; compressed swap must be decoded
+  @Override public boolean transferTo(Value v, WritableByteChannel ch) throws IOException {
+    if( _segments != null || SwapCodec.ENABLED ) return false;
+    File f = getFile(v);
+    if( f.length() < v._max ) return false; // Racey delete; let load() sort it out
+    try (FileInputStream s = new FileInputStream(f)) {
+      FileChannel fc = s.getChannel();
+      long pos = 0;
+      while( pos < v._max ) {
+        long n = fc.transferTo(pos, v._max - pos, ch);
+        if( n <= 0 ) throw new EOFException("Short transfer of " + f); // Blocking channels always progress
+        pos += n;
+      }
+    }
+    return true;
+  }
+
   // Store Value v to disk.
   @Override public void store(Value v) throws IOException {
     assert !v.isPersisted();
+    if( _segments != null ) { _segments.store(v); return; }
     File dirs = new File(_dir, getIceDirectory(v._key));
     if( !dirs.mkdirs() && !dirs.exists() )
       throw new java.io.IOException("mkdirs failed making "+dirs);
@@ -73,6 +117,7 @@ public final class PersistFS extends Persist {
           Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
           v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
         }
+        if( SwapCodec.ENABLED ) m = SwapCodec.encode(m);
         new AutoBuffer(s.getChannel(), false, Value.ICE).putA1(m, m.length).close();
       } catch( AutoBuffer.AutoBufferException abe ) {
       throw abe._ioe;
@@ -80,6 +125,7 @@ public final class PersistFS extends Persist {
   }
 
   @Override public void delete(Value v) {
+    if( _segments != null ) { _segments.delete(v); return; }
     getFile(v).delete();        // Silently ignore errors
     // Attempt to delete empty containing directory
     new File(_dir, getIceDirectory(v._key)).delete();
@@ -162,6 +208,18 @@ public final class PersistFS extends Persist {
     }
   }
 
+  @Override
+  public InputStream open(String path, long pos) {
+    FileInputStream is = (FileInputStream)open(path);
+    try {
+      is.getChannel().position(pos);
+      return is;
+    } catch (IOException e) {
+      FileUtils.close(is);
+      throw new FSIOException(path, e);
+    }
+  }
+
   @Override
   public boolean mkdirs(String path) {
     return new File(URI.create(path)).mkdirs();
@@ -172,6 +230,11 @@ public final class PersistFS extends Persist {
     return new File(URI.create(path)).exists();
   }
 
+  @Override
+  public long length(String path) {
+    return new File(URI.create(path)).length();
+  }
+
   @Override
   public boolean isDirectory(String path) {
     return new File(URI.create(path)).isDirectory();
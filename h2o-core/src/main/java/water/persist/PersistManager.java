@@ -14,6 +14,8 @@ import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
@@ -163,6 +165,24 @@ public class PersistManager {
     return arr;
   }
 
+  public ByteBuffer loadView(int backend, Value v) throws IOException {
+    ByteBuffer bb = I[backend].loadView(v);
+    if( bb != null ) {
+      stats[backend].load_count.incrementAndGet();
+      stats[backend].load_bytes.addAndGet(bb.remaining());
+    }
+    return bb;
+  }
+
+  public boolean transferTo(int backend, Value v, WritableByteChannel ch) throws IOException {
+    boolean done = I[backend].transferTo(v, ch);
+    if( done ) {
+      stats[backend].load_count.incrementAndGet();
+      stats[backend].load_bytes.addAndGet(v._max);
+    }
+    return done;
+  }
+
   /** Get the current Persist flavor for user-mode swapping. */
   public Persist getIce() { return I[Value.ICE]; }
 
@@ -0,0 +1,77 @@
+package water.persist;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import water.MemoryManager;
+import water.util.LZ4;
+import water.util.PrettyPrint;
+
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+
+/**
+ * Optional compression of Values spilled to the ice directory, for ice
+ * volumes where disk bandwidth rather than CPU limits swapping.  Enabled with
+ * {@code -Dsys.ai.h2o.persist.swap.compress=true}.
+ * <p>
+ * Each spilled Value is framed with a one-byte header recording whether
+ * compression paid off for it: {@link #COMPRESSED} (LZ4) blocks are kept
+ * only when they save at least 1/8th of the bytes, otherwise the Value is
+ * written {@link #RAW} and costs nothing extra to reload.  The uncompressed length is the
+ * Value's own {@code _max}, so it is not repeated in the frame.
+ */
+public final class SwapCodec {
+  public static final boolean ENABLED = Boolean.getBoolean(SYSTEM_PROP_PREFIX + "persist.swap.compress");
+
+  static final byte RAW = 0;
+  static final byte COMPRESSED = 1; // An LZ4 block
+
+  // Totals over all spills: uncompressed bytes in, framed bytes out, and how
+  // many Values did (or did not) compress well enough to keep.
+  static final AtomicLong RAW_BYTES = new AtomicLong();
+  static final AtomicLong STORED_BYTES = new AtomicLong();
+  static final AtomicLong PAID_OFF = new AtomicLong();
+  static final AtomicLong NOT_PAID_OFF = new AtomicLong();
+
+  /** @return The framed, possibly compressed, form of raw */
+  static byte[] encode( byte[] raw ) {
+    byte[] buf = MemoryManager.malloc1(1 + LZ4.maxCompressedLength(raw.length));
+    int clen = LZ4.compress(raw, 0, raw.length, buf, 1);
+    byte[] res;
+    if( clen < raw.length - (raw.length>>3) ) {
+      buf[0] = COMPRESSED;
+      res = MemoryManager.arrayCopyOf(buf, 1 + clen);
+      PAID_OFF.incrementAndGet();
+    } else {
+      res = MemoryManager.malloc1(1 + raw.length);
+      res[0] = RAW;
+      System.arraycopy(raw, 0, res, 1, raw.length);
+      NOT_PAID_OFF.incrementAndGet();
+    }
+    RAW_BYTES.addAndGet(raw.length);
+    STORED_BYTES.addAndGet(res.length);
+    return res;
+  }
+
+  /** @return The raw bytes of a frame holding a Value of length max */
+  static byte[] decode( byte[] frame, int max ) throws IOException {
+    switch( frame[0] ) {
+    case RAW:
+      if( frame.length - 1 != max ) throw new IOException("Swap frame size mismatch: " + (frame.length - 1) + " != " + max);
+      return MemoryManager.arrayCopyOfRange(frame, 1, frame.length);
+    case COMPRESSED:
+      byte[] raw = MemoryManager.malloc1(max);
+      try { LZ4.decompress(frame, 1, frame.length - 1, raw, 0, max); }
+      catch( IllegalArgumentException iae ) { throw new IOException(iae); }
+      return raw;
+    default:
+      throw new IOException("Unknown swap codec " + frame[0]);
+    }
+  }
+
+  /** @return One-line summary of swap compression so far, for logging */
+  public static String summary() {
+    return "swap compression: " + PrettyPrint.bytes(RAW_BYTES.get()) + " -> " + PrettyPrint.bytes(STORED_BYTES.get()) +
+      ", paid off for " + PAID_OFF.get() + " of " + (PAID_OFF.get() + NOT_PAID_OFF.get()) + " values";
+  }
+}
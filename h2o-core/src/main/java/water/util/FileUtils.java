@@ -21,6 +21,18 @@ public class FileUtils {
       try { if( c != null ) c.close(); } catch( IOException xe ) { }
   }
 
+  /** Skip exactly n bytes of the stream, reading where it cannot skip */
+  public static void skipFully(InputStream is, long n) throws IOException {
+    while( n > 0 ) {
+      long s = is.skip(n);
+      if( s <= 0 ) {            // Some streams only skip what is buffered
+        if( is.read() < 0 ) throw new EOFException("Unexpected end of file");
+        s = 1;
+      }
+      n -= s;
+    }
+  }
+
   public static void copyStream(InputStream is, OutputStream os, final int buffer_size) {
     try {
       byte[] bytes=new byte[buffer_size];
@@ -0,0 +1,123 @@
+package water.util;
+
+import java.util.Arrays;
+
+/** A small pure-Java compressor producing the LZ4 block format.
+ *  <p>
+ *  Speed over ratio: a single-probe hash table of 4-byte sequences over a 64K
+ *  window, no match chains.  Intended for data moving to disk or over the
+ *  wire, where the I/O is slower than this compressor.  Blocks carry no
+ *  length header; callers record the uncompressed length themselves.
+ */
+public final class LZ4 {
+  private LZ4() {}
+
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_LOG = 12;
+  private static final int MAX_DISTANCE = 65535;
+  private static final int LAST_LITERALS = 5;  // Block must end in literals...
+  private static final int MF_LIMIT = 12;      // ...and the last match start this far from the end
+
+  /** @return Worst-case compressed size for an input of the given length */
+  public static int maxCompressedLength( int len ) { return len + len/255 + 16; }
+
+  /** Compress a range of src into dst, which must have at least {@link
+   *  #maxCompressedLength} bytes free past dstOff.
+   *  @return The compressed length */
+  public static int compress( byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff ) {
+    final int sEnd = srcOff + srcLen;
+    final int mfLimit = sEnd - MF_LIMIT;
+    final int matchLimit = sEnd - LAST_LITERALS;
+    int[] table = new int[1<<HASH_LOG];
+    Arrays.fill(table, -1);
+    int anchor = srcOff, ip = srcOff, op = dstOff;
+    while( ip < mfLimit ) {
+      int seq = UnsafeUtils.get4(src, ip);
+      int h = hash(seq);
+      int ref = table[h];
+      table[h] = ip;
+      if( ref < 0 || ip - ref > MAX_DISTANCE || UnsafeUtils.get4(src, ref) != seq ) { ip++; continue; }
+      // Extend the match forwards, then backwards over pending literals
+      int mlen = MIN_MATCH;
+      while( ip + mlen < matchLimit && src[ip+mlen] == src[ref+mlen] ) mlen++;
+      while( ip > anchor && ref > srcOff && src[ip-1] == src[ref-1] ) { ip--; ref--; mlen++; }
+      // Emit literals, then the match
+      int litLen = ip - anchor;
+      int tokenPos = op++;
+      int token = Math.min(litLen, 15) << 4;
+      if( litLen >= 15 ) op = putLength(dst, op, litLen - 15);
+      System.arraycopy(src, anchor, dst, op, litLen);
+      op += litLen;
+      int off = ip - ref;
+      dst[op++] = (byte)off;
+      dst[op++] = (byte)(off>>>8);
+      int ml = mlen - MIN_MATCH;
+      token |= Math.min(ml, 15);
+      if( ml >= 15 ) op = putLength(dst, op, ml - 15);
+      dst[tokenPos] = (byte)token;
+      ip += mlen;
+      anchor = ip;
+    }
+    // Trailing literals
+    int litLen = sEnd - anchor;
+    int tokenPos = op++;
+    dst[tokenPos] = (byte)(Math.min(litLen, 15) << 4);
+    if( litLen >= 15 ) op = putLength(dst, op, litLen - 15);
+    System.arraycopy(src, anchor, dst, op, litLen);
+    op += litLen;
+    return op - dstOff;
+  }
+
+  /** Compress all of src.
+   *  @return A right-sized array holding the compressed block */
+  public static byte[] compress( byte[] src ) {
+    byte[] dst = new byte[maxCompressedLength(src.length)];
+    return Arrays.copyOf(dst, compress(src, 0, src.length, dst, 0));
+  }
+
+  /** Decompress a block into exactly dstLen bytes of dst.
+   *  @throws IllegalArgumentException for a malformed block */
+  public static void decompress( byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen ) {
+    final int sEnd = srcOff + srcLen;
+    int ip = srcOff, op = dstOff;
+    try {
+      while( true ) {
+        int token = src[ip++] & 0xFF;
+        int litLen = token >>> 4;
+        if( litLen == 15 ) { int b; do { b = src[ip++] & 0xFF; litLen += b; } while( b == 255 ); }
+        System.arraycopy(src, ip, dst, op, litLen);
+        ip += litLen;
+        op += litLen;
+        if( ip >= sEnd ) break; // Last sequence has no match
+        int off = (src[ip++] & 0xFF) | ((src[ip++] & 0xFF) << 8);
+        int mlen = token & 15;
+        if( mlen == 15 ) { int b; do { b = src[ip++] & 0xFF; mlen += b; } while( b == 255 ); }
+        mlen += MIN_MATCH;
+        int ref = op - off;
+        if( off == 0 || ref < dstOff ) throw new IllegalArgumentException("Malformed LZ4 block: bad offset " + off);
+        if( off >= mlen ) System.arraycopy(dst, ref, dst, op, mlen);
+        else for( int i = 0; i < mlen; i++ ) dst[op+i] = dst[ref+i]; // Overlapping copy
+        op += mlen;
+      }
+    } catch( IndexOutOfBoundsException e ) {
+      throw new IllegalArgumentException("Malformed LZ4 block: " + e);
+    }
+    if( op - dstOff != dstLen )
+      throw new IllegalArgumentException("Malformed LZ4 block: decoded " + (op - dstOff) + " bytes, expected " + dstLen);
+  }
+
+  /** Decompress a whole block of known uncompressed length. */
+  public static byte[] decompress( byte[] src, int dstLen ) {
+    byte[] dst = new byte[dstLen];
+    decompress(src, 0, src.length, dst, 0, dstLen);
+    return dst;
+  }
+
+  private static int hash( int seq ) { return (seq * -1640531535) >>> (32 - HASH_LOG); }
+
+  private static int putLength( byte[] dst, int op, int n ) {
+    while( n >= 255 ) { dst[op++] = (byte)255; n -= 255; }
+    dst[op++] = (byte)n;
+    return op;
+  }
+}
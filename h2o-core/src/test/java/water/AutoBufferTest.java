@@ -6,6 +6,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -57,6 +58,53 @@ public class AutoBufferTest extends TestUtil {
     ab.close();
   }
 
+  // All-primitive Iced: serialized as packed runs, including the private and
+  // final fields set through Unsafe
+  static class Prims extends Iced<Prims> {
+    boolean _z; byte _b; char _c; short _s; int _i; float _f; long _l; double _d;
+    private boolean _pz; private short _ps; private long _pl;
+    final double _fd;
+    String _str;                // Breaks the run
+    int _i2; double _d2;
+    Prims() { _fd = 0; }
+    Prims( int seed ) {
+      _z = seed % 2 == 0; _b = (byte)seed; _c = (char)(seed+'a'); _s = (short)-seed; _i = seed*31;
+      _f = seed/3f; _l = -seed*1000000007L; _d = seed/7.0;
+      _pz = !_z; _ps = (short)(seed*3); _pl = Long.MIN_VALUE+seed;
+      _fd = Math.PI*seed; _str = "s"+seed; _i2 = ~seed; _d2 = -_d;
+    }
+    void assertSame( Prims p ) {
+      assertEquals(_z, p._z); assertEquals(_b, p._b); assertEquals(_c, p._c); assertEquals(_s, p._s);
+      assertEquals(_i, p._i); assertEquals(_f, p._f, 0); assertEquals(_l, p._l); assertEquals(_d, p._d, 0);
+      assertEquals(_pz, p._pz); assertEquals(_ps, p._ps); assertEquals(_pl, p._pl); assertEquals(_fd, p._fd, 0);
+      assertEquals(_str, p._str); assertEquals(_i2, p._i2); assertEquals(_d2, p._d2, 0);
+    }
+  }
+
+  @Test
+  public void testPackedPrimitives() {
+    AutoBuffer ab = new AutoBuffer();
+    for( int i = 0; i < 100; i++ ) ab.put(new Prims(i));
+    ab.flipForReading();
+    for( int i = 0; i < 100; i++ ) new Prims(i).assertSame(ab.<Prims>get());
+  }
+
+  @Test
+  public void testNarrowArrays() {
+    long[][] longs = { {0,0,1,2,255,0}, {-1,300,-32768,0}, {70000,-70000,Integer.MIN_VALUE+1}, {Long.MAX_VALUE,1}, {}, {0,0} };
+    boolean[] bools = new boolean[1001];
+    for( int i = 0; i < bools.length; i += 3 ) bools[i] = true;
+    long[] big = new long[100000];      // Several expansions of the buffer
+    for( int i = 0; i < big.length; i++ ) big[i] = i % 200;
+    AutoBuffer ab = new AutoBuffer();
+    for( long[] ls : longs ) ab.putA8(ls);
+    ab.putAZ(bools).putA8(big);
+    ab.flipForReading();
+    for( long[] ls : longs ) assertArrayEquals(ls, ab.getA8());
+    assertTrue(Arrays.equals(bools, ab.getAZ()));
+    assertArrayEquals(big, ab.getA8());
+  }
+
   static class XYZZY implements Serializable {
     int i = 1;
     String s = "hi";
@@ -0,0 +1,46 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class BufferPoolTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testSizeClasses() {
+    assertEquals(BufferPool.MIN_SIZE, BufferPool.take(1).length);
+    assertEquals(64, BufferPool.take(33).length);
+    assertEquals(64, BufferPool.take(64).length);
+    assertEquals(BufferPool.MAX_SIZE, BufferPool.take(BufferPool.MAX_SIZE).length);
+    assertEquals(BufferPool.MAX_SIZE + 1, BufferPool.take(BufferPool.MAX_SIZE + 1).length); // Not pooled
+  }
+
+  @Test public void testRecycle() {
+    assumeTrue(BufferPool.ENABLED);
+    // Other threads share the pool; a returned array comes back unless
+    // somebody else took it meanwhile, so only check it is never handed out twice
+    byte[] a = BufferPool.take(1000);
+    BufferPool.give(a);
+    byte[] b = BufferPool.take(1000), c = BufferPool.take(1000);
+    assertNotSame(b, c);
+    BufferPool.give(b);
+    BufferPool.give(c);
+    BufferPool.give(new byte[1000]); // Not a size class: dropped
+  }
+
+  @Test public void testCopy() {
+    ByteBuffer bb = ByteBuffer.allocate(100);
+    for( int i = 0; i < 100; i++ ) bb.put((byte)i);
+    bb.flip().position(10);
+    ByteBuffer c = BufferPool.copy(bb);
+    assertEquals(10, bb.position()); // Source untouched
+    assertEquals(0, c.position());
+    assertEquals(90, c.limit());
+    assertEquals(10, c.get(0));
+    assertEquals(99, c.get(89));
+  }
+}
@@ -0,0 +1,55 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CancelledJobsTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static CountDownLatch GO;
+
+  // Every map call holds its thread until GO
+  private static class Wait extends MRTask<Wait> {
+    long _n;
+    @Override public void map( Chunk c ) {
+      try { GO.await(10, TimeUnit.SECONDS); } catch( InterruptedException ignore ) { }
+      _n = c._len;
+    }
+    @Override public void reduce( Wait w ) { _n += w._n; }
+  }
+
+  @Test public void testDropQueuedMaps() {
+    Key<Job> job = Key.make();
+    FairShare.Flow flow = new FairShare.Flow(1).forJob(job);
+    // Many more Chunks than threads: most map calls are queued
+    Vec v = Vec.makeCon(0, (4 * H2O.ARGS.nthreads + 16) << 4, 4, false);
+    try {
+      GO = new CountDownLatch(1);
+      Wait w;
+      FairShare.Flow outer = FairShare.enter(flow);
+      try { w = new Wait().dfork(v); } finally { FairShare.exit(outer); }
+      CancelledJobs.cancel(job);
+      GO.countDown();
+      try {
+        w.getResult();
+        fail("Expected the MRTask to be cancelled");
+      } catch( RuntimeException ex ) {
+        assertTrue(Job.isCancelledException(ex));
+      }
+      assertNotNull(CancelledJobs.report(job));
+
+      // Started after the cancel, MRTasks run in full: the Job can clean up
+      outer = FairShare.enter(flow);
+      try { assertEquals(v.length(), new Wait().doAll(v)._n); } finally { FairShare.exit(outer); }
+    } finally {
+      v.remove();
+    }
+  }
+}
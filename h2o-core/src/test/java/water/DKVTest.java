@@ -124,4 +124,62 @@ public class DKVTest extends TestUtil {
     }
   }
 
+
+  @Test
+  public void testBatchedPutGetRemove() {
+    final int N = 500;
+    Key[] keys = new Key[N + 1];
+    Value[] vals = new Value[N + 1];
+    for (int i = 0; i < N; i++) {
+      keys[i] = Key.make("batch" + i);
+      vals[i] = new Value(keys[i], new IcedInt(i));
+    }
+    keys[N] = keys[0];          // 2nd Put to the same Key in one batch
+    vals[N] = new Value(keys[0], new IcedInt(-1));
+    try {
+      Futures fs = new Futures();
+      DKV.put(keys, vals, fs, false);
+      fs.blockForPending();
+      Value[] got = DKV.get(Arrays.copyOf(keys, N));
+      Assert.assertEquals(-1, ((IcedInt) got[0].get())._val);
+      for (int i = 1; i < N; i++)
+        Assert.assertEquals(i, ((IcedInt) got[i].get())._val);
+      // Every node sees the batch, whether the Keys are homed there or not
+      new MRTask() {
+        @Override public void setupLocal() {
+          Key[] ks = new Key[N];
+          for (int i = 0; i < N; i++) ks[i] = Key.make("batch" + i);
+          Value[] vs = DKV.get(ks);
+          for (int i = 1; i < N; i++)
+            if (((IcedInt) vs[i].get())._val != i) throw new IllegalStateException("Bad value for " + ks[i]);
+        }
+      }.doAllNodes();
+    } finally {
+      Futures fs = new Futures();
+      DKV.remove(Arrays.copyOf(keys, N), fs);
+      fs.blockForPending();
+    }
+    for (Value v : DKV.get(Arrays.copyOf(keys, N)))
+      Assert.assertNull(v);
+  }
+
+  @Test
+  public void testBatchedPutVisibleWhenQueued() {
+    Key k = Key.make("batchQueued");
+    Value v = new Value(k, new IcedInt(7));
+    TaskPutKeys.Batch batch = new TaskPutKeys.Batch(false);
+    batch.add(H2O.SELF, k, v);
+    // Local Gets see the Put before the batch is sent
+    TaskPutKey tpk = H2O.SELF.pendingPutKey(k);
+    Assert.assertNotNull(tpk);
+    Assert.assertSame(v, tpk.pendingValue(k));
+    H2O.SELF.unqueuePutKey(k, tpk);
+    Assert.assertNull(H2O.SELF.pendingPutKey(k));
+  }
+
+  @Test
+  public void testAckedBatchedRemove() {
+    // A remove acks with no Value; nothing to uncache or complete
+    TaskPutKey.acked(Key.make("batchRemoved"), null, true);
+  }
 }
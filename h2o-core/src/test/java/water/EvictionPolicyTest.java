@@ -0,0 +1,64 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.util.ArrayUtils;
+import water.util.IcedInt;
+
+import static org.junit.Assert.*;
+
+public class EvictionPolicyTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testAccessTracking() {
+    Value v = new Value(Key.make("evict0"), new IcedInt(0));
+    assertEquals(0, v.prevAccessedTime());
+    long then = System.currentTimeMillis() - 10*Value.CORRELATED_MS;
+    v.touchAt(then);
+    v.get();
+    assertEquals(then, v.prevAccessedTime());
+    v.get();                    // Correlated with the prior touch
+    assertEquals(then, v.prevAccessedTime());
+  }
+
+  @Test public void testLRU2PrefersReusedValues() {
+    long now = System.currentTimeMillis();
+    Value reused = new Value(Key.make("evict1"), new IcedInt(1));
+    reused.touchAt(now - 10*Value.CORRELATED_MS);
+    reused.get();               // Second access
+    Value once = new Value(Key.make("evict2"), new IcedInt(2));
+    once.get();                 // Most recent, but only access
+
+    EvictionPolicy lru = EvictionPolicy.make("lru");
+    EvictionPolicy lru2 = EvictionPolicy.make("lru2");
+    assertTrue(lru2 instanceof EvictionPolicy.LRU2);
+    assertTrue(lru.evictionTime(once) >= lru.evictionTime(reused));
+    assertTrue(lru2.evictionTime(once) < lru2.evictionTime(reused));
+  }
+
+  @Test public void testSegmentedHistogram() {
+    for( int i = 0; i < 100; i++ ) DKV.put(Key.make("evict.histo" + i), new IcedInt(i));
+    try {
+      Object[] kvs = H2O.STORE.raw_array();
+      int nslots = (kvs.length - 2) >> 1, third = nslots / 3;
+      long eldest = System.currentTimeMillis() - 60000;
+      Cleaner.Histo whole = new Cleaner.Histo(eldest, kvs, 0, nslots);
+      Cleaner.Histo sum = new Cleaner.Histo(eldest, new Cleaner.Histo[]{
+          new Cleaner.Histo(eldest, kvs, 0, third),
+          new Cleaner.Histo(eldest, kvs, third, 2 * third),
+          new Cleaner.Histo(eldest, kvs, 2 * third, nslots)}, false);
+      assertTrue(whole._cached > 0);
+      assertEquals(whole._cached, sum._cached);
+      assertEquals(whole._total, sum._total);
+      assertEquals(whole._swapped, sum._swapped);
+      assertEquals(whole._oldest, sum._oldest);
+      assertEquals(ArrayUtils.sum(whole._hs), ArrayUtils.sum(sum._hs));
+    } finally {
+      for( int i = 0; i < 100; i++ ) DKV.remove(Key.make("evict.histo" + i));
+    }
+  }
+
+  @Test public void testUnknownPolicyFallsBackToLRU() {
+    assertTrue(EvictionPolicy.make("no.such.Policy") instanceof EvictionPolicy.LRU);
+  }
+}
@@ -0,0 +1,44 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FairShareTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static class Work extends MRTask<Work> {
+    final char _flow;
+    Work( char flow ) { _flow = flow; }
+  }
+
+  @Test public void testWeightedOrder() {
+    FairShare.Flow a = new FairShare.Flow(1), b = new FairShare.Flow(1), c = new FairShare.Flow(2);
+    int slots = FairShare.slots();
+    // Flow a takes every slot, then queues a backlog
+    for( int i = 0; i < slots; i++ ) assertFalse(FairShare.park(new Work('a'), a));
+    for( int i = 0; i < 20; i++ ) assertTrue(FairShare.park(new Work('a'), a));
+    // Later flows are served right away, in proportion to their weights
+    for( int i = 0; i < 20; i++ ) assertTrue(FairShare.park(new Work('b'), b));
+    for( int i = 0; i < 20; i++ ) assertTrue(FairShare.park(new Work('c'), c));
+    int na = 0, nb = 0, nc = 0;
+    for( int i = 0; i < 16; i++ ) {
+      Work w = (Work)FairShare.next();
+      assertTrue(w._fsAdmitted);
+      if( w._flow == 'a' ) na++; else if( w._flow == 'b' ) nb++; else nc++;
+    }
+    assertEquals(8, nc, 1);
+    assertEquals(4, nb, 1);
+    assertEquals(4, na, 1);
+    // Drain the backlog, then free the slots
+    int parked = 60 - 16;
+    for( int i = 0; i < parked; i++ ) assertNotNull(FairShare.next());
+    for( int i = 0; i < slots; i++ ) assertNull(FairShare.next());
+    assertFalse(FairShare.park(new Work('b'), b)); // Slots are free again
+    assertNull(FairShare.next());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadWeight() { new FairShare.Flow(0); }
+}
@@ -0,0 +1,76 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class FusedMRTaskTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static class Sum extends MRTask<Sum> {
+    double _sum;
+    boolean _posted;
+    @Override public void map( Chunk c ) {
+      for( int r = 0; r < c._len; r++ ) _sum += c.atd(r);
+    }
+    @Override public void reduce( Sum s ) { _sum += s._sum; }
+    @Override protected void postGlobal() { _posted = true; }
+  }
+
+  private static class Cells extends MRTask<Cells> {
+    long _n;
+    int _cols;
+    @Override public void map( Chunk[] cs ) { _n += (long)cs.length * cs[0]._len; _cols = cs.length; }
+    @Override public void reduce( Cells c ) { _n += c._n; }
+  }
+
+  private static class Copy extends MRTask<Copy> {
+    @Override public void map( Chunk c, NewChunk nc ) {
+      for( int r = 0; r < c._len; r++ ) nc.addNum(c.atd(r));
+    }
+  }
+
+  @Test public void testFused() {
+    Vec seq = Vec.makeSeq(100000, true);
+    Frame fr = new Frame(new String[]{"seq", "two"}, new Vec[]{seq, seq.makeCon(2)});
+    try {
+      Sum a = new Sum(), b = new Sum();
+      Cells all = new Cells();
+      new FusedMRTask().add(a, 0).add(b, 1).add(all).doAll(fr);
+      // Each task gets its own results, as if run alone
+      assertEquals(new Sum().doAll(fr.vec(0))._sum, a._sum, 0);
+      assertEquals(100000 * 100001 / 2.0, a._sum, 0);
+      assertEquals(2 * 100000, b._sum, 0);
+      assertEquals(2 * 100000, all._n);
+      assertEquals(2, all._cols);
+      assertTrue(a._posted && b._posted);
+      assertEquals(1, a._fr.numCols());
+    } finally {
+      fr.delete();
+    }
+  }
+
+  private static class Split extends MRTask<Split> {
+    @Override public void map( Chunk[] cs, NewChunk[] ncs ) {
+      for( int r = 0; r < cs[0]._len; r++ ) ncs[0].addNum(cs[0].atd(r));
+    }
+  }
+
+  private static class SubCopy extends Copy { }
+
+  @Test public void testOutputVecsRejected() {
+    // Never run: rejected by their map signatures, not by a past doAll
+    for( MRTask t : new MRTask[]{new Copy(), new Split(), new SubCopy()} ) {
+      try {
+        new FusedMRTask().add(t);
+        fail("Expected an IllegalArgumentException for " + t.getClass().getSimpleName());
+      } catch( IllegalArgumentException expected ) { }
+    }
+    new FusedMRTask().add(new Sum()).add(new Cells());
+  }
+}
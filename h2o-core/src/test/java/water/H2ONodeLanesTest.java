@@ -0,0 +1,70 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static water.H2O.OptArgs.SYSTEM_PROP_PREFIX;
+import static water.H2ONode.*;
+
+public class H2ONodeLanesTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testLaneOfPriority() {
+    // Lanes on: Key traffic is bulk, other hi-priority traffic is control
+    assertEquals(LANE_BULK, lane(H2O.GET_KEY_PRIORITY, true));
+    assertEquals(LANE_BULK, lane(H2O.PUT_KEY_PRIORITY, true));
+    assertEquals(LANE_CONTROL, lane(H2O.ACK_PRIORITY, true));
+    assertEquals(LANE_CONTROL, lane(H2O.MIN_HI_PRIORITY, true));
+    assertEquals(LANE_TASK, lane((byte)(H2O.MIN_HI_PRIORITY - 1), true));
+    assertEquals(LANE_TASK, lane(H2O.MIN_PRIORITY, true));
+    // Lanes off: everything shares the one pool
+    for( byte p : new byte[]{H2O.GET_KEY_PRIORITY, H2O.ACK_PRIORITY, H2O.MIN_HI_PRIORITY, H2O.MIN_PRIORITY} )
+      assertEquals(LANE_TASK, lane(p, false));
+    // ...and the live setting picks one of its pools
+    assertTrue(lane(H2O.GET_KEY_PRIORITY) < LANE_SOCKS.length);
+  }
+
+  @Test public void testPoolSizing() {
+    Properties props = new Properties();
+    assertArrayEquals(new int[]{2, 1, 2}, laneSocks(true, props));
+    assertArrayEquals(new int[]{2}, laneSocks(false, props));
+    props.setProperty(SYSTEM_PROP_PREFIX + "tcp.lanes.task", "4");
+    props.setProperty(SYSTEM_PROP_PREFIX + "tcp.lanes.control", "0"); // At least one socket
+    props.setProperty(SYSTEM_PROP_PREFIX + "tcp.lanes.bulk", "junk"); // Default
+    props.setProperty(SYSTEM_PROP_PREFIX + "tcp.socks", "3");
+    assertArrayEquals(new int[]{4, 1, 2}, laneSocks(true, props));
+    assertArrayEquals(new int[]{3}, laneSocks(false, props));
+  }
+
+  @Test public void testSocketsReturnToTheirLane() {
+    checkPools(makePools(new int[]{2, 1, 2}));
+    checkPools(makePools(new int[]{2}));
+  }
+
+  private static void checkPools( SocketPool[] pools ) {
+    ByteChannel[] socks = new ByteChannel[pools.length];
+    for( int l = 0; l < pools.length; l++ ) {
+      assertNull(pools[l].claim()); // Nothing open yet: caller opens a socket
+      TCPS.incrementAndGet();       // ...as getTCPSocket does
+      pools[l].free(socks[l] = new FakeChannel());
+    }
+    for( int l = 0; l < pools.length; l++ ) {
+      assertSame(socks[l], pools[l].claim()); // Back from its own pool only
+      socks[l].close();
+      pools[l].free(socks[l]);      // Closed: dropped, count lowered
+    }
+  }
+
+  private static class FakeChannel implements ByteChannel {
+    private boolean _open = true;
+    @Override public int read( ByteBuffer dst ) { return 0; }
+    @Override public int write( ByteBuffer src ) { return 0; }
+    @Override public boolean isOpen() { return _open; }
+    @Override public void close() { _open = false; }
+  }
+}
@@ -0,0 +1,39 @@
+package water;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class H2ONodeLingerTest {
+
+  private static ByteBuffer queued( int len, byte priority ) {
+    ByteBuffer bb = ByteBuffer.allocate(len);
+    bb.limit(len);
+    H2ONode.queuePriority(bb, priority);
+    return bb;
+  }
+
+  @Test public void testPriorityTag() {
+    assertTrue(H2ONode.isHiPriority(queued(64, H2O.ACK_PRIORITY)));
+    assertTrue(H2ONode.isHiPriority(queued(64, H2O.MIN_HI_PRIORITY)));
+    assertFalse(H2ONode.isHiPriority(queued(64, (byte)(H2O.MIN_HI_PRIORITY - 1))));
+    assertFalse(H2ONode.isHiPriority(queued(64, H2O.MIN_PRIORITY)));
+    // Too short to carry the tag: taken as high priority, never delayed
+    assertTrue(H2ONode.isHiPriority(queued(7, H2O.ACK_ACK_PRIORITY)));
+    // Queue order is unchanged: lower tags are sent first
+    assertTrue(queued(64, H2O.MIN_PRIORITY).position() < queued(64, H2O.MIN_HI_PRIORITY).position());
+    assertTrue(queued(64, H2O.MIN_HI_PRIORITY).position() < queued(64, H2O.ACK_PRIORITY).position());
+  }
+
+  @Test public void testLinger() {
+    ByteBuffer batch = ByteBuffer.allocate(1024);
+    batch.position(100);
+    assertTrue(H2ONode.linger(1000, false, batch));
+    assertFalse(H2ONode.linger(0, false, batch));   // Linger off
+    assertFalse(H2ONode.linger(1000, true, batch)); // High priority pending
+    batch.position(600);
+    assertFalse(H2ONode.linger(1000, false, batch)); // Batch half full
+  }
+}
@@ -0,0 +1,67 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O.H2OCountedCompleter;
+import water.fvec.Frame;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class JobMemTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testReservations() {
+    Key a = Key.make("jobmemA"), b = Key.make("jobmemB");
+    long base = MemoryManager.jobMemReserved();
+    try {
+      // Alone, a Job is always admitted, even over budget
+      if( base == 0 ) assertTrue(MemoryManager.tryReserveJobMem(a, Long.MAX_VALUE >> 2, false));
+      else MemoryManager.tryReserveJobMem(a, Long.MAX_VALUE >> 2, true);
+      assertEquals(Long.MAX_VALUE >> 2, MemoryManager.jobMemReserved(a));
+      // ...but not next to another one
+      assertFalse(MemoryManager.tryReserveJobMem(b, Long.MAX_VALUE >> 2, false));
+      assertEquals(0, MemoryManager.jobMemReserved(b));
+      // Nested Jobs never wait
+      assertTrue(MemoryManager.tryReserveJobMem(b, 100, true));
+      assertEquals(base + (Long.MAX_VALUE >> 2) + 100, MemoryManager.jobMemReserved());
+    } finally {
+      MemoryManager.freeJobMem(a);
+      MemoryManager.freeJobMem(b);
+      MemoryManager.freeJobMem(b); // Idempotent
+    }
+    assertEquals(base, MemoryManager.jobMemReserved());
+  }
+
+  @Test public void testStopQueuedJob() {
+    Key hog = Key.make("jobmemHog");
+    MemoryManager.setJobMemBudget(1 << 20);
+    try {
+      // Another Job holds the whole budget, so this one waits for memory
+      assertTrue(MemoryManager.tryReserveJobMem(hog, 1 << 20, true));
+      final AtomicBoolean ran = new AtomicBoolean();
+      Job<Frame> job = new Job<>(Key.<Frame>make(), Frame.class.getName(), "queued");
+      job.setMemoryEstimate(1 << 20);
+      job.start(new H2OCountedCompleter() {
+        @Override public void compute2() { ran.set(true); tryComplete(); }
+      }, 1);
+      assertTrue(job.isRunning());
+      assertEquals("Queued: waiting for memory.", job.progress_msg());
+      // Stopped, it is cancelled at once and never runs
+      job.stop();
+      try { job.get(); } catch( RuntimeException ignore ) { } // Cancelled
+      assertTrue(job.isStopped());
+      assertEquals("Cancelled.", job.progress_msg());
+      assertEquals(0, MemoryManager.jobMemReserved(job._key));
+      // ...not even once memory frees up
+      MemoryManager.freeJobMem(hog);
+      assertTrue(MemoryManager.tryReserveJobMem(hog, 1 << 20, false));
+      assertFalse(ran.get());
+      job.remove();
+    } finally {
+      MemoryManager.freeJobMem(hog);
+      MemoryManager.setJobMemBudget(MemoryManager.JOB_MEM_BUDGET);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package water;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class MRTaskStealTest extends TestUtil {
+  @BeforeClass static public void setup() {
+    stall_till_cloudsize(3);
+    WorkStealing.setEnabled(true);
+  }
+  @AfterClass static public void cleanup() { WorkStealing.setEnabled(WorkStealing.ENABLED); }
+
+  // Counts map calls per Chunk; slow on the Chunks homed on the first node,
+  // so the other nodes run out of work and steal them
+  private static class Count extends MRTask<Count> {
+    final H2ONode _slow;
+    int[] _maps;
+    int _stolen;
+    double _sum;
+    Count( H2ONode slow ) { _slow = slow; }
+    @Override public void map( Chunk c ) {
+      _maps = new int[c.vec().nChunks()];
+      _maps[c.cidx()]++;
+      if( !c.vec().chunkKey(c.cidx()).home() ) _stolen++;
+      else if( H2O.SELF == _slow ) try { Thread.sleep(50); } catch( InterruptedException ignore ) { }
+      for( int i = 0; i < c._len; i++ ) _sum += c.atd(i);
+    }
+    @Override public void reduce( Count c ) {
+      if( _maps == null ) _maps = c._maps;
+      else if( c._maps != null ) for( int i = 0; i < _maps.length; i++ ) _maps[i] += c._maps[i];
+      _stolen += c._stolen;
+      _sum += c._sum;
+    }
+  }
+
+  @Test public void testStolenChunksMappedOnce() {
+    int n = 4 * H2O.ARGS.nthreads * H2O.CLOUD.size();
+    Vec v = Vec.makeCon(1, n << 4, 4, false);
+    try {
+      Count c = new Count(H2O.CLOUD._memary[0]).doAll(v);
+      for( int i = 0; i < n; i++ ) assertEquals("Chunk " + i, 1, c._maps[i]);
+      assertEquals(n << 4, c._sum, 0);
+      if( H2O.CLOUD.size() > 1 ) assertTrue(c._stolen > 0);
+    } finally {
+      v.remove();
+    }
+  }
+
+  private static class Registered extends MRTask<Registered> {
+    int _n;
+    @Override protected void setupLocal() { _n = WorkStealing.registered(); }
+    @Override public void reduce( Registered r ) { _n += r._n; }
+  }
+
+  // No node keeps the Chunk tables of failed MRTasks
+  private static void assertNoneRegistered() throws InterruptedException {
+    int n = 0;
+    for( int i = 0; i < 100 && (n = new Registered().doAllNodes()._n) > 0; i++ ) Thread.sleep(50);
+    assertEquals(0, n);
+  }
+
+  @Test public void testUnregisteredOnFailure() throws InterruptedException {
+    Vec v = Vec.makeCon(1, 1 << 12, 4, false);
+    try {
+      assertNoneRegistered();
+      try {
+        new MRTask() {
+          @Override public void map( Chunk c ) { if( c.cidx() == 3 ) throw new IllegalStateException("test"); }
+        }.doAll(v);
+        fail("should've thrown");
+      } catch( RuntimeException expected ) { }
+      assertNoneRegistered();
+      try {
+        new MRTask() {
+          @Override protected void setupLocal() { throw new IllegalStateException("test"); }
+        }.doAll(v);
+        fail("should've thrown");
+      } catch( RuntimeException expected ) { }
+      assertNoneRegistered();
+    } finally {
+      v.remove();
+    }
+  }
+}
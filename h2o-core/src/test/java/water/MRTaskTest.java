@@ -94,6 +94,31 @@ public class MRTaskTest extends TestUtil {
 
     zeros.remove();
   }
+  private static class Sum extends MRTask<Sum> {
+    long _sum, _chunks;
+    @Override public void map(Chunk c) { for( int i = 0; i < c._len; i++ ) _sum += c.at8(i); _chunks++; }
+    @Override public void reduce(Sum s) { _sum += s._sum; _chunks += s._chunks; }
+  }
+
+  @Test public void testFanout() {
+    Vec v = Vec.makeSeq(1, 100000);
+    try {
+      Sum binary = new Sum().doAll(v);
+      assertEquals(100000L*100001/2, binary._sum);
+      assertEquals(v.nChunks(), binary._chunks);
+      for( int k : new int[]{3, 4, 64} ) {
+        Sum s = new Sum().fanout(k).doAll(v);
+        assertEquals(binary._sum, s._sum);
+        assertEquals(binary._chunks, s._chunks);
+      }
+    } finally {
+      v.remove();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFanoutRange() { new Sum().fanout(1); }
+
   private static MRTask manyMaps(Vec vec) {
     return new MRTask() { 
       @Override public void map(Chunk cs[]) { }
@@ -0,0 +1,65 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class OffHeapTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  // Move the Chunk off-heap and drop its heap copies, as the Cleaner does
+  private static Value offHeap( Vec v ) {
+    Value val = DKV.get(v.chunkKey(0));
+    val.memOrLoad();
+    assertTrue(val.storeOffHeap());
+    assertTrue(val.isOffHeap());
+    val.freeMem();
+    val.freePOJO();
+    assertNull(val.rawMem());
+    return val;
+  }
+
+  @Test public void testFixedWidthReadsInPlace() {
+    double[] vals = new double[1000];
+    for( int i = 0; i < vals.length; i++ ) vals[i] = i % 7 == 0 ? Double.NaN : Math.PI * i - 1e10;
+    Vec v = Vec.makeVec(vals, Vec.newKey());
+    MemoryManager.setOffHeapMax(1 << 20);
+    try {
+      assertTrue(v.chunkForChunkIdx(0).readsOffHeap());
+      long used = MemoryManager.offHeapUsed();
+      Value val = offHeap(v);
+      assertTrue(MemoryManager.offHeapUsed() > used);
+      Chunk c = v.chunkForChunkIdx(0);
+      for( int i = 0; i < vals.length; i++ ) assertEquals(vals[i], c.atd(i), 0);
+      // Decoded in place: neither the Value nor the Chunk keeps a heap copy
+      assertNull(val.rawMem());
+      assertTrue(c.byteSize() < 8 * vals.length);
+      // Writes go to a heap copy, not the off-heap bytes
+      c.set(1, 7.0);
+      assertEquals(7.0, c.atd(1), 0);
+      val.freePOJO();
+      assertEquals(vals[1], v.chunkForChunkIdx(0).atd(1), 0);
+    } finally {
+      MemoryManager.setOffHeapMax(MemoryManager.OFFHEAP_MAX);
+      v.remove();
+    }
+  }
+
+  @Test public void testOtherChunksCopyToHeap() {
+    Vec v = Vec.makeCon(3.5, 1000);
+    MemoryManager.setOffHeapMax(1 << 20);
+    try {
+      assertFalse(v.chunkForChunkIdx(0).readsOffHeap());
+      Value val = offHeap(v);
+      Chunk c = val.get();
+      for( int i = 0; i < 1000; i++ ) assertEquals(3.5, c.atd(i), 0);
+      assertNotNull(val.rawMem()); // Decoded from a heap copy
+    } finally {
+      MemoryManager.setOffHeapMax(MemoryManager.OFFHEAP_MAX);
+      v.remove();
+    }
+  }
+}
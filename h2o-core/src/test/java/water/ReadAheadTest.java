@@ -0,0 +1,44 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class ReadAheadTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testPrefetchReloadsSwappedChunks() throws Exception {
+    Vec v = Vec.makeCon(1, 1 << 14, 10, false); // 16 Chunks, all homed here
+    Frame fr = new Frame(v);
+    try {
+      int n = v.nChunks();
+      assertTrue(n > 3);
+      for( int c = 0; c < n; c++ ) v.chunkForChunkIdx(c); // Loaded, as after a pass
+      // Swap every Chunk out, as the Cleaner does under pressure
+      Value[] vals = new Value[n];
+      for( int c = 0; c < n; c++ ) {
+        Value val = vals[c] = Value.STORE_get(v.chunkKey(c));
+        val.storePersist();
+        val.freeMem();
+        val.freePOJO();
+        assertNull(val.rawMem());
+      }
+      // Mapping the last Chunk reads ahead the two before it, and no others
+      long loaded = ReadAhead.loaded();
+      ReadAhead.prefetch(fr, n - 1, 2);
+      long deadline = System.currentTimeMillis() + 10000;
+      while( ReadAhead.loaded() - loaded < 2 && System.currentTimeMillis() < deadline )
+        Thread.sleep(10);
+      assertEquals(ReadAhead.summary(), 2, ReadAhead.loaded() - loaded);
+      assertNotNull(vals[n-2].rawMem());
+      assertNotNull(vals[n-3].rawMem());
+      assertNull(vals[0].rawMem());
+      assertNull(vals[n-1].rawMem());
+    } finally {
+      fr.delete();
+    }
+  }
+}
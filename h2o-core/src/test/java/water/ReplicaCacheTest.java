@@ -0,0 +1,39 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.util.IcedInt;
+
+import static org.junit.Assert.*;
+
+public class ReplicaCacheTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testAccounting() {
+    Key a = Key.make("replicaA"), b = Key.make("replicaB");
+    Value va = new Value(a, new IcedInt(1)), vb = new Value(b, new IcedInt(2));
+    long bytes = ReplicaCache.bytes(), invs = ReplicaCache.invalidations(), hits = ReplicaCache.hits();
+    ReplicaCache.cached(a, va);
+    ReplicaCache.cached(b, vb);
+    assertEquals(bytes + va._max + vb._max, ReplicaCache.bytes());
+    ReplicaCache.hit(a);
+    assertEquals(hits + 1, ReplicaCache.hits());
+    // Home invalidates one, a local Put replaces the other
+    ReplicaCache.invalidated(a);
+    assertEquals(invs + 1, ReplicaCache.invalidations());
+    ReplicaCache.replaced(b, new Value(b, new IcedInt(3))); // Not the cached replica: no-op
+    assertEquals(bytes + vb._max, ReplicaCache.bytes());
+    ReplicaCache.replaced(b, vb);
+    assertEquals(bytes, ReplicaCache.bytes());
+  }
+
+  @Test public void testChunksNotTracked() {
+    Key ck = water.fvec.Vec.chunkKey(water.fvec.Vec.newKey(), 0);
+    long misses = ReplicaCache.misses();
+    int size = ReplicaCache.size();
+    ReplicaCache.miss(ck);
+    ReplicaCache.cached(ck, new Value(ck, new byte[16]));
+    assertEquals(misses, ReplicaCache.misses());
+    assertEquals(size, ReplicaCache.size());
+  }
+}
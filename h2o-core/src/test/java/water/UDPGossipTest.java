@@ -0,0 +1,114 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UDPGossipTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  private static HeartBeat hb( long boot, int version ) {
+    HeartBeat hb = new HeartBeat();
+    hb._jvm_boot_msec = boot;
+    hb._hb_version = (char)version;
+    return hb;
+  }
+
+  @Test public void testNewer() {
+    assertTrue (UDPGossip.newer(hb(100, 6), hb(100, 5)));
+    assertFalse(UDPGossip.newer(hb(100, 5), hb(100, 5)));
+    assertFalse(UDPGossip.newer(hb(100, 4), hb(100, 5)));
+    // The version counter wraps
+    assertTrue (UDPGossip.newer(hb(100, 2), hb(100, 0xFFFE)));
+    assertFalse(UDPGossip.newer(hb(100, 0xFFFE), hb(100, 2)));
+    // A rebooted node starts counting again
+    assertTrue (UDPGossip.newer(hb(200, 0), hb(100, 5000)));
+    assertFalse(UDPGossip.newer(hb(100, 5001), hb(200, 0)));
+    // Anything beats the empty HeartBeat of a node never heard of
+    assertTrue (UDPGossip.newer(hb(100, 0), new HeartBeat()));
+  }
+
+  // A HeartBeat as big as the HeartBeatThread makes them
+  private static HeartBeat full( long boot, int version ) {
+    HeartBeat hb = hb(boot, version);
+    hb._cloud_hash = 0x12345678;
+    hb._cloud_size = 500;
+    hb._cloud_name_hash = H2O.SELF._heartbeat._cloud_name_hash;
+    hb._jar_md5 = new byte[16];
+    hb._fjthrds = new short[H2O.MAX_PRIORITY+1];
+    hb._fjqueue = new short[H2O.MAX_PRIORITY+1];
+    Arrays.fill(hb._fjthrds, (short)1000);
+    Arrays.fill(hb._fjqueue, (short)1000);
+    hb._system_idle_ticks = hb._system_total_ticks = hb._process_total_ticks = Long.MAX_VALUE;
+    hb._replica_hits = hb._wire_raw_bytes = hb._wire_sent_bytes = Long.MAX_VALUE;
+    return hb;
+  }
+
+  @Test public void testMessageFitsDatagram() throws Exception {
+    ArrayList<H2ONode> nodes = new ArrayList<>();
+    for( int i = 0; i < 2 * UDPGossip.SIZE; i++ ) {
+      H2ONode h2o = H2ONode.intern(InetAddress.getByAddress(new byte[]{127, 0, 2, (byte)i}), 40000 + i);
+      h2o._heartbeat = full(1000 + i, 7 + i);
+      nodes.add(h2o);
+    }
+    HeartBeat self = full(999, 3);
+    // Whole HeartBeats would not fit; rumors do
+    assertTrue(UDPGossip.size(self) * (1 + UDPGossip.SIZE) > UDPGossip.MAX_BYTES);
+    UDPGossip.Gossip g = UDPGossip.pack(self, nodes);
+    assertEquals(UDPGossip.SIZE, g._rumors.length);
+    byte[] bits = g.write(new AutoBuffer()).buf();
+    assertTrue(bits.length + "", bits.length <= UDPGossip.MAX_BYTES);
+    assertTrue(bits.length < AutoBuffer.BBP_SML._size);
+
+    UDPGossip.Gossip g2 = new UDPGossip.Gossip().read(new AutoBuffer(bits));
+    assertEquals(3, g2._self._hb_version);
+    assertEquals(g._rumors.length, g2._rumors.length);
+    for( int i = 0; i < g2._rumors.length; i++ ) {
+      UDPGossip.Rumor r = g2._rumors[i];
+      assertSame(nodes.get(i), r._h2o);
+      assertEquals(1000 + i, r._jvm_boot_msec);
+      assertEquals(7 + i, r._hb_version);
+      assertEquals(0x12345678, r._cloud_hash);
+      assertEquals(500, r._cloud_size);
+    }
+  }
+
+  @Test public void testTooManyRumorsDropped() throws Exception {
+    ArrayList<H2ONode> nodes = new ArrayList<>();
+    for( int i = 0; i < UDPGossip.SIZE; i++ )
+      nodes.add(H2ONode.intern(InetAddress.getByAddress(new byte[]{127, 0, 3, (byte)i}), 40000 + i));
+    // A self HeartBeat leaving room for only a few rumors
+    HeartBeat self = full(999, 3);
+    self._fjthrds = new short[(UDPGossip.MAX_BYTES - 400) / 2];
+    Arrays.fill(self._fjthrds, (short)1000);
+    UDPGossip.Gossip g = UDPGossip.pack(self, nodes);
+    assertTrue(g._rumors.length < UDPGossip.SIZE);
+    assertTrue(UDPGossip.size(g) <= UDPGossip.MAX_BYTES);
+    for( int i = 0; i < g._rumors.length; i++ ) assertSame(nodes.get(i), g._rumors[i]._h2o);
+  }
+
+  @Test public void testRumorUpdatesPaxosState() {
+    HeartBeat relay = full(1, 1);
+    UDPGossip.Rumor r = new UDPGossip.Rumor(null, full(200, 9));
+    // A node never heard of: the relay's cloud & jar, the rumor's Paxos state
+    HeartBeat hb = r.apply(new HeartBeat(), relay);
+    assertEquals(200, hb._jvm_boot_msec);
+    assertEquals(9, hb._hb_version);
+    assertEquals(0x12345678, hb._cloud_hash);
+    assertEquals(500, hb._cloud_size);
+    assertEquals(relay._cloud_name_hash, hb._cloud_name_hash);
+    assertSame(relay._jar_md5, hb._jar_md5);
+    // A known node keeps its own stats
+    HeartBeat old = hb(200, 8);
+    old._num_cpus = 32;
+    hb = r.apply(old, relay);
+    assertEquals(32, hb._num_cpus);
+    assertEquals(9, hb._hb_version);
+    assertEquals(8, old._hb_version);
+  }
+}
@@ -0,0 +1,64 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+
+public class WorkStealingTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testGrant() {
+    // Many more Chunks than threads, all homed here
+    int n = 4 * H2O.ARGS.nthreads + 16;
+    Vec v = Vec.makeCon(0, n << 4, 4, false);
+    try {
+      AtomicLongArray stats = new AtomicLongArray(2);
+      WorkStealing.Claims c = new WorkStealing.Claims(1, new Frame(v), 0, n, stats);
+      assertNull(c.grant(1e8, 2)); // No map time yet
+      assertTrue(c.claim(0));
+      assertFalse(c.claim(0));
+      stats.set(0, 1);
+      stats.set(1, 1000000000L); // 1 sec per map call
+      // Stolen from the end of the table, and claimed
+      assertArrayEquals(new int[]{n - 1, n - 2}, c.grant(1e8, 2));
+      assertFalse(c.claim(n - 1));
+      assertTrue(c.claim(1));
+      // Not worth shipping over a slow link: ask again later
+      assertNull(c.grant(1e-3, 2));
+      // All claimed: nothing more to ask for
+      for( int i = 2; i < n - 2; i++ ) assertTrue(c.claim(i));
+      assertEquals(0, c.grant(1e8, 2).length);
+    } finally {
+      v.remove();
+    }
+  }
+
+  @Test public void testStealBeforeAndAfter() {
+    int n = 4 * H2O.ARGS.nthreads + 16;
+    Vec v = Vec.makeCon(0, n << 4, 4, false);
+    long id = 12345;
+    try {
+      // Not started here yet: ask again later
+      assertNull(WorkStealing.steal(H2O.SELF, id, 2));
+      AtomicLongArray stats = new AtomicLongArray(2);
+      WorkStealing.Claims c = WorkStealing.register(id, new Frame(v), 0, n, stats);
+      stats.set(0, 1);
+      stats.set(1, 1000000000L);
+      assertArrayEquals(new int[]{n - 1, n - 2}, WorkStealing.steal(H2O.SELF, id, 2));
+      assertFalse(c.claim(n - 1));
+      // Done here: never ask again, and unregistering twice is harmless
+      int registered = WorkStealing.registered();
+      WorkStealing.unregister(c);
+      WorkStealing.unregister(c);
+      assertEquals(registered - 1, WorkStealing.registered());
+      assertEquals(0, WorkStealing.steal(H2O.SELF, id, 2).length);
+    } finally {
+      v.remove();
+    }
+  }
+}
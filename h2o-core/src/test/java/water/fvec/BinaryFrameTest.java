@@ -0,0 +1,50 @@
+package water.fvec;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class BinaryFrameTest extends TestUtil {
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @BeforeClass public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  @Test public void testRoundTrip() throws IOException {
+    Frame fr = null, imported = null;
+    try {
+      fr = parse_test_file("smalldata/airlines/airlineUUID.csv");
+      File target = new File(tmpFolder.getRoot(), "airlines.h2of");
+      long written = BinaryFrame.export(fr, target.getPath(), false);
+      assertEquals(target.length(), written);
+      imported = BinaryFrame.importFrame(target.getPath(), Key.<Frame>make());
+      assertArrayEquals(fr.names(), imported.names());
+      assertArrayEquals(fr.anyVec().espc(), imported.anyVec().espc());
+      for( int i = 0; i < fr.numCols(); i++ ) {
+        assertEquals(fr.vec(i).get_type(), imported.vec(i).get_type());
+        assertArrayEquals(fr.vec(i).domain(), imported.vec(i).domain());
+      }
+      assertTrue(isBitIdentical(fr, imported));
+    } finally {
+      if( fr != null ) fr.delete();
+      if( imported != null ) imported.delete();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsOtherFiles() throws IOException {
+    File f = tmpFolder.newFile("not_a_frame.csv");
+    java.nio.file.Files.write(f.toPath(), "a,b,c\n1,2,3\n4,5,6\n".getBytes());
+    BinaryFrame.importFrame(f.getPath(), Key.<Frame>make());
+  }
+}
@@ -0,0 +1,76 @@
+package water.fvec;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameSnapshotTest extends TestUtil {
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @BeforeClass public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  @Test public void testSaveRestore() throws IOException {
+    Frame fr = null, copy = null, restored = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      double mean = fr.vec(0).mean(); // Rollups are saved too
+      String dir = tmpFolder.newFolder("snapshot").getPath();
+      FrameSnapshot.Stats saved = FrameSnapshot.save(dir, false);
+      assertEquals(1, saved._frames.length);
+      assertEquals(fr.anyVec().nChunks() * fr.numCols(), saved._chunks);
+      assertTrue(new File(dir, FrameSnapshot.MANIFEST).exists());
+
+      copy = fr.deepCopy(Key.make().toString());
+      DKV.put(copy);
+      Key<Frame> key = fr._key;
+      fr.delete();
+      fr = null;
+
+      FrameSnapshot.Stats stats = FrameSnapshot.restore(dir);
+      assertArrayEquals(new Key[]{key}, stats._frames);
+      assertEquals(saved._chunks, stats._chunks);
+      restored = DKV.getGet(key);
+      assertTrue(isBitIdentical(copy, restored));
+      assertEquals(mean, restored.vec(0).mean(), 0);
+      assertArrayEquals(copy.vec(4).domain(), restored.vec(4).domain());
+    } finally {
+      if( fr != null ) fr.delete();
+      if( copy != null ) copy.delete();
+      if( restored != null ) restored.delete();
+    }
+  }
+
+  @Test public void testManifestHeaderHasItsTypes() throws IOException {
+    String dir = tmpFolder.newFolder("snapshot3").getPath();
+    FrameSnapshot.save(dir, false);
+    // The persistent stream header lists the types a fresh cloud needs to
+    // read the manifest back, starting with the Manifest itself
+    AutoBuffer ab = new AutoBuffer(Files.readAllBytes(new File(dir, FrameSnapshot.MANIFEST).toPath()));
+    assertEquals(0x1C, ab.get1U());
+    assertEquals(0xED, ab.get1U());
+    ab.getStr();                // Version
+    List<String> types = Arrays.asList(ab.getAStr());
+    assertTrue(types.contains(FrameSnapshot.class.getName() + "$Manifest"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRefusesOverwrite() throws IOException {
+    String dir = tmpFolder.newFolder("snapshot2").getPath();
+    FrameSnapshot.save(dir, false);
+    FrameSnapshot.save(dir, false);
+  }
+}
@@ -0,0 +1,41 @@
+package water.fvec;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.TestUtil;
+
+import static org.junit.Assert.*;
+
+public class RebalancePlannerTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testSplit() {
+    long[] espc = {0, 10000, 12000, 40000};
+    long[] bytes = {4 << 20, 1 << 20, 2 << 20};
+    // Only the chunks over 1MB are split, evenly and at chunk boundaries
+    assertArrayEquals(new long[]{0, 2500, 5000, 7500, 10000, 12000, 26000, 40000},
+                      RebalancePlanner.split(espc, bytes, 1 << 20, 1000));
+    // Never below the minimum rows per chunk
+    assertArrayEquals(new long[]{0, 5000, 10000, 12000, 26000, 40000},
+                      RebalancePlanner.split(espc, bytes, 1 << 20, 5000));
+    // Nothing to split
+    assertArrayEquals(espc, RebalancePlanner.split(espc, bytes, 8 << 20, 1000));
+  }
+
+  @Test public void testSkew() {
+    assertEquals(1.0, RebalancePlanner.skew(new long[]{100, 100}, new int[]{4, 4}), 1e-9);
+    assertEquals(1.5, RebalancePlanner.skew(new long[]{300, 100}, new int[]{4, 4}), 1e-9);
+    assertEquals(1.0, RebalancePlanner.skew(new long[]{300, 100}, new int[]{6, 2}), 1e-9);
+  }
+
+  @Test public void testSmallFrameKept() {
+    Frame fr = new Frame(Vec.makeCon(1, 100000));
+    try {
+      RebalancePlanner.Plan plan = RebalancePlanner.plan(fr);
+      assertNull(plan._msg, plan._espc);
+      assertTrue(plan._msg, plan._msg.startsWith("keep"));
+    } finally {
+      fr.delete();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package water.init;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O;
+import water.TestUtil;
+
+import static org.junit.Assert.*;
+
+public class NetworkProbeTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Test public void testPercentiles() {
+    NetworkProbe.Link link = new NetworkProbe.Link();
+    for( int us = 10; us >= 1; us-- ) link.rtt(us * 1000L); // Order does not matter
+    NetworkProbe.LinkStats s = link.stats(H2O.SELF);
+    assertEquals(10, s._samples);
+    assertEquals(6, s._rtt_p50_us, 0);
+    assertEquals(10, s._rtt_p99_us, 0);
+    assertEquals(10, s._rtt_max_us, 0);
+    assertEquals(0, s._failures);
+    assertEquals(0, s._bandwidth, 0);
+  }
+
+  @Test public void testWindowRollsOver() {
+    NetworkProbe.Link link = new NetworkProbe.Link();
+    int n = NetworkProbe.WINDOW + 40;
+    for( int us = 1; us <= n; us++ ) link.rtt(us * 1000L);
+    for( int i = 0; i < NetworkProbe.WINDOW + 1; i++ ) link.bandwidth(i == 0 ? 1e12 : 100);
+    link.failed();
+    NetworkProbe.LinkStats s = link.stats(H2O.SELF);
+    assertEquals(n, s._samples);  // Ever taken...
+    assertEquals(1, s._failures);
+    long inWindow = 0;            // ...but only the last WINDOW are kept
+    for( long c : s._rtt_histogram ) inWindow += c;
+    assertEquals(NetworkProbe.WINDOW, inWindow);
+    assertEquals(41 + NetworkProbe.WINDOW / 2, s._rtt_p50_us, 0);
+    assertEquals(n, s._rtt_p99_us, 0);
+    assertEquals(n, s._rtt_max_us, 0);
+    assertEquals(100, s._bandwidth, 0); // The outlier rolled out
+  }
+
+  @Test public void testHistogramBuckets() {
+    NetworkProbe.Link link = new NetworkProbe.Link();
+    long[] ns = {1, 999, 1000, 1999, 2000, 3999, 4000, 1023000, 1024000, Long.MAX_VALUE / 2};
+    for( long x : ns ) link.rtt(x);
+    long[] h = link.stats(H2O.SELF)._rtt_histogram;
+    assertEquals(NetworkProbe.BUCKETS, h.length);
+    assertEquals(4, h[0]);        // Under 2us, sub-microsecond included
+    assertEquals(2, h[1]);        // [2,4)us
+    assertEquals(1, h[2]);        // [4,8)us
+    assertEquals(1, h[9]);        // 1023us
+    assertEquals(1, h[10]);       // 1024us
+    assertEquals(1, h[NetworkProbe.BUCKETS - 1]); // Everything slower
+  }
+
+  @Test public void testReport() {
+    NetworkProbe.Report r = new NetworkProbe.Report().execImpl();
+    assertEquals(NetworkProbe.INTERVAL_SECS > 0, r._enabled);
+    assertEquals(NetworkProbe.INTERVAL_SECS, r._interval_secs);
+    assertNotNull(r._links);
+    for( NetworkProbe.LinkStats s : r._links ) assertNotEquals(s._from, s._to); // Never probes itself
+  }
+}
@@ -0,0 +1,63 @@
+package water.network;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedChannelTest {
+
+    // Written bytes can be read back, a few at a time
+    private static class MemChannel implements ByteChannel {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer in;
+        @Override public int write(ByteBuffer src) {
+            int n = src.remaining();
+            while (src.hasRemaining()) out.write(src.get());
+            return n;
+        }
+        @Override public int read(ByteBuffer dst) {
+            if (in == null) in = ByteBuffer.wrap(out.toByteArray());
+            if (!in.hasRemaining()) return -1;
+            int n = Math.min(Math.min(dst.remaining(), in.remaining()), 1000);
+            for (int i = 0; i < n; i++) dst.put(in.get());
+            return n;
+        }
+        @Override public boolean isOpen() { return true; }
+        @Override public void close() {}
+    }
+
+    @Test
+    public void shouldRoundTrip() throws IOException {
+        byte[] sparse = new byte[64 * 1024];
+        for (int i = 0; i < sparse.length; i += 97) sparse[i] = (byte) i;
+        byte[] noise = new byte[32 * 1024];
+        new Random(42).nextBytes(noise);
+        byte[] small = {1, 2, 3};
+
+        MemChannel mem = new MemChannel();
+        CompressedChannel cc = new CompressedChannel(mem);
+        long raw = CompressedChannel.rawBytesOut(), wire = CompressedChannel.wireBytesOut();
+        for (byte[] b : new byte[][]{sparse, noise, small})
+            assertEquals(b.length, cc.write(ByteBuffer.wrap(b)));
+        int total = sparse.length + noise.length + small.length;
+        assertEquals(raw + total, CompressedChannel.rawBytesOut());
+        assertTrue("sparse data should shrink", mem.out.size() < total / 2);
+        assertEquals(wire + mem.out.size(), CompressedChannel.wireBytesOut());
+
+        ByteBuffer back = ByteBuffer.allocate(total);
+        while (back.hasRemaining())
+            assertTrue(cc.read(back) > 0);
+        assertEquals(-1, cc.read(ByteBuffer.allocate(1)));
+        byte[] got = back.array();
+        assertArrayEquals(sparse, Arrays.copyOfRange(got, 0, sparse.length));
+        assertArrayEquals(noise, Arrays.copyOfRange(got, sparse.length, sparse.length + noise.length));
+        assertArrayEquals(small, Arrays.copyOfRange(got, sparse.length + noise.length, total));
+    }
+}
@@ -1,6 +1,7 @@
 package water.network;
 
 import org.junit.Test;
+import water.init.NetworkBench;
 import water.util.FileUtils;
 import water.util.StringUtils;
 
@@ -134,6 +135,35 @@ public class SSLSocketChannelFactoryTest {
     }
 
 
+    @Test
+    public void shouldSelectAesGcmSuites() {
+        String[] suites = new String[]{
+                "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+                "TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256",
+                "TLS_RSA_WITH_AES_256_GCM_SHA384",
+                "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256"
+        };
+        assertArrayEquals(
+                new String[]{"TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256", "TLS_RSA_WITH_AES_256_GCM_SHA384"},
+                SSLSocketChannelFactory.aesGcmSuites(suites)
+        );
+        assertEquals(0, SSLSocketChannelFactory.aesGcmSuites(new String[]{"TLS_RSA_WITH_AES_128_CBC_SHA"}).length);
+    }
+
+    @Test
+    public void shouldBenchLoopbackChannels() throws Exception {
+        SSLProperties props = new SSLProperties();
+        props.put("h2o_ssl_protocol", SecurityUtils.defaultTLSVersion());
+        props.put("h2o_ssl_jks_internal", getFile("src/test/resources/keystore.jks").getPath());
+        props.put("h2o_ssl_jks_password", "password");
+        props.put("h2o_ssl_aes_gcm", "true");
+
+        SSLSocketChannelFactory factory = new SSLSocketChannelFactory(props);
+        // Not a multiple of the message size, and several batches of records per write
+        assertTrue(NetworkBench.loopbackThroughput(null, 64 * 1024, 10 * 1000 * 1000) > 0);
+        assertTrue(NetworkBench.loopbackThroughput(factory, 64 * 1024, 10 * 1000 * 1000) > 0);
+    }
+
     private class ClientThread extends Thread {
         private final SSLSocketChannelFactory factory;
         private final CyclicBarrier testOne;
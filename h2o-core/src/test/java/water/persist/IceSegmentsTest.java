@@ -0,0 +1,86 @@
+package water.persist;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.DKV;
+import water.Key;
+import water.TestUtil;
+import water.Value;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class IceSegmentsTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test public void testStoreLoadDelete() throws Exception {
+    File dir = new File(tmp.getRoot(), "segments");
+    IceSegments segs = new IceSegments(dir);
+    Value v1 = new Value(Key.make("seg1"), new byte[]{1, 2, 3, 4});
+    Value v2 = new Value(Key.make("seg2"), new byte[]{5, 6});
+    segs.store(v1);
+    segs.store(v2);
+    assertEquals(1, dir.listFiles().length); // Both share one segment
+
+    assertArrayEquals(new byte[]{1, 2, 3, 4}, segs.load(v1));
+    ByteBuffer view = segs.view(v2);
+    assertTrue(view.isReadOnly());
+    assertEquals(2, view.remaining());
+    assertEquals(5, view.get(0));
+    assertEquals(6, view.get(1));
+
+    segs.delete(v1);
+    assertNull(segs.view(v1));
+    segs.delete(v2);
+    assertEquals(1, dir.listFiles().length); // Current segment is kept for reuse
+  }
+
+  @Test public void testDeadSegments() throws Exception {
+    File dir = new File(tmp.getRoot(), "segments");
+    IceSegments segs = new IceSegments(dir, 16);
+    Value v1 = new Value(Key.make("seg3"), new byte[12]);
+    Value v2 = new Value(Key.make("seg4"), new byte[]{7, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+    Value v3 = new Value(Key.make("seg5"), new byte[12]);
+    segs.store(v1);
+    segs.store(v2);
+    segs.store(v3);
+    assertEquals(3, dir.listFiles().length); // One segment each
+    ByteBuffer view = segs.view(v2);
+    // Never viewed: unmapped and unlinked at once
+    segs.delete(v1);
+    assertEquals(2, dir.listFiles().length);
+    assertEquals(0, segs.pinnedBytes());
+    // Viewed: unlinked, but mapped until the view is collected
+    segs.delete(v2);
+    assertEquals(1, dir.listFiles().length);
+    assertEquals(16, segs.pinnedBytes());
+    assertEquals(7, view.get(0));
+    assertNull(segs.view(v2));
+  }
+
+  @Test public void testChunkReadsView() throws Exception {
+    double[] vals = new double[100];
+    for( int i = 0; i < vals.length; i++ ) vals[i] = Math.E * i;
+    Vec vec = Vec.makeVec(vals, Vec.newKey());
+    try {
+      Value val = DKV.get(vec.chunkKey(0));
+      IceSegments segs = new IceSegments(new File(tmp.getRoot(), "segments"));
+      segs.store(val);
+      Chunk c = val.<Chunk>get().clone();
+      assertTrue(c.readsOffHeap());
+      c.reloadFromBuffer(segs.view(val)); // Mapped, no heap copy
+      for( int i = 0; i < vals.length; i++ ) assertEquals(vals[i], c.atd(i), 0);
+      assertTrue(c.byteSize() < 8 * vals.length);
+    } finally {
+      vec.remove();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package water.persist;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Key;
+import water.TestUtil;
+import water.Value;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class PersistFSTest extends TestUtil {
+  @BeforeClass static public void setup() { stall_till_cloudsize(1); }
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test public void testTransferTo() throws Exception {
+    PersistFS fs = new PersistFS(tmp.getRoot());
+    assumeTrue(fs._segments == null && !SwapCodec.ENABLED); // Only plain swap files are sent as-is
+    byte[] bits = new byte[100000];
+    for( int i = 0; i < bits.length; i++ ) bits[i] = (byte)(i * 31);
+    Value v = new Value(Key.make("transferTo"), bits);
+    fs.store(v);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertTrue(fs.transferTo(v, Channels.newChannel(out)));
+    assertArrayEquals(bits, out.toByteArray());
+    fs.delete(v);
+  }
+
+  @Test public void testOpenAt() throws Exception {
+    PersistFS fs = new PersistFS(tmp.getRoot());
+    File f = tmp.newFile("openAt.bin");
+    byte[] bits = new byte[1000];
+    for( int i = 0; i < bits.length; i++ ) bits[i] = (byte)i;
+    Files.write(f.toPath(), bits);
+    try( InputStream is = fs.open(f.toURI().toString(), 600) ) {
+      assertEquals((byte)600, (byte)is.read());
+      assertEquals(399, is.available());
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LZ4Test {
+
+  private static void roundTrip(byte[] raw) {
+    byte[] c = LZ4.compress(raw);
+    assertTrue(c.length <= LZ4.maxCompressedLength(raw.length));
+    assertArrayEquals(raw, LZ4.decompress(c, raw.length));
+  }
+
+  @Test public void testEmptyAndTiny() {
+    roundTrip(new byte[0]);
+    roundTrip(new byte[]{42});
+    roundTrip("0123456789abcdef".getBytes());
+  }
+
+  @Test public void testRandomRoundTrips() {
+    Random r = new Random(0xDECAF);
+    for( int t = 0; t < 200; t++ ) {
+      byte[] raw = new byte[r.nextInt(100000)];
+      int mode = t % 3;
+      for( int i = 0; i < raw.length; i++ )
+        raw[i] = mode == 0 ? (byte)r.nextInt()            // Incompressible
+               : mode == 1 ? (byte)r.nextInt(4)           // Low entropy
+               : (byte)(i % 97);                          // Long repeats
+      roundTrip(raw);
+    }
+  }
+
+  @Test public void testCompressesRepeats() {
+    byte[] raw = new byte[1 << 16];
+    Arrays.fill(raw, (byte)7);
+    assertTrue(LZ4.compress(raw).length < raw.length / 100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongLength() {
+    byte[] c = LZ4.compress("hello, hello, hello, hello".getBytes());
+    LZ4.decompress(c, 3);
+  }
+}
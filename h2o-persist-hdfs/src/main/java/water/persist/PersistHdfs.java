@@ -500,6 +500,26 @@ public final class PersistHdfs extends Persist {
     }
   }
 
+  @Override
+  public InputStream open(String path, long pos) {
+    Path p = new Path(path);
+    URI uri = p.toUri();
+    try {
+      FileSystem fs = FileSystem.get(uri, CONF);
+      FSDataInputStream is = fs.open(p);
+      try {
+        is.seek(pos);
+      } catch (IOException e) {
+        FileUtils.close(is);
+        throw e;
+      }
+      return is;
+    }
+    catch (IOException e) {
+      throw new HDFSIOException(path, CONF.toString(), e);
+    }
+  }
+
   @Override
   public boolean mkdirs(String path) {
     Path p = new Path(path);
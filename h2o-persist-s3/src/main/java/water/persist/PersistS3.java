@@ -6,6 +6,7 @@ import java.net.URI;
 import java.util.*;
 
 import water.*;
+import water.api.FSIOException;
 import water.fvec.FileVec;
 import water.fvec.S3FileVec;
 import water.fvec.Vec;
@@ -129,6 +130,62 @@ public final class PersistS3 extends Persist {
     return s3obj.getObjectContent();
   }
 
+  // A ranged GET: the bytes before pos are never downloaded
+  @Override
+  public InputStream open(String path, long pos) {
+    String[] bk = decodePath(path);
+    GetObjectRequest r = new GetObjectRequest(bk[0], bk[1]).withRange(pos);
+    return getClient().getObject(r).getObjectContent();
+  }
+
+  @Override
+  public boolean exists(String path) {
+    String[] bk = decodePath(path);
+    try {
+      getClient().getObjectMetadata(bk[0], bk[1]);
+      return true;
+    } catch (AmazonServiceException e) {
+      if (e.getStatusCode() == 404) return false;
+      throw e;
+    }
+  }
+
+  @Override
+  public long length(String path) {
+    String[] bk = decodePath(path);
+    return getClient().getObjectMetadata(bk[0], bk[1]).getContentLength();
+  }
+
+  // S3 wants the whole object in one put, so the output is spooled to a
+  // local temporary file and uploaded when the stream is closed.
+  @Override
+  public OutputStream create(final String path, boolean overwrite) {
+    final String[] bk = decodePath(path);
+    if (!overwrite && exists(path))
+      throw new FSIOException(path, "File already exists");
+    try {
+      final File tmp = File.createTempFile("h2o-s3-", ".tmp");
+      tmp.deleteOnExit();
+      return new FileOutputStream(tmp) {
+        private boolean _closed;
+        @Override public void close() throws IOException {
+          if (_closed) return;
+          _closed = true;
+          super.close();
+          try {
+            getClient().putObject(bk[0], bk[1], tmp);
+          } catch (AmazonClientException e) {
+            throw new IOException("Failed to upload " + path, e);
+          } finally {
+            tmp.delete();
+          }
+        }
+      };
+    } catch (IOException e) {
+      throw new FSIOException(path, e);
+    }
+  }
+
   public static InputStream openStream(Key k, RIStream.ProgressMonitor pmon) throws IOException {
     return new H2SO3InputStream(k, pmon);
   }